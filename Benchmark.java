@@ -0,0 +1,302 @@
+// Title       : Benchmark.java
+// Description : This class is a small benchmark harness for the
+//               package : path construction across Kt (powerOf2
+//               and general modes), d, N and c, wavelet
+//               evaluation, Gaussian generation and each export
+//               format. It reports throughput, latency
+//               percentiles and allocation rate, and compares
+//               them with a baseline result file.
+// Author      : agent.
+// Date        : 2026.
+// Notes       : Run with java BrownianGenerator.Benchmark help.
+
+package BrownianGenerator;
+
+import java.io.*; // for result files
+import java.lang.management.ManagementFactory; // for allocation counters
+import java.util.ArrayList; // for cases and results
+import java.util.Arrays; // for percentiles
+import java.util.HashMap; // for baselines
+import java.util.List; // for cases and results
+import java.util.Locale; // for result formatting
+import java.util.Map; // for arguments parsing and baselines
+
+public class Benchmark{
+  // Attributes //---------------------------------------------
+  private static volatile double sink; // consumes results, so that the JIT cannot drop the measured work
+  private String name; // case name
+  private Runnable body; // one operation
+  //-----------------------------------------------------------
+  
+  // Constructors //-------------------------------------------
+  private Benchmark(String name, Runnable body){
+    this.name=name;
+    this.body=body;
+  }
+  //-----------------------------------------------------------
+  
+  // Cases //--------------------------------------------------
+  private static List<Benchmark> cases(){
+    // Lists the benchmark cases.
+    // @param void
+    // @return the cases, in running order
+    List<Benchmark> l=new ArrayList<Benchmark>();
+    final GaussianSource gs=new ZigguratGaussianSource(1);
+    
+    // Path construction :
+    int[] kts={(1<<16)+1, 100000, (1<<20)+1, 1000000};
+    int[] ds={1, 8};
+    int[] ns={8, 15};
+    double[] cs={1.0, 10.0};
+    for(final int kt : kts){
+      for(final int d : ds){
+        for(final int n : ns){
+          for(final double c : cs){
+            if((kt>(1<<17) && d>1) || (c!=1.0 && (d>1 || n!=15))){ // keep the grid of cases reasonable
+              continue;
+            }
+            l.add(new Benchmark("path kt="+kt+" d="+d+" n="+n+" c="+c, new Runnable(){
+              public void run(){
+                sink=new Brownian(kt, d, c, n, gs).get(kt-1, 0);
+              }
+            }));
+          }
+        }
+      }
+    }
+    for(final int kt : new int[]{(1<<16)+1, 100000}){ // single precision (see FloatStorage)
+      l.add(new Benchmark("path float kt="+kt+" d=8 n=15 c=1.0", new Runnable(){
+        public void run(){
+          sink=new Brownian(kt, 8, 1.0, 15, gs, PathLayout.FLOAT).get(kt-1, 0);
+        }
+      }));
+    }
+    for(final int kt : new int[]{(1<<22)+1, 4000000}){ // parallel generation, by subtrees over the common pool
+      l.add(new Benchmark("path parallel kt="+kt+" d=1 n=22 c=1.0", new Runnable(){
+        public void run(){
+          sink=new Brownian(kt, 1, 1.0, 22, gs, PathLayout.COMPONENT_MAJOR, null, null, 0).get(kt-1, 0);
+        }
+      }));
+    }
+    
+    // Wavelet evaluation (all the wavelets of a path, one component) :
+    for(final int kt : new int[]{(1<<16)+1, 100000}){
+      l.add(new Benchmark("wavelet getValues kt="+kt, new Runnable(){
+        public void run(){
+          SchauderWavelet w=new SchauderWavelet(kt);
+          double s=0;
+          while(!(w.hasToStop() || w.getOrder()>15)){
+            s+=w.getValues()[0];
+            w.iterate();
+          }
+          sink=s;
+        }
+      }));
+      final double[] target=new double[kt];
+      l.add(new Benchmark("wavelet accumulate kt="+kt, new Runnable(){
+        public void run(){
+          SchauderWavelet w=new SchauderWavelet(kt);
+          while(!(w.hasToStop() || w.getOrder()>15)){
+            w.accumulate(1.0, target);
+            w.iterate();
+          }
+          sink=target[kt/2];
+        }
+      }));
+    }
+    
+    // Gaussian generation (blocks of 2^16) :
+    final double[] block=new double[1<<16];
+    GaussianSource[] sources={new ZigguratGaussianSource(1), new PhiloxGaussianSource(1), new SobolGaussianSource(1), new KeyedGaussianSource(1, 1)};
+    for(final GaussianSource s : sources){
+      l.add(new Benchmark("gaussians "+s.getClass().getSimpleName()+" 65536", new Runnable(){
+        public void run(){
+          s.fill(block, 0, block.length);
+          sink=block[block.length-1];
+        }
+      }));
+    }
+    
+    // Multilevel pairs (64 pairs of level 10, one worker) :
+    final MultilevelBrownian ml=new MultilevelBrownian(3, 10, 1, 1.0, new ZigguratGaussianSource(1), null, 1);
+    l.add(new Benchmark("mlmc pairs level=10 kt=2049", new Runnable(){
+      public void run(){
+        ml.forEachPair(10, 0, 64, new PathPairConsumer(){
+          public void accept(long index, Brownian coarse, Brownian fine){
+          }
+        });
+      }
+    }));
+    
+    // Export (1 component, 2^20+1 points, to a temporary file) :
+    final Brownian b=new Brownian((1<<20)+1, 1, 1.0, 15, new ZigguratGaussianSource(1));
+    final String file=tempFile();
+    l.add(new Benchmark("export text kt=1048577", new Runnable(){
+      public void run(){
+        Generator.exportToFile(b, file);
+      }
+    }));
+    l.add(new Benchmark("export npy kt=1048577", new Runnable(){
+      public void run(){
+        Generator.exportToNpy(b, file);
+      }
+    }));
+    l.add(new Benchmark("export raw kt=1048577", new Runnable(){
+      public void run(){
+        Generator.exportToRaw(b, file);
+      }
+    }));
+    final Brownian bf=new Brownian((1<<20)+1, 1, 1.0, 15, new ZigguratGaussianSource(1), PathLayout.FLOAT);
+    l.add(new Benchmark("export npy float kt=1048577", new Runnable(){
+      public void run(){
+        Generator.exportToNpy(bf, file);
+      }
+    }));
+    l.add(new Benchmark("export archive kt=1048577", new Runnable(){
+      public void run(){
+        Generator.exportToArchive(b, file);
+      }
+    }));
+    final String archive=tempFile();
+    Generator.exportToArchive(b, archive);
+    l.add(new Benchmark("read archive kt=1048577", new Runnable(){
+      public void run(){
+        try(PathArchiveReader r=new PathArchiveReader(archive)){
+          r.read(0);
+        }
+        catch(IOException e){
+          throw new UncheckedIOException(e);
+        }
+      }
+    }));
+    return(l);
+  }
+  //-----------------------------------------------------------
+  
+  // Methods //------------------------------------------------
+  private String measure(long warmupMillis, long measureMillis){
+    // Runs the case : warm-up, then timed operations until the measurement time is spent.
+    // @param warmupMillis the warm-up time
+    // @param measureMillis the measurement time
+    // @return a result line : name, ops/s, p50, p90, p99 and max latencies (us), allocated bytes per operation, allocation rate (MB/s)
+    long end=System.nanoTime()+warmupMillis*1000000L;
+    while(System.nanoTime()<end){
+      this.body.run();
+    }
+    System.gc();
+    com.sun.management.ThreadMXBean mx=(com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+    long tid=Thread.currentThread().getId();
+    long[] lat=new long[1024];
+    int ops=0;
+    long growth=0; // bytes allocated by the latency table itself
+    long allocated=mx.getThreadAllocatedBytes(tid);
+    long t0=System.nanoTime();
+    end=t0+measureMillis*1000000L;
+    long t, t1;
+    do{
+      t=System.nanoTime();
+      this.body.run();
+      t1=System.nanoTime();
+      if(ops==lat.length){
+        growth+=16L*lat.length;
+        lat=Arrays.copyOf(lat, 2*lat.length);
+      }
+      lat[ops++]=t1-t;
+    } while(t1<end);
+    double elapsed=(t1-t0)*1e-9;
+    allocated=mx.getThreadAllocatedBytes(tid)-allocated-growth;
+    Arrays.sort(lat, 0, ops);
+    return(String.format(Locale.US, "%s\t%.3f\t%.1f\t%.1f\t%.1f\t%.1f\t%d\t%.1f",
+                         this.name, ops/elapsed,
+                         lat[(int)(0.50*(ops-1))]*1e-3, lat[(int)(0.90*(ops-1))]*1e-3, lat[(int)(0.99*(ops-1))]*1e-3, lat[ops-1]*1e-3,
+                         Math.max(allocated, 0)/ops, Math.max(allocated, 0)/elapsed/1e6));
+  }
+  
+  private static String tempFile(){
+    try{
+      File f=File.createTempFile("brownian-benchmark", ".out");
+      f.deleteOnExit();
+      return(f.getPath());
+    }
+    catch(IOException e){
+      System.err.println("Error : IOException. See stack trace below."); e.printStackTrace(); System.exit(-1);
+      return(null);
+    }
+  }
+  
+  private static Map<String, Double> readBaseline(String fileName){
+    // Reads the throughput of each case from a result file.
+    Map<String, Double> r=new HashMap<String, Double>();
+    try(BufferedReader in=new BufferedReader(new InputStreamReader(new FileInputStream(fileName), "UTF-8"))){
+      String line;
+      while((line=in.readLine())!=null){
+        String[] parts=line.split("\t");
+        if(parts.length>=2 && !line.startsWith("#")){
+          try{r.put(parts[0], Double.parseDouble(parts[1]));}
+          catch(NumberFormatException e){} // header line
+        }
+      }
+    }
+    catch(IOException e){
+      System.err.println("Error : cannot read the baseline file \""+fileName+"\"."); System.exit(-1);
+    }
+    return(r);
+  }
+  //-----------------------------------------------------------
+  
+  // Main method //--------------------------------------------
+  public static void main(String[] args){
+    Map<String, String> pMap=Generator.parseArgs(args);
+    if(pMap.containsKey("help")){
+      System.out.println("Manual :\n"+
+                         "> Command line :\n"+
+                         ">> java -cp BrownianGenerator.jar BrownianGenerator.Benchmark [filter=...] [warmup=...] [time=...] [output=...] [baseline=...]\n"+
+                         "> Options :\n"+
+                         ">> filter : only run the cases whose name contains this text (optionnal),\n"+
+                         ">> warmup : warm-up time per case, in milliseconds (optionnal, default at 2000),\n"+
+                         ">> time : measurement time per case, in milliseconds (optionnal, default at 3000),\n"+
+                         ">> output : file receiving the results (optionnal),\n"+
+                         ">> baseline : result file to compare the throughputs with (optionnal).");
+      System.exit(-1);
+    }
+    long warmup=2000, time=3000;
+    try{
+      if(pMap.containsKey("warmup")){warmup=Long.parseLong(pMap.get("warmup"));}
+      if(pMap.containsKey("time")){time=Long.parseLong(pMap.get("time"));}
+    }
+    catch(NumberFormatException e){System.err.println("Error : options warmup and time must be integers (milliseconds)."); System.exit(-1);}
+    String filter=pMap.getOrDefault("filter", "");
+    Map<String, Double> baseline=(pMap.containsKey("baseline")?readBaseline(pMap.get("baseline")):null);
+    
+    String header="# case\tops/s\tp50(us)\tp90(us)\tp99(us)\tmax(us)\tbytes/op\talloc(MB/s)"+(baseline!=null?"\tvs baseline":"");
+    List<String> lines=new ArrayList<String>();
+    lines.add("# java "+System.getProperty("java.version")+", "+Runtime.getRuntime().availableProcessors()+" cpus, warmup "+warmup+" ms, time "+time+" ms");
+    lines.add(header);
+    System.out.println(lines.get(0));
+    System.out.println(header);
+    for(Benchmark bm : cases()){
+      if(!bm.name.contains(filter)){
+        continue;
+      }
+      String line=bm.measure(warmup, time);
+      if(baseline!=null && baseline.containsKey(bm.name)){
+        double ratio=Double.parseDouble(line.split("\t")[1])/baseline.get(bm.name);
+        line+=String.format(Locale.US, "\tx%.2f", ratio);
+      }
+      System.out.println(line);
+      lines.add(line);
+    }
+    if(pMap.containsKey("output")){
+      try(Writer out=new BufferedWriter(new OutputStreamWriter(new FileOutputStream(pMap.get("output")), "UTF-8"))){
+        for(String line : lines){
+          out.write(line);
+          out.write("\n");
+        }
+      }
+      catch(IOException e){
+        System.err.println("Error : IOException. See stack trace below."); e.printStackTrace(); System.exit(-1);
+      }
+    }
+  }
+  //-----------------------------------------------------------
+}
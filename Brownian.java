@@ -9,8 +9,14 @@
 
 package BrownianGenerator;
 
-import java.util.Arrays; // useful ?
-import java.util.Random; // for gaussian vectors
+import java.io.ByteArrayOutputStream; // for toString
+import java.io.IOException; // for toString
+import java.nio.DoubleBuffer; // for component views
+import java.nio.charset.StandardCharsets; // for toString
+import java.util.Arrays; // for characteristics
+import java.util.Locale; // for characteristics
+import java.util.concurrent.ForkJoinPool; // for parallel generation
+import java.util.concurrent.RecursiveAction; // for parallel generation
 
 public class Brownian{
   // Attributes //---------------------------------------------
@@ -19,7 +25,14 @@ public class Brownian{
   private int n; // cut parameter (information about the generation)
   private double c; // scaling (information about the generation)
   private double[] start; // Brownian motion starting point
-  private double[][] BrownianPath; // Brownian motion values
+  private PathStorage BrownianPath; // Brownian motion values
+  private GaussianSource gs; // source of the coefficients, kept to refine the path (null for copies)
+  private ProcessTransform transform; // transform applied to the path (null for a Brownian motion)
+  private int subtrees=0; // number of subtrees of a parallel generation, 0 if the path was generated sequentially
+  private static final int BLOCK=4096; // coefficients drawn and applied at once (32 KiB)
+  private static final int SUBTREE=1<<16; // dyadic intervals per subtree of a parallel generation
+  private static final int GRAIN=1<<14; // time indexes resampled per task of a parallel generation (at least)
+  static final int SEQUENTIAL=-1; // number of threads of the sequential generation
   //-----------------------------------------------------------
   
   // Constructors //-------------------------------------------
@@ -40,13 +53,94 @@ public class Brownian{
     this(Kt, dimension, 1.0, N);
   }
   public Brownian(int Kt, int dimension, double c, int N){
-    // Constructor : complete.
+    // Constructor : unseeded.
+    this(Kt, dimension, c, N, new ZigguratGaussianSource());
+  }
+  public Brownian(int Kt, int dimension, double c, int N, GaussianSource gs){
+    // Constructor : seeded.
+    this(Kt, dimension, c, N, gs, PathLayout.COMPONENT_MAJOR);
+  }
+  public Brownian(int Kt, int dimension, double c, int N, GaussianSource gs, PathLayout layout){
+    // Constructor : layout. Two paths built from sources drawing the same numbers are identical, whatever the layout.
+    this(Kt, dimension, c, N, gs, layout, null);
+  }
+  public Brownian(int Kt, int dimension, double c, int N, GaussianSource gs, PathLayout layout, double[] startPoint, PathStatistic... statistics){
+    // Constructor : complete. The starting point is taken into account during the generation, which is cheaper than changeStartPoint afterwards (null means the origin). The statistics are computed during the last pass over the path, and read from the given objects afterwards.
+    this(Kt, dimension, c, N, gs, layout, startPoint, null, statistics);
+  }
+  public Brownian(int Kt, int dimension, double c, int N, GaussianSource gs, PathLayout layout, double[] startPoint, ProcessTransform transform, PathStatistic... statistics){
+    // Constructor : transformed. The path is mapped by the transform (null for none) during the last pass over it, before the statistics see it. A transformed path can neither be refined nor moved.
+    this(Kt, dimension, c, N, gs, new SchauderWavelet(Kt), checkedStorage(layout, Kt, dimension, c, N, startPoint), startPoint, FinalPass.of(transform, statistics));
+  }
+  public Brownian(int Kt, int dimension, double c, int N, GaussianSource gs, PathLayout layout, double[] startPoint, ProcessTransform transform, int threads, PathStatistic... statistics){
+    // Constructor : parallel. s_1 and the coarse levels are drawn from the source, then the dyadic grid is split into subtrees of 2^16 intervals, whose deeper levels have disjoint supports : they are refined over a fork-join pool, subtree q from gs.derive(q) (as the segments of SegmentedBrownian). The path does not depend on the number of threads, but it differs from the path of the sequential constructors when the subtrees have levels of their own (more than 2^16 intervals refined), and it then cannot be refined.
+    // @param threads the number of worker threads (0 for the common pool)
+    this(Kt, dimension, c, N, gs, new SchauderWavelet(Kt), checkedStorage(layout, Kt, dimension, c, N, startPoint), startPoint, FinalPass.of(transform, statistics), checkedThreads(threads));
+  }
+  Brownian(int Kt, int dimension, double c, int N, GaussianSource gs, SchauderWavelet sw, PathStorage buffer, double[] startPoint){
+    // Constructor : internal, without final pass.
+    this(Kt, dimension, c, N, gs, sw, buffer, startPoint, null);
+  }
+  Brownian(int Kt, int dimension, double c, int N, GaussianSource gs, SchauderWavelet sw, PathStorage buffer, double[] startPoint, FinalPass fp){
+    // Constructor : internal, sequential.
+    this(Kt, dimension, c, N, gs, sw, buffer, startPoint, fp, SEQUENTIAL);
+  }
+  Brownian(int Kt, int dimension, double c, int N, GaussianSource gs, SchauderWavelet sw, PathStorage buffer, double[] startPoint, FinalPass fp, int threads){
+    // Constructor : internal, parameters are not checked. The wavelet and the storage are given by the caller, so that they can be reused from one path to the next (see BrownianEnsemble). The storage is overwritten and becomes the path. The path is generated sequentially for threads=SEQUENTIAL, by subtrees over a pool otherwise (0 for the common pool).
+    // The scaling and the starting point are fused into the generation : the coefficients are scaled, and the starting point is added to the end points of s_1, the refinement preserving constants. The transform and the statistics of the final pass (null for none) see the values as soon as they are final.
+    
+    // Construction :
+    this.len=Kt;
+    this.dim=dimension;
+    this.c=c;
+    this.n=N;
+    this.start=(startPoint==null?new double[dimension]:startPoint.clone());
+    this.BrownianPath=buffer;
+    this.gs=gs;
+    double[] origin=this.start; // point the generation starts from
+    if(fp!=null && fp.transform!=null){ // W is generated alone and placed at the starting point by the transform, without the rounding of x0+W (which matters in single precision)
+      this.transform=fp.transform;
+      origin=new double[dimension];
+      this.transform.start(this.start, origin, Kt, c);
+    }
+    GeneratorStats.PathEvent e=(GeneratorStats.ENABLED?GeneratorStats.pathEvent(Kt, dimension, N, sw.isPowerOf2()?"powerOf2":"general"):null);
+    ForkJoinPool pool=(threads==SEQUENTIAL?null:(threads==0?ForkJoinPool.commonPool():new ForkJoinPool(threads)));
+    try{
+      if(sw.isPowerOf2()){ // dyadic grid : in-place midpoint refinement
+        this.getBrownianPowerOf2(gs, this.BrownianPath, N, Math.sqrt(c), origin, fp, pool);
+      }
+      else{
+        this.getBrownian(SchauderBasis.get(Kt, N), gs, this.BrownianPath, Math.sqrt(c), origin, fp, pool);
+      }
+    }
+    finally{
+      if(threads>0){
+        pool.shutdown();
+      }
+    }
+    if(GeneratorStats.ENABLED){
+      GeneratorStats.PATHS.increment();
+      if(e!=null){
+        e.commit();
+      }
+    }
+  }
+  //-----------------------------------------------------------
+  
+  // Methods //------------------------------------------------
+  static void checkParameters(int Kt, int dimension, double c, int N){
+    // Checks the generation parameters, exits on errors and prints warnings.
+    // @param Kt the number of discretisation points
+    // @param dimension the Brownian motion dimension
+    // @param c the interval length
+    // @param N the cut parameter
+    // @return void
     // Errors :
     if(Kt<=0){
       System.err.println("Error : interval discretisation is impossible (Kt="+Kt+").");
       System.exit(-1);
     }
-    if(c<=0){
+    if(dimension<=0){
       System.err.println("Error : dimension is incorrect (d="+dimension+").");
       System.exit(-1);
     }
@@ -54,7 +148,7 @@ public class Brownian{
       System.err.println("Error : interval length is incorrect (c="+c+").");
       System.exit(-1);
     }
-    if(c<=0){
+    if(N<0){
       System.err.println("Error : cut index is incorrect (N="+N+").");
       System.exit(-1);
     }
@@ -69,75 +163,348 @@ public class Brownian{
     if(N<=5){
       System.err.println("Warning : cut point is very small (N="+N+"), beware.");
     }
-    
-    // Construction :
-    this.len=Kt;
-    this.dim=dimension;
-    this.c=c;
-    this.n=N;
-    this.start=new double[dimension];
-    SchauderWavelet sw=new SchauderWavelet(this.len);
-    this.BrownianPath=this.getBrownian(sw, this.dim, N);
-    for(int i=0; i<this.dim; i++){ // ensure the starting point is O
-      this.start[i]=0;
+  }
+  
+  private static PathStorage checkedStorage(PathLayout layout, int Kt, int dimension, double c, int N, double[] startPoint){
+    // Checks the generation parameters, then allocates the storage of the path.
+    checkParameters(Kt, dimension, c, N);
+    if(startPoint!=null && startPoint.length!=dimension){
+      System.err.println("Error : dimension of requested starting point is invalid (dimension : "+startPoint.length+", Brownian motion dimension : "+dimension+").");
+      System.exit(-1);
     }
-    this.scale(c);
+    return(PathStorage.allocate(layout, dimension, Kt));
   }
-  //-----------------------------------------------------------
   
-  // Methods //------------------------------------------------
-  private void scale(double c){
-    // Scales the [0, 1]-based Brownian motion.
-    // @param c the scaling parameter
-    // @return void.
-    double coef=Math.sqrt(c);
-    for(int i=0; i<this.len; i++){
-      for(int j=0; j<this.dim; j++){
-        this.BrownianPath[j][i]=coef*this.BrownianPath[j][i];
-      }
+  private static int checkedThreads(int threads){
+    // Checks the number of threads of a parallel generation.
+    if(threads<0){
+      System.err.println("Error : number of threads is incorrect (threads="+threads+").");
+      System.exit(-1);
     }
+    return(threads);
   }
   
-  private double[][] getBrownian(SchauderWavelet w, int dimension, int N){
+  private void getBrownian(SchauderBasis plan, GaussianSource gs, PathStorage B, double coef, double[] x0, FinalPass fp, ForkJoinPool pool){
     // Generates an approximation of the Brownian motion using the non-normalised Faber-Schauder system.
-    // @param w the SchauderWavelet object used in the approximation
-    // @param dimension the dimension of the wanted Brownian motion
+    // The truncated sum is piecewise linear between the dyadic nodes of order L+1, L being the last order used. So it is first built exactly on these M+1=2^(L+1)+1 nodes by midpoint refinement (as in powerOf2 mode), then linearly resampled onto the Kt indexes in one pass with the plan of (Kt, N). The values are the ones the wavelets would give on the discretised interval, up to rounding.
+    // @param plan the basis of (Kt, N), giving the last order used (hasToStop rule) and the interpolation plan
+    // @param gs the source of the Gaussian coefficients, drawn in the usual order (s_1, then (j, k) by increasing j and k)
+    // @param B the storage receiving the wanted Brownian motion approximation
+    // @param coef the factor applied to all the wavelets (sqrt(c))
+    // @param x0 the starting point
+    // @param fp the transform and the statistics fed with the final values (null for none)
+    // @param pool the pool of a parallel generation (null for a sequential one)
+    // @return void
+    int order=plan.getLastOrder();
+    if(order<0){ // not even s_1 is used
+      B.clear();
+      B.offset(x0);
+      FinalPass.accept(fp, B, 0, this.len);
+      return;
+    }
+    int M=plan.getNodeCount(); // M<=Kt-1, since the support of order L still spans 3 indexes at least
+    if(pool!=null){ // the resampling, most of the work when M is much smaller than Kt, is shared even if the grid is not split
+      if(M>SUBTREE){
+        this.refineSubtrees(gs, B, M, order, coef, x0, pool);
+      }
+      else{
+        startS1(gs, B, M, coef, x0);
+        refineLevels(gs, B, M, 0, 0, order, coef);
+      }
+      long t=(GeneratorStats.ENABLED?System.nanoTime():0);
+      resample(plan, B, pool);
+      if(GeneratorStats.ENABLED){
+        GeneratorStats.lap(GeneratorStats.Phase.INTERPOLATION, t);
+      }
+      this.finalPass(fp, B);
+      return;
+    }
+    startS1(gs, B, M, coef, x0);
+    refineLevels(gs, B, M, 0, 0, order, coef); // dyadic nodes, stored at the indexes 0..M of the path
+    long t=(GeneratorStats.ENABLED?System.nanoTime():0);
+    if(fp==null){
+      B.resample(plan, 0, this.len);
+    }
+    else if(!fp.isSequential()){ // by blocks, from the end, each block being handed to the final pass while in cache
+      for(int to=this.len; to>0; to-=BLOCK){
+        int from=Math.max(0, to-BLOCK);
+        B.resample(plan, from, to);
+        FinalPass.accept(fp, B, from, to-from);
+      }
+    }
+    else{ // the transform needs the indexes in order, whereas the resampling goes backwards : one more pass
+      B.resample(plan, 0, this.len);
+      for(int from=0; from<this.len; from+=BLOCK){
+        FinalPass.accept(fp, B, from, Math.min(BLOCK, this.len-from));
+      }
+    }
+    if(GeneratorStats.ENABLED){
+      GeneratorStats.lap(GeneratorStats.Phase.INTERPOLATION, t);
+    }
+  }
+  
+  private void getBrownianPowerOf2(GaussianSource gs, PathStorage B, int N, double coef, double[] x0, FinalPass fp, ForkJoinPool pool){
+    // Generates the same approximation as getBrownian when Kt-1 is a power of two, but by level-by-level midpoint refinement done in place.
+    // At level j, the (j, k) wavelet is the only one not yet linear between the ends of its support, so the value at the middle of the support is the mean of the two ends plus g*2^(-1-j/2). Points under the last level are linearly interpolated, as the wavelets would have been.
+    // @param gs the source of the Gaussian coefficients, drawn in the same order as in getBrownian
+    // @param B the storage receiving the wanted Brownian motion approximation
     // @param N the cut parameter of the approximation
-    // @return a double-index table representing the wanted Brownian motion approximation
-    double[][] B=new double[dimension][this.len];
-    double[] tmp;
-    double[] g;
-    int wSt;
-    while(!(w.hasToStop() || w.getOrder()>N)){
-      tmp=w.getValues();
-      g=getGaussians(dimension);
-      wSt=w.getStart();
-      for(int i=wSt; i<=w.getEnd(); i++){
-        for(int j=0; j<dimension; j++){
-          B[j][i]+=g[j]*tmp[i-wSt];
+    // @param coef the factor applied to all the wavelets (sqrt(c))
+    // @param x0 the starting point
+    // @param fp the transform and the statistics fed with the final values (null for none)
+    // @param pool the pool of a parallel generation (null for a sequential one)
+    // @return void
+    if(this.len<3){ // same as SchauderWavelet.hasToStop() on the first wavelet
+      B.clear();
+      B.offset(x0);
+      FinalPass.accept(fp, B, 0, this.len);
+      return;
+    }
+    if(pool!=null && this.len-1>SUBTREE){
+      this.refineSubtrees(gs, B, this.len-1, N, coef, x0, pool);
+      this.finalPass(fp, B);
+      return;
+    }
+    startS1(gs, B, this.len-1, coef, x0);
+    refineLevels(gs, B, this.len-1, 0, 0, N, coef, fp);
+  }
+  
+  private void refineSubtrees(GaussianSource gs, PathStorage B, int last, int N, double coef, double[] x0, ForkJoinPool pool){
+    // Builds the levels 0..N on the dyadic grid 0..last (more than SUBTREE intervals) over the pool : s_1 and the levels whose supports span several subtrees on a skeleton, from the source itself, then the levels of subtree q from gs.derive(q), as SegmentedBrownian does.
+    // @param gs the source of the coefficients
+    // @param B the storage receiving the path
+    // @param last the last index of the dyadic grid
+    // @param N the last level to add
+    // @param coef the factor applied to all the wavelets (sqrt(c))
+    // @param x0 the starting point
+    // @param pool the pool the subtrees are refined over
+    // @return void
+    int levels=Integer.numberOfTrailingZeros(last/SUBTREE); // 2^levels subtrees
+    int width=last>>levels;
+    InterleavedStorage skeleton=new InterleavedStorage(this.dim, (1<<levels)+1);
+    startS1(gs, skeleton, 1<<levels, coef, x0);
+    refineLevels(gs, skeleton, 1<<levels, 0, 0, Math.min(N, levels-1), coef);
+    for(int j=0; j<this.dim; j++){
+      for(int q=0; q<=1<<levels; q++){
+        B.set(q*width, j, skeleton.get(q, j));
+      }
+    }
+    pool.invoke(new Subtrees(gs, B, width, levels, N, coef, 0, 1<<levels));
+    if(N>=levels){ // else the subtrees were only interpolated : the path is the sequential one
+      this.subtrees=1<<levels;
+    }
+  }
+  
+  private static void resample(SchauderBasis plan, PathStorage B, ForkJoinPool pool){
+    // Resamples the dyadic nodes onto the time indexes in place, as B.resample(plan, 0, Kt) does, but by waves from the end : the indexes of a wave only read nodes under the wave, not written yet, so that the wave can be shared among the threads. The waves shrink by the ratio M/(Kt-1), the last indexes are resampled sequentially.
+    int hi=plan.getLength();
+    while(hi>1){
+      int lo=Math.max(1, plan.getNode(hi-1)+2); // the indexes lo..hi-1 read the nodes up to node[hi-1]+1
+      if(hi-lo<GRAIN){
+        break;
+      }
+      pool.invoke(new Resampling(plan, B, lo, hi));
+      hi=lo;
+    }
+    B.resample(plan, 0, hi);
+  }
+  
+  private void finalPass(FinalPass fp, PathStorage B){
+    // Hands the whole path to the final pass, block after block and in order (the statistics are not shared among threads).
+    if(fp==null){
+      return;
+    }
+    for(int from=0; from<this.len; from+=BLOCK){
+      FinalPass.accept(fp, B, from, Math.min(BLOCK, this.len-from));
+    }
+  }
+  
+  static void startS1(GaussianSource gs, PathStorage B, int last, double coef, double[] x0){
+    // Sets the end points of the s_1 wavelet : x0 at index 0, x0+coef*g at index last.
+    int dimension=B.getDim();
+    double[] g=new double[dimension];
+    gs.fill(g, 0, dimension);
+    if(GeneratorStats.ENABLED){
+      GeneratorStats.ARRAYS.increment();
+      GeneratorStats.GAUSSIANS.add(dimension);
+    }
+    for(int c=0; c<dimension; c++){
+      B.set(0, c, x0[c]);
+      B.set(last, c, x0[c]+coef*g[c]);
+    }
+  }
+  
+  static void refineLevels(GaussianSource gs, PathStorage B, int last, int top, int from, int N, double coef){
+    // Same as refineLevels with a final pass, without final pass.
+    refineLevels(gs, B, last, top, from, N, coef, null);
+  }
+  
+  static void refineLevels(GaussianSource gs, PathStorage B, int last, int top, int from, int N, double coef, FinalPass fp){
+    // Same as refineLevels on a grid starting at index 0.
+    refineLevels(gs, B, 0, last, top, from, N, coef, fp);
+  }
+  
+  static void refineLevels(GaussianSource gs, PathStorage B, int base, int last, int top, int from, int N, double coef, FinalPass fp){
+    // Adds the levels from..N by midpoint refinement on the dyadic grid base..base+last, the path being linear between the nodes of level from-1. The grid spans a support of level top : the whole interval for top=0, a segment of it otherwise (see SegmentedBrownian and the parallel constructor).
+    // The coefficients are drawn by blocks of wavelets, and each block is applied by the kernel of the storage along its contiguous direction (PathStorage.midpoints), so that a block and its supports stay in cache whatever d is.
+    // @param gs the source of the Gaussian coefficients
+    // @param B the storage holding the path
+    // @param base the first index of the dyadic grid in the storage (a multiple of last)
+    // @param last the number of intervals of the dyadic grid (a power of two, Kt-1 in powerOf2 mode)
+    // @param top the level whose supports span the whole grid
+    // @param from the first level to add
+    // @param N the last level to add (if the discretisation allows it)
+    // @param coef the factor applied to the added wavelets (sqrt(c))
+    // @param fp the transform and the statistics fed with the values of the last pass, in order, when the grid is the whole path (null for none)
+    // @return void
+    int dimension=B.getDim();
+    int block=Math.max(1, Math.min(BLOCK/dimension, last/2)); // wavelets per block
+    double[] g=new double[block*dimension];
+    int stride=(from-top>=31?0:last>>(from-top)); // width of the supports of level from, minus one (0 past the finest level : the shift count is taken modulo 32)
+    int count;
+    double height;
+    long t=0; // start of the current phase (instrumentation only)
+    if(GeneratorStats.ENABLED){
+      GeneratorStats.ARRAYS.increment();
+      t=System.nanoTime();
+    }
+    for(int j=from; j<=N && stride>=2; j++){
+      height=coef*Math.pow(2, -1-(double)(j)/2);
+      for(int st=0; st<last; st+=count*stride){
+        count=Math.min(block, (last-st)/stride);
+        gs.fill(g, 0, count*dimension);
+        if(GeneratorStats.ENABLED){
+          t=GeneratorStats.lap(GeneratorStats.Phase.GAUSSIAN, t);
+        }
+        B.midpoints(base+st, stride, count, height, g);
+        if(GeneratorStats.ENABLED){
+          t=GeneratorStats.lap(GeneratorStats.Phase.REFINEMENT, t);
+          GeneratorStats.WAVELETS.add(count);
+          GeneratorStats.GAUSSIANS.add(count*dimension);
+        }
+        if(stride==2){ // finest level : the supports of the block are final, but for their last end
+          FinalPass.accept(fp, B, base+st, count*stride);
         }
       }
-      //w.printStatus(); // Debugging : show all used wavelets when they are used.
-      w.iterate();
+      if(GeneratorStats.ENABLED){
+        GeneratorStats.LEVELS.increment();
+      }
+      stride/=2;
+    }
+    if(stride>1){ // cut before the finest level : fill the remaining points linearly
+      if(fp==null){
+        B.interpolate(stride, base, base+last);
+      }
+      else{ // by blocks, each block being handed to the final pass while in cache
+        int span=stride*Math.max(1, BLOCK/(dimension*stride));
+        for(int st=0; st<last; st+=span){
+          int end=Math.min(last, st+span);
+          B.interpolate(stride, base+st, base+end);
+          FinalPass.accept(fp, B, base+st, end-st);
+        }
+      }
+      if(GeneratorStats.ENABLED){
+        GeneratorStats.lap(GeneratorStats.Phase.INTERPOLATION, t);
+      }
     }
-    w.reinitialize();
-    return(B);
+    FinalPass.accept(fp, B, base+last, 1);
   }
   
-  private double[] getGaussians(int number){
-    // Builds a Gaussian vector.
-    // @param number size of the wanted Gaussian vector
-    // @return a Gaussian vector
-    if(number<=0){
-      System.err.println("Error : invalid number of Gaussians requested ("+number+" requested).");
+  public void refine(int newN){
+    // Raises the cut parameter of the path to newN by adding only the missing levels N+1..newN, the coefficients coming from the rest of the Gaussian stream. With the same source, the result is the path a direct generation with newN would have given.
+    // @param newN the new cut parameter
+    // @return void
+    if(this.gs==null){
+      System.err.println("Error : this path is a copy and cannot be refined.");
+      System.exit(-1);
+    }
+    if(this.transform!=null){
+      System.err.println("Error : this path is transformed and cannot be refined.");
+      System.exit(-1);
+    }
+    if(this.subtrees>0){ // the deeper levels of each subtree come from its own stream
+      System.err.println("Error : this path was generated by subtrees and cannot be refined.");
       System.exit(-1);
     }
-    double[] g=new double[number];
-    Random r=new Random();
-    for(int i=0; i<number; i++){
-      g[i]=r.nextGaussian();
+    if(newN<this.n){
+      System.err.println("Error : the cut parameter can only be raised (N="+this.n+", new N="+newN+").");
+      System.exit(-1);
+    }
+    if(newN==this.n){
+      return;
+    }
+    double coef=Math.sqrt(this.c); // the path is already scaled
+    SchauderWavelet w=new SchauderWavelet(this.len);
+    if(w.isPowerOf2()){
+      if(this.len>=3){
+        refineLevels(this.gs, this.BrownianPath, this.len-1, 0, this.n+1, newN, coef);
+      }
     }
-    return(g);
+    else{ // the levels n+1..L' vanish on the dyadic nodes of order n+1 : their sum is built alone on the grid of the new plan, resampled and added
+      SchauderBasis plan=SchauderBasis.get(this.len, newN);
+      if(plan.getLastOrder()>SchauderWavelet.lastOrder(this.len, this.n)){ // else the discretisation already stopped the levels
+        PathStorage delta=PathStorage.allocate(this.BrownianPath.getLayout(), this.dim, this.len);
+        refineLevels(this.gs, delta, plan.getNodeCount(), 0, this.n+1, plan.getLastOrder(), coef);
+        long t=(GeneratorStats.ENABLED?System.nanoTime():0);
+        delta.resample(plan, 0, this.len);
+        for(int j=0; j<this.dim; j++){
+          for(int i=0; i<this.len; i++){
+            this.BrownianPath.add(i, j, delta.get(i, j));
+          }
+        }
+        if(GeneratorStats.ENABLED){
+          GeneratorStats.lap(GeneratorStats.Phase.INTERPOLATION, t);
+        }
+      }
+    }
+    this.n=newN;
+  }
+  
+  public Brownian[] refinePair(int newN){
+    // Refines the path and also returns the path before refinement : the two paths share all the coefficients up to the old cut parameter (coupled coarse/fine pair).
+    // @param newN the new cut parameter
+    // @return {coarse copy, this refined path}
+    Brownian coarse=this.copy();
+    this.refine(newN);
+    Brownian[] r={coarse, this};
+    return(r);
+  }
+  
+  public Brownian copy(){
+    // Returns a copy of the path, in the same layout. The copy does not share the Gaussian stream, so it cannot be refined.
+    // @param void
+    // @return the copy
+    PathStorage st=PathStorage.allocate(this.BrownianPath.getLayout(), this.dim, this.len);
+    for(int j=0; j<this.dim; j++){
+      for(int i=0; i<this.len; i++){
+        st.set(i, j, this.BrownianPath.get(i, j));
+      }
+    }
+    return(new Brownian(this, st));
+  }
+  
+  Brownian(int Kt, int dimension, double c, int N, double[] startPoint, PathStorage storage){
+    // Constructor : path read back from a file (see PathArchiveReader). Like a copy, it cannot be refined.
+    this.len=Kt;
+    this.dim=dimension;
+    this.c=c;
+    this.n=N;
+    this.start=(startPoint==null?new double[dimension]:startPoint.clone());
+    this.BrownianPath=storage;
+    this.gs=null;
+    this.transform=null;
+  }
+  
+  private Brownian(Brownian b, PathStorage storage){
+    // Constructor : copy, see copy().
+    this.len=b.len;
+    this.dim=b.dim;
+    this.c=b.c;
+    this.n=b.n;
+    this.start=b.start.clone();
+    this.BrownianPath=storage;
+    this.gs=null;
+    this.transform=b.transform;
   }
   
   public void changeStartPoint(double[] coordinates){
@@ -148,13 +515,16 @@ public class Brownian{
       System.err.println("Error : dimension of requested starting point is invalid (dimension : "+coordinates.length+", Brownian motion dimension : "+this.dim+").");
       System.exit(-1);
     }
-    for(int i=0; i<this.len; i++){
-      for(int j=0; j<this.dim; j++){
-        this.BrownianPath[j][i]-=this.start[j]; // remove the previous starting point
-        this.BrownianPath[j][i]+=coordinates[j]; // add the new starting point
-      }
+    if(this.transform!=null){
+      System.err.println("Error : this path is transformed, its starting point cannot be changed.");
+      System.exit(-1);
     }
-    this.start=coordinates;
+    double[] delta=new double[this.dim];
+    for(int j=0; j<this.dim; j++){
+      delta[j]=coordinates[j]-this.start[j]; // remove the previous starting point, add the new one
+    }
+    this.BrownianPath.offset(delta);
+    this.start=coordinates.clone();
   }
   
   public double[] get(int t){
@@ -165,37 +535,183 @@ public class Brownian{
     }
     double[] r=new double[this.dim];
     for(int i=0; i<this.dim; i++){
-      r[i]=this.BrownianPath[i][t];
+      r[i]=this.BrownianPath.get(t, i);
     }
     return(r);
   }
   
+  public double get(int t, int j){
+    // Returns the j-th component of the t-th coordinate, without building any table.
+    if(t<0 || t>=this.len || j<0 || j>=this.dim){
+      System.err.println("Error : index requested is invalid (t="+t+", j="+j+", Kt="+this.len+", d="+this.dim+").");
+      System.exit(-1);
+    }
+    return(this.BrownianPath.get(t, j));
+  }
+  
+  public void get(int t, double[] out){
+    // Copies the t-th coordinate into a table given by the caller (of length d at least), without allocating.
+    if(t<0 || t>=this.len){
+      System.err.println("Error : index requested is invalid (t="+t+", Kt="+this.len+").");
+      System.exit(-1);
+    }
+    this.BrownianPath.get(t, out);
+  }
+  
+  public DoubleBuffer getComponentView(int j){
+    // Returns a view (no copy) of the Kt values of the j-th component, if the layout stores components contiguously (see PathStorage).
+    return(this.BrownianPath.getComponentView(j));
+  }
+  
+  public PathStorage getStorage(){
+    // Returns the storage of the path itself (no copy).
+    return(this.BrownianPath);
+  }
+  
+  public int getCut(){
+    return(this.n);
+  }
+  public double getTruncationError(){
+    // Returns the estimated sup-norm error of the cut parameter on the sampled path (see SchauderWavelet.truncationError).
+    return(SchauderWavelet.truncationError(this.len, this.c, this.n));
+  }
   public int getLength(){
     return(this.len);
   }
   public int getDim(){
     return(this.dim);
   }
+  public double getIntervalLength(){
+    return(this.c);
+  }
+  public double[] getStartPoint(){
+    return(this.start.clone());
+  }
   
   public String getCharacteristics(){
-    return("kt="+this.len+"; d="+this.dim+"; c="+c+"; n="+n+"; startPoint="+Arrays.toString(this.start));
+    return("kt="+this.len+"; d="+this.dim+"; c="+c+"; n="+n+"; error="+String.format(Locale.US, "%.2e", getTruncationError())+"; startPoint="+Arrays.toString(this.start)+(this.transform==null?"":"; "+this.transform.getCharacteristics())+(this.subtrees==0?"":"; subtrees="+this.subtrees));
+  }
+  //-----------------------------------------------------------
+  
+  // Final pass //---------------------------------------------
+  static class FinalPass{
+    // What is done to the values as soon as they are final : the transform, then the statistics.
+    private ProcessTransform transform; // null for none
+    private PathStatistic[] statistics; // null for none
+    
+    static FinalPass of(ProcessTransform transform, PathStatistic[] statistics){
+      // Returns the final pass of a transform and statistics, null if there is nothing to do.
+      if(transform==null && statistics.length==0){
+        return(null);
+      }
+      FinalPass fp=new FinalPass();
+      fp.transform=transform;
+      fp.statistics=(statistics.length==0?null:statistics.clone());
+      return(fp);
+    }
+    
+    boolean isSequential(){
+      // Returns true if the blocks must come in order and contiguous.
+      return(this.transform!=null && this.transform.isSequential());
+    }
+    
+    static void accept(FinalPass fp, PathStorage B, int from, int count){
+      // Hands the final values at the indexes from..from+count-1 to the transform, then to the statistics (nothing if fp is null).
+      if(fp==null){
+        return;
+      }
+      if(fp.transform!=null){
+        fp.transform.apply(from, B, from, count);
+      }
+      if(fp.statistics!=null){
+        for(PathStatistic s : fp.statistics){
+          s.accept(from, B, from, count);
+        }
+      }
+    }
+  }
+  //-----------------------------------------------------------
+  
+  // Parallel generation //------------------------------------
+  private static class Subtrees extends RecursiveAction{
+    // The subtrees lo to hi-1 of a parallel generation, split in halves down to one subtree. Subtree q only writes the inside of the indexes q*width..(q+1)*width, width being a multiple of 4, so that no two tasks write the same value or the same residual of a FloatStorage.
+    private static final long serialVersionUID=1L;
+    private GaussianSource gs; // root source, subtree q uses gs.derive(q)
+    private PathStorage B;
+    private int width; // intervals per subtree
+    private int levels; // level whose supports span one subtree
+    private int n; // last level to add
+    private double coef;
+    private int lo, hi;
+    
+    private Subtrees(GaussianSource gs, PathStorage B, int width, int levels, int n, double coef, int lo, int hi){
+      this.gs=gs;
+      this.B=B;
+      this.width=width;
+      this.levels=levels;
+      this.n=n;
+      this.coef=coef;
+      this.lo=lo;
+      this.hi=hi;
+    }
+    
+    protected void compute(){
+      if(this.hi-this.lo>1){
+        int mid=(this.lo+this.hi)>>>1;
+        invokeAll(new Subtrees(this.gs, this.B, this.width, this.levels, this.n, this.coef, this.lo, mid), new Subtrees(this.gs, this.B, this.width, this.levels, this.n, this.coef, mid, this.hi));
+        return;
+      }
+      refineLevels(this.gs.derive(this.lo), this.B, this.lo*this.width, this.width, this.levels, this.levels, this.n, this.coef, null);
+    }
+  }
+  
+  private static class Resampling extends RecursiveAction{
+    // The indexes lo to hi-1 of a wave of resampling (see resample), split in halves down to GRAIN indexes.
+    private static final long serialVersionUID=1L;
+    private SchauderBasis plan;
+    private PathStorage B;
+    private int lo, hi;
+    
+    private Resampling(SchauderBasis plan, PathStorage B, int lo, int hi){
+      this.plan=plan;
+      this.B=B;
+      this.lo=lo;
+      this.hi=hi;
+    }
+    
+    protected void compute(){
+      if(this.hi-this.lo>2*GRAIN){
+        int mid=(this.lo+this.hi)>>>1;
+        invokeAll(new Resampling(this.plan, this.B, this.lo, mid), new Resampling(this.plan, this.B, mid, this.hi));
+        return;
+      }
+      this.B.resample(this.plan, this.lo, this.hi);
+    }
   }
   //-----------------------------------------------------------
   
   // toString redefinition //----------------------------------
   public String toString(){
     // toString redefinition.
-    String str="";
-    str+="Brownian motion "+this.hashCode()+" ("+this.getCharacteristics()+") :\n";
-    for(int i=0; i<this.len; i++){
-      str+="[";
-      for(int j=0; j<this.dim; j++){
-        str+=Util.formatDouble(this.BrownianPath[j][i]);
-        if(j<this.dim-1){str+=", ";}
+    ByteArrayOutputStream bytes=new ByteArrayOutputStream();
+    TextEncoder te=new TextEncoder(bytes);
+    try{
+      te.writeText("Brownian motion "+this.hashCode()+" ("+this.getCharacteristics()+") :\n");
+      for(int i=0; i<this.len; i++){
+        te.writeByte('[');
+        for(int j=0; j<this.dim; j++){
+          te.writeDouble(this.BrownianPath.get(i, j));
+          if(j<this.dim-1){te.writeByte(','); te.writeByte(' ');}
+        }
+        te.writeByte(']');
+        te.writeByte('\n');
       }
-      str+="]\n";
+      te.flush();
+    }
+    catch(IOException e){ // cannot happen on a byte array
+      System.err.println("Error : IOException. See stack trace below."); e.printStackTrace(); System.exit(-1);
     }
-    return(str);
+    return(new String(bytes.toByteArray(), StandardCharsets.UTF_8));
   }
   //-----------------------------------------------------------
 }
@@ -68,6 +68,56 @@ def Brownian2D(nbPoint):
     return B
 ###############################################################
 
+# Loading of paths exported by the Java generator #############
+def loadBrownian(fileName, d=1, precision='double'):
+    # @param fileName file exported with output-format=npy or
+    #                 output-format=raw
+    # @param d dimension of the Brownian motion (only used for
+    #          raw files, .npy files carry their shape)
+    # @param precision 'double' or 'float', as the precision
+    #                  option of the export (only used for raw
+    #                  files, .npy files carry their type)
+    # @return B a read-only (Kt, d) array mapped on the file
+    if fileName.endswith('.npy'):
+        return np.load(fileName, mmap_mode='r')
+    else:
+        dtype='<f4' if precision=='float' else '<f8'
+        return np.memmap(fileName, dtype=dtype, mode='r').reshape(-1, d)
+###############################################################
+
+# Requests to the Java generator server #######################
+def requestBrownian(options, d=1, port=None, socketFile=None):
+    # @param options Generator options separated by spaces,
+    #                output and output-format excepted (for
+    #                instance 'kt=1025 d=2 seed=3', add
+    #                'precision=float' for single precision)
+    # @param d dimension of the Brownian motion
+    # @param port loopback TCP port of the GeneratorServer
+    # @param socketFile Unix domain socket file of the
+    #                   GeneratorServer (instead of port)
+    # @return B a (Kt, d) array
+    import socket
+    import struct
+    if socketFile is not None:
+        s=socket.socket(socket.AF_UNIX, socket.SOCK_STREAM)
+        s.connect(socketFile)
+    else:
+        s=socket.create_connection(('127.0.0.1', port))
+    with s, s.makefile('rb') as f:
+        s.sendall((options+' output-format=raw\n').encode('utf-8'))
+        status=f.readline().decode('utf-8').rstrip('\n')
+        if status!='OK':
+            raise ValueError(status)
+        chunks=[]
+        while True:
+            size=struct.unpack('>i', f.read(4))[0]
+            if size==0:
+                break
+            chunks.append(f.read(size))
+    dtype='<f4' if 'precision=float' in options.split() else '<f8'
+    return np.frombuffer(b''.join(chunks), dtype=dtype).reshape(-1, d)
+###############################################################
+
 # Main program ################################################
 
 plt.close('all')
@@ -0,0 +1,155 @@
+// Title       : BrownianEnsemble.java
+// Description : This class generates ensembles of independent
+//               Brownian motions sharing the same parameters,
+//               in parallel over a fork-join pool, for Monte
+//               Carlo workloads.
+// Author      : agent.
+// Date        : 2026.
+// Notes       : Path m is drawn from gs.derive(m), so the
+//               ensemble does not depend on the number of
+//               threads.
+
+package BrownianGenerator;
+
+import java.util.concurrent.ForkJoinPool; // for parallel generation
+import java.util.concurrent.RecursiveAction; // for parallel generation
+
+public class BrownianEnsemble{
+  // Attributes //---------------------------------------------
+  private static final long GRAIN=64; // number of paths under which a range is not split any more
+  private int len; // number of time index discretisation points
+  private int dim; // Brownian motion dimension
+  private int n; // cut parameter
+  private double c; // scaling
+  private GaussianSource gs; // root source, each path uses its own derived stream
+  private int threads; // number of worker threads (0 for the common pool)
+  private PathLayout layout; // layout of the paths
+  private final ThreadLocal<Scratch> scratch=new ThreadLocal<Scratch>(); // per-thread wavelet and buffer
+  //-----------------------------------------------------------
+  
+  // Constructors //-------------------------------------------
+  public BrownianEnsemble(int Kt, int dimension, double c, int N, GaussianSource gs){
+    // Constructor : common pool.
+    this(Kt, dimension, c, N, gs, 0);
+  }
+  public BrownianEnsemble(int Kt, int dimension, double c, int N, GaussianSource gs, int threads){
+    // Constructor : threads.
+    this(Kt, dimension, c, N, gs, threads, PathLayout.COMPONENT_MAJOR);
+  }
+  public BrownianEnsemble(int Kt, int dimension, double c, int N, GaussianSource gs, int threads, PathLayout layout){
+    // Constructor : complete. PathLayout.FLOAT halves the memory of the ensemble.
+    Brownian.checkParameters(Kt, dimension, c, N);
+    if(threads<0){
+      System.err.println("Error : number of threads is incorrect (threads="+threads+").");
+      System.exit(-1);
+    }
+    this.len=Kt;
+    this.dim=dimension;
+    this.c=c;
+    this.n=N;
+    this.gs=gs;
+    this.threads=threads;
+    this.layout=layout;
+  }
+  //-----------------------------------------------------------
+  
+  // Methods //------------------------------------------------
+  public Brownian[] generate(int M){
+    // Generates and keeps the M paths of the ensemble.
+    // @param M the number of paths
+    // @return the M paths, path m being drawn from gs.derive(m)
+    final Brownian[] paths=new Brownian[M];
+    run(M, new PathConsumer(){
+      public void accept(long index, Brownian b){
+        paths[(int)index]=b;
+      }
+    }, true);
+    return(paths);
+  }
+  
+  public void forEach(long M, PathConsumer consumer){
+    // Generates the M paths of the ensemble and hands them to a callback. Each thread reuses a single buffer, so memory stays bounded whatever M.
+    // @param M the number of paths
+    // @param consumer the callback, see PathConsumer for its contract
+    // @return void
+    run(M, consumer, false);
+  }
+  
+  private void run(long M, PathConsumer consumer, boolean keep){
+    // Splits [0, M[ over the pool.
+    // @param M the number of paths
+    // @param consumer the callback
+    // @param keep true if each path needs its own buffer, false if the buffer of the thread is reused
+    // @return void
+    if(M<0){
+      System.err.println("Error : number of paths is incorrect (M="+M+").");
+      System.exit(-1);
+    }
+    Range all=new Range(0, M, consumer, keep);
+    if(this.threads==0){
+      ForkJoinPool.commonPool().invoke(all);
+    }
+    else{
+      ForkJoinPool pool=new ForkJoinPool(this.threads);
+      try{
+        pool.invoke(all);
+      }
+      finally{
+        pool.shutdown();
+      }
+    }
+  }
+  
+  private Scratch getScratch(){
+    // Returns the scratch state of the current thread, creating it on first use.
+    Scratch s=this.scratch.get();
+    if(s==null){
+      s=new Scratch();
+      this.scratch.set(s);
+    }
+    return(s);
+  }
+  public int getLength(){
+    return(this.len);
+  }
+  public int getDim(){
+    return(this.dim);
+  }
+  //-----------------------------------------------------------
+  
+  // Inner classes //------------------------------------------
+  private class Scratch{
+    // State reused by a thread from one path to the next.
+    private SchauderWavelet sw=new SchauderWavelet(len);
+    private PathStorage buffer=PathStorage.allocate(layout, dim, len);
+  }
+  
+  private class Range extends RecursiveAction{
+    // A range of path indexes, split in halves until it is small enough.
+    private static final long serialVersionUID=1L;
+    private long from, to;
+    private PathConsumer consumer;
+    private boolean keep;
+    Range(long from, long to, PathConsumer consumer, boolean keep){
+      this.from=from;
+      this.to=to;
+      this.consumer=consumer;
+      this.keep=keep;
+    }
+    protected void compute(){
+      if(this.to-this.from>GRAIN){
+        long mid=(this.from+this.to)>>>1;
+        invokeAll(new Range(this.from, mid, this.consumer, this.keep),
+                  new Range(mid, this.to, this.consumer, this.keep));
+        return;
+      }
+      Scratch s=getScratch();
+      PathStorage buffer;
+      for(long m=this.from; m<this.to; m++){
+        buffer=(this.keep?PathStorage.allocate(layout, dim, len):s.buffer);
+        this.consumer.accept(m, new Brownian(len, dim, c, n, gs.derive(m), s.sw, buffer, null));
+      }
+    }
+  }
+  //-----------------------------------------------------------
+}
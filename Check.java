@@ -0,0 +1,680 @@
+// Title       : Check.java
+// Description : This class runs the correctness checks of the
+//               package : each check compares a fast engine with
+//               a plain reference computation (or a file with
+//               what was written to it) on seeded inputs, and
+//               reports the largest difference against its
+//               tolerance.
+// Author      : agent.
+// Date        : 2026.
+// Notes       : Run with java BrownianGenerator.Check help. The
+//               exit status is -1 if a check fails.
+
+package BrownianGenerator;
+
+import java.io.File; // for temporary files
+import java.io.IOException; // for temporary files
+import java.nio.ByteBuffer; // for reading exports back
+import java.nio.ByteOrder; // for reading exports back
+import java.nio.file.Files; // for reading exports back
+import java.util.ArrayList; // for cases
+import java.util.List; // for cases
+import java.util.Locale; // for result formatting
+import java.util.Map; // for arguments parsing
+
+public abstract class Check{
+  // Attributes //---------------------------------------------
+  private String name; // case name
+  private double tolerance; // largest difference accepted
+  //-----------------------------------------------------------
+  
+  // Constructors //-------------------------------------------
+  private Check(String name, double tolerance){
+    this.name=name;
+    this.tolerance=tolerance;
+  }
+  //-----------------------------------------------------------
+  
+  // Cases //--------------------------------------------------
+  abstract double run();
+    // Runs the case.
+    // @param void
+    // @return the largest difference between the engine and the reference
+  
+  private static List<Check> cases(){
+    // Lists the check cases.
+    // @param void
+    // @return the cases, in running order
+    List<Check> l=new ArrayList<Check>();
+    
+    // Generation engine against the sum of the wavelets, for the same coefficients (general mode resamples the dyadic grid, see Brownian.getBrownian) :
+    int[] kts={3, 5, 11, 100, 1000, 1025, 3001, 100000};
+    int[] ns={0, 3, 8, 15, 40};
+    for(final int kt : kts){
+      for(final int n : ns){
+        for(final int d : new int[]{1, 3}){
+          for(final PathLayout layout : PathLayout.values()){
+            if(kt>=100000 && (n!=15 || d!=1)){ // keep the reference computations short
+              continue;
+            }
+            l.add(new Check("engine kt="+kt+" n="+n+" d="+d+" "+layout, tolerance(layout)){
+              double run(){
+                return(engine(kt, d, n, layout, Brownian.SEQUENTIAL));
+              }
+            });
+          }
+        }
+      }
+    }
+    int[][] parallel={{1000003, 12}, {(1<<20)+1, 3}}; // parallel generation whose subtrees have no levels of their own : the sequential path, resampled or interpolated over a pool
+    for(final int[] p : parallel){
+      for(final PathLayout layout : new PathLayout[]{PathLayout.COMPONENT_MAJOR, PathLayout.FLOAT}){
+        l.add(new Check("engine parallel kt="+p[0]+" n="+p[1]+" d=2 "+layout, tolerance(layout)){
+          double run(){
+            return(engine(p[0], 2, p[1], layout, 2));
+          }
+        });
+      }
+    }
+    
+    // Interpolation plans larger than the cache cap are stepped by the resampling kernels rather than read, for the same values :
+    for(final int kt : new int[]{1000, 100000, 1000003}){
+      for(final PathLayout layout : PathLayout.values()){
+        l.add(new Check("stepped plan kt="+kt+" n=15 d=2 "+layout, 0){
+          double run(){
+            return(stepped(kt, 15, layout, Brownian.SEQUENTIAL));
+          }
+        });
+      }
+    }
+    for(final PathLayout layout : new PathLayout[]{PathLayout.COMPONENT_MAJOR, PathLayout.FLOAT}){
+      l.add(new Check("stepped plan parallel kt=1000003 n=12 d=2 "+layout, 0){
+        double run(){
+          return(stepped(1000003, 12, layout, 2));
+        }
+      });
+    }
+    
+    // Progressive refinement against a direct generation with the new cut parameter, cuts past the finest level included :
+    int[][] cuts={{0, 3}, {3, 8}, {8, 40}, {31, 33}, {40, 45}};
+    for(final int kt : new int[]{3, 1000, 1025, 3001}){
+      for(final int[] cut : cuts){
+        for(final PathLayout layout : PathLayout.values()){
+          l.add(new Check("refine kt="+kt+" n="+cut[0]+"->"+cut[1]+" d=2 "+layout, tolerance(layout)){
+            double run(){
+              return(refine(kt, 2, cut[0], cut[1], layout));
+            }
+          });
+        }
+      }
+    }
+    
+    // Sobol source of the command line without a seed : a Brownian path, not the centre of the cube (quadratic variation of a path of length 1, within 10 standard deviations) :
+    l.add(new Check("sobol unseeded kt=1025 quadratic variation", 0.5){
+      double run(){
+        return(unseededSobol(1025));
+      }
+    });
+    
+    // Binary exports read back (memory-mapped windows, rows wider than the gathering chunk included) :
+    for(final int d : new int[]{1, 3, 9000}){
+      for(final PathLayout layout : new PathLayout[]{PathLayout.COMPONENT_MAJOR, PathLayout.FLOAT}){
+        for(final boolean npy : new boolean[]{true, false}){
+          l.add(new Check("export "+(npy?"npy":"raw")+" kt=11 d="+d+" "+layout, 0){
+            double run(){
+              return(export(11, d, layout, npy));
+            }
+          });
+        }
+      }
+    }
+    
+    // Segmented generation against the parallel generation of the same subtrees (see Brownian), whatever the number of threads :
+    for(final int threads : new int[]{1, 4}){
+      l.add(new Check("segmented kt=1048577 n=25 d=2 threads="+threads, 0){
+        double run(){
+          return(segmented((1<<20)+1, 25, 1<<16, threads));
+        }
+      });
+      l.add(new Check("segmented kt=1000003 n=25 d=2 threads="+threads, 1e-12){
+        double run(){
+          return(segmented(1000003, 25, 1<<17, threads));
+        }
+      });
+    }
+    
+    // Statistics computed during the generation against the same statistics computed on the finished path :
+    for(final int kt : new int[]{1025, 3001}){
+      for(final PathLayout layout : PathLayout.values()){
+        l.add(new Check("statistics kt="+kt+" d=2 "+layout, 1e-12){
+          double run(){
+            return(statistics(kt, layout, false));
+          }
+        });
+      }
+    }
+    l.add(new Check("statistics segmented kt=100001 d=2", 1e-12){
+      double run(){
+        return(statistics(100001, PathLayout.COMPONENT_MAJOR, true));
+      }
+    });
+    
+    // Process transforms against their formulas applied to the Brownian path of the same source :
+    for(final ProcessTransform.Process process : ProcessTransform.Process.values()){
+      for(final int kt : new int[]{1025, 3001}){
+        for(final PathLayout layout : PathLayout.values()){
+          l.add(new Check("transform "+process+" kt="+kt+" d=2 "+layout, tolerance(layout)){
+            double run(){
+              return(transform(process, kt, layout, false));
+            }
+          });
+        }
+      }
+      l.add(new Check("transform "+process+" segmented kt=100001 d=2", 1e-10){ // the roundings of the ou recursion add up over the path
+        double run(){
+          return(transform(process, 100001, PathLayout.COMPONENT_MAJOR, true));
+        }
+      });
+    }
+    
+    // Archives read back : compressed paths lossless, random access, streaming, regenerable paths replayed from their source :
+    for(final PathLayout layout : new PathLayout[]{PathLayout.COMPONENT_MAJOR, PathLayout.FLOAT}){
+      for(final int kt : new int[]{11, 3001, 100000}){
+        l.add(new Check("archive kt="+kt+" d=3 "+layout, 0){
+          double run(){
+            return(archive(kt, layout));
+          }
+        });
+      }
+    }
+    for(final long stream : new long[]{-1, 5}){
+      for(final int segment : new int[]{0, 4096}){
+        l.add(new Check("archive regenerable kt=100001 d=2 stream="+stream+" segment="+segment, 0){
+          double run(){
+            return(regenerable(100001, stream, segment));
+          }
+        });
+      }
+    }
+    
+    // Multilevel Monte Carlo : the coarse path of a pair is the fine path at the even indexes, and the statistics of a level do not depend on the number of threads :
+    l.add(new Check("mlmc coupling kt0=3 levels 1..8 d=2", 1e-12){
+      double run(){
+        return(mlmcCoupling());
+      }
+    });
+    l.add(new Check("mlmc threads 1/4 kt0=3 level 6 d=2", 0){
+      double run(){
+        return(mlmcThreads());
+      }
+    });
+    return(l);
+  }
+  
+  private static double tolerance(PathLayout layout){
+    // Returns the tolerance of the generation engine : the rounding of the resampling in double precision, two float roundings of values of order 1 in single precision (see FloatStorage).
+    return(layout==PathLayout.FLOAT?1e-5:1e-12);
+  }
+  
+  private static double engine(int kt, int d, int n, PathLayout layout, int threads){
+    // Generates a path with the engine, and the same path by adding the wavelets one after the other (the construction of the first version of Brownian), the coefficients coming from two identical sources.
+    // @param kt the number of discretisation points
+    // @param d the dimension
+    // @param n the cut parameter
+    // @param layout the layout of the engine path
+    // @param threads the threads of the engine (Brownian.SEQUENTIAL for the sequential constructors)
+    // @return the largest difference between the two paths
+    double c=2.5;
+    double[] start=new double[d];
+    for(int j=0; j<d; j++){
+      start[j]=1.5-j;
+    }
+    Brownian b=(threads==Brownian.SEQUENTIAL?new Brownian(kt, d, c, n, new PhiloxGaussianSource(17), layout, start):new Brownian(kt, d, c, n, new PhiloxGaussianSource(17), layout, start, null, threads));
+    
+    // Reference :
+    GaussianSource gs=new PhiloxGaussianSource(17);
+    SchauderWavelet w=new SchauderWavelet(kt);
+    double[][] ref=new double[d][kt];
+    double[] g=new double[d];
+    while(!(w.hasToStop() || w.getOrder()>n)){
+      gs.fill(g, 0, d);
+      w.accumulate(g, ref);
+      w.iterate();
+    }
+    double coef=Math.sqrt(c);
+    double max=0;
+    for(int j=0; j<d; j++){
+      for(int i=0; i<kt; i++){
+        max=Math.max(max, Math.abs(b.get(i, j)-(start[j]+coef*ref[j][i])));
+      }
+    }
+    return(max);
+  }
+  
+  private static double stepped(int kt, int n, PathLayout layout, int threads){
+    // Generates a path with the interpolation plan of the cache, and the same path with the cache cap at 0 (stepped plan), from two identical sources.
+    // @param kt the number of discretisation points
+    // @param n the cut parameter
+    // @param layout the layout of the paths
+    // @param threads the threads of the generation (Brownian.SEQUENTIAL for the sequential constructors)
+    // @return the largest difference between the two paths
+    double[] start={1.5, 0.5};
+    Brownian[] b=new Brownian[2];
+    long capacity=SchauderBasis.getCacheCapacity();
+    for(int k=0; k<2; k++){
+      SchauderBasis.setCacheCapacity(k==0?capacity:0);
+      b[k]=(threads==Brownian.SEQUENTIAL?new Brownian(kt, 2, 2.5, n, new PhiloxGaussianSource(17), layout, start):new Brownian(kt, 2, 2.5, n, new PhiloxGaussianSource(17), layout, start, null, threads));
+    }
+    SchauderBasis.setCacheCapacity(capacity);
+    return(maxDifference(b[0], b[1]));
+  }
+  
+  private static double refine(int kt, int d, int n, int newN, PathLayout layout){
+    // Generates a path with a cut parameter, refines it to another one, and generates the path of the new cut parameter directly, from two identical sources.
+    // @param kt the number of discretisation points
+    // @param d the dimension
+    // @param n the cut parameter of the refined path
+    // @param newN the new cut parameter
+    // @param layout the layout of the paths
+    // @return the largest difference between the refined path and the direct one
+    double[] start=new double[d];
+    for(int j=0; j<d; j++){
+      start[j]=1.5-j;
+    }
+    Brownian b=new Brownian(kt, d, 2.5, n, new PhiloxGaussianSource(17), layout, start);
+    b.refine(newN);
+    return(maxDifference(b, new Brownian(kt, d, 2.5, newN, new PhiloxGaussianSource(17), layout, start)));
+  }
+  
+  private static double unseededSobol(int kt){
+    // Generates a path of length 1 from the Sobol source of the options rng=sobol without a seed, and computes its quadratic variation.
+    // @param kt the number of discretisation points
+    // @return the difference between the quadratic variation and 1
+    Generator.Options o=Generator.Options.parse(Generator.parseArgs(new String[]{"kt="+kt, "rng=sobol"}));
+    Brownian b=new Brownian(kt, 1, 1.0, SchauderWavelet.autoCut(kt), o.newSource());
+    double qv=0;
+    for(int i=1; i<kt; i++){
+      double dv=b.get(i, 0)-b.get(i-1, 0);
+      qv+=dv*dv;
+    }
+    return(Math.abs(qv-1));
+  }
+  
+  private static double maxDifference(Brownian a, Brownian b){
+    // Returns the largest difference between two paths of the same size.
+    // @param a the first path
+    // @param b the second path
+    // @return the largest difference, infinite if the sizes differ
+    if(a.getLength()!=b.getLength() || a.getDim()!=b.getDim()){
+      return(Double.POSITIVE_INFINITY);
+    }
+    double max=0;
+    for(int j=0; j<a.getDim(); j++){
+      for(int i=0; i<a.getLength(); i++){
+        max=Math.max(max, Math.abs(a.get(i, j)-b.get(i, j)));
+      }
+    }
+    return(max);
+  }
+  
+  private static double maxDifference(PathStorage a, PathStorage b){
+    // Same as maxDifference(Brownian, Brownian), for two storages.
+    if(a.getLength()!=b.getLength() || a.getDim()!=b.getDim()){
+      return(Double.POSITIVE_INFINITY);
+    }
+    double max=0;
+    for(int j=0; j<a.getDim(); j++){
+      for(int i=0; i<a.getLength(); i++){
+        max=Math.max(max, Math.abs(a.get(i, j)-b.get(i, j)));
+      }
+    }
+    return(max);
+  }
+  
+  private static double export(int kt, int d, PathLayout layout, boolean npy){
+    // Exports a path with exportToNpy or exportToRaw and reads the file back.
+    // @param kt the number of discretisation points
+    // @param d the dimension
+    // @param layout the layout of the path (FLOAT paths are written as floats)
+    // @param npy true for the npy format, false for raw values
+    // @return the largest difference between the path and the values read back
+    Brownian b=new Brownian(kt, d, 1.0, 15, new PhiloxGaussianSource(17), layout);
+    boolean single=(layout==PathLayout.FLOAT);
+    try{
+      File f=File.createTempFile("brownian-check", ".out");
+      f.deleteOnExit();
+      if(npy){
+        Generator.exportToNpy(b, f.getPath());
+      }
+      else{
+        Generator.exportToRaw(b, f.getPath());
+      }
+      byte[] bytes=Files.readAllBytes(f.toPath());
+      f.delete();
+      int header=(npy?10+(bytes[8]&0xff)+((bytes[9]&0xff)<<8):0); // npy version 1.0 : magic string, version, header length, header
+      if(bytes.length!=header+(long)(kt)*d*(single?4:8)){
+        return(Double.POSITIVE_INFINITY);
+      }
+      ByteBuffer bb=ByteBuffer.wrap(bytes, header, bytes.length-header).order(ByteOrder.LITTLE_ENDIAN);
+      double max=0;
+      for(int i=0; i<kt; i++){
+        for(int j=0; j<d; j++){
+          double v=(single?bb.getFloat():bb.getDouble());
+          max=Math.max(max, Math.abs(v-b.get(i, j)));
+        }
+      }
+      return(max);
+    }
+    catch(IOException e){
+      System.err.println("Error : IOException. See stack trace below."); e.printStackTrace(); System.exit(-1);
+      return(Double.NaN);
+    }
+  }
+  
+  private static double segmented(int kt, int n, int segment, int threads){
+    // Generates a path by segments and the same path in memory by subtrees of the width of a segment, from two identical sources.
+    // @param kt the number of discretisation points
+    // @param n the cut parameter
+    // @param segment the segment length
+    // @param threads the threads of the segmented generation
+    // @return the largest difference between the two paths
+    double[] start={1.5, 0.5};
+    PathStorage st=PathStorage.allocate(PathLayout.COMPONENT_MAJOR, 2, kt);
+    generate(new SegmentedBrownian(kt, 2, 2.5, n, new PhiloxGaussianSource(17), segment, start), copy(st), threads);
+    Brownian b=new Brownian(kt, 2, 2.5, n, new PhiloxGaussianSource(17), PathLayout.COMPONENT_MAJOR, start, null, 1);
+    return(maxDifference(b.getStorage(), st));
+  }
+  
+  private static double statistics(int kt, PathLayout layout, boolean segmented){
+    // Computes the summary, the quadratic variation and hitting times of a path while it is generated (in memory or by segments), and the same quantities on the finished path.
+    // @param kt the number of discretisation points
+    // @param layout the layout of the path in memory
+    // @param segmented true to generate the path by SegmentedBrownian through a StatisticSink
+    // @return the largest difference between the two computations (time indexes included)
+    double[] start={1.5, 0.5};
+    double[] levels={0.5, 1.0, 2.0, 2.5};
+    PathSummary sum=new PathSummary();
+    QuadraticVariation qv=new QuadraticVariation();
+    HittingTimes ht=new HittingTimes(0, levels);
+    PathStorage v;
+    if(segmented){
+      v=PathStorage.allocate(PathLayout.COMPONENT_MAJOR, 2, kt);
+      generate(new SegmentedBrownian(kt, 2, 2.5, 20, new PhiloxGaussianSource(17), 4096, start), new StatisticSink(copy(v), sum, qv, ht), 1);
+    }
+    else{
+      v=new Brownian(kt, 2, 2.5, 15, new PhiloxGaussianSource(17), layout, start, sum, qv, ht).getStorage();
+    }
+    
+    // Reference :
+    double max=0;
+    for(int j=0; j<2; j++){
+      double mx=v.get(0, j), mn=mx, q=0;
+      int amx=0, amn=0;
+      for(int i=1; i<kt; i++){
+        double x=v.get(i, j), dx=x-v.get(i-1, j);
+        q+=dx*dx;
+        if(x>mx){
+          mx=x;
+          amx=i;
+        }
+        if(x<mn){
+          mn=x;
+          amn=i;
+        }
+      }
+      max=Math.max(max, Math.abs(sum.getMax(j)-mx)+Math.abs(sum.getMin(j)-mn)+Math.abs(sum.getTerminal(j)-v.get(kt-1, j)));
+      max=Math.max(max, Math.abs(sum.getArgMax(j)-amx)+Math.abs(sum.getArgMin(j)-amn));
+      max=Math.max(max, Math.abs(qv.get(j)-q));
+    }
+    for(int l=0; l<levels.length; l++){
+      long t=-1;
+      for(int i=0; i<kt && t<0; i++){
+        if(v.get(0, 0)<levels[l]?v.get(i, 0)>=levels[l]:v.get(i, 0)<=levels[l]){
+          t=i;
+        }
+      }
+      max=Math.max(max, Math.abs(ht.get(l)-t));
+    }
+    return(max);
+  }
+  
+  private static double transform(ProcessTransform.Process process, int kt, PathLayout layout, boolean segmented){
+    // Generates a process (in memory or by segments through a TransformSink), and the Brownian path of the same source to which the formulas of the process are applied.
+    // @param process the process
+    // @param kt the number of discretisation points
+    // @param layout the layout of the paths in memory
+    // @param segmented true to generate the paths by SegmentedBrownian
+    // @return the largest difference between the two processes, relative to the values larger than 1
+    double c=2.5;
+    double[] start={1.5, 0.5};
+    double[] drift={0.3, -0.2};
+    double[] cov={1.0, 0.6, 0.6, 2.0};
+    double[] theta={2.0, 0.5};
+    ProcessTransform tr=new ProcessTransform(process, 2, drift, cov, (process==ProcessTransform.Process.OU?theta:null));
+    PathStorage x, w;
+    if(segmented){
+      x=PathStorage.allocate(PathLayout.COMPONENT_MAJOR, 2, kt);
+      w=PathStorage.allocate(PathLayout.COMPONENT_MAJOR, 2, kt);
+      generate(new SegmentedBrownian(kt, 2, c, 20, new PhiloxGaussianSource(17), 4096, start), new TransformSink(copy(x), tr, start, kt, c), 1);
+      generate(new SegmentedBrownian(kt, 2, c, 20, new PhiloxGaussianSource(17), 4096, start), copy(w), 1);
+    }
+    else{
+      x=new Brownian(kt, 2, c, 15, new PhiloxGaussianSource(17), layout, start, tr).getStorage();
+      w=new Brownian(kt, 2, c, 15, new PhiloxGaussianSource(17), layout, start).getStorage();
+    }
+    
+    // Reference (L lower triangular, L*L'=cov) :
+    double l00=Math.sqrt(cov[0]), l10=cov[2]/l00, l11=Math.sqrt(cov[3]-l10*l10);
+    double dt=c/(kt-1);
+    double[] prevLW=new double[2], prevX=start.clone();
+    double max=0;
+    for(int i=0; i<kt; i++){
+      double w0=w.get(i, 0)-start[0], w1=w.get(i, 1)-start[1];
+      double[] lw={l00*w0, l10*w0+l11*w1};
+      for(int j=0; j<2; j++){
+        double ref;
+        switch(process){
+          case GBM :
+            ref=start[j]*Math.exp((drift[j]-0.5*cov[3*j])*i*dt+lw[j]);
+            break;
+          case OU :
+            double a=Math.exp(-theta[j]*dt), s=Math.sqrt((1-a*a)/(2*theta[j]*dt));
+            ref=(i==0?start[j]:a*prevX[j]+(1-a)*drift[j]+s*(lw[j]-prevLW[j]));
+            prevX[j]=ref;
+            break;
+          default :
+            ref=start[j]+drift[j]*i*dt+lw[j];
+        }
+        max=Math.max(max, Math.abs(x.get(i, j)-ref)/Math.max(1, Math.abs(ref)));
+      }
+      prevLW=lw;
+    }
+    return(max);
+  }
+  
+  private static double archive(int kt, PathLayout layout){
+    // Writes a path to a compressed archive and reads it back whole, by random access to windows, and streamed to a sink.
+    // @param kt the number of discretisation points
+    // @param layout the layout of the path (FLOAT paths are stored as floats)
+    // @return the largest difference between the path and the values read back
+    double[] start={1.5, 0.5, -0.5};
+    Brownian b=new Brownian(kt, 3, 2.5, 15, new PhiloxGaussianSource(17), layout, start);
+    try{
+      File f=File.createTempFile("brownian-check", ".bga");
+      f.deleteOnExit();
+      PathArchiveWriter aw=new PathArchiveWriter(f.getPath());
+      aw.write(b);
+      aw.close();
+      PathArchiveReader ar=new PathArchiveReader(f.getPath());
+      double max=maxDifference(b, ar.read(0));
+      long[] froms={0, kt/3, kt-1-kt/7};
+      for(long from : froms){
+        int count=(int)(Math.min(kt-from, kt/5+1));
+        PathStorage st=ar.read(0, from, count);
+        for(int j=0; j<3; j++){
+          for(int i=0; i<count; i++){
+            max=Math.max(max, Math.abs(st.get(i, j)-b.get((int)(from)+i, j)));
+          }
+        }
+      }
+      PathStorage all=PathStorage.allocate(PathLayout.COMPONENT_MAJOR, 3, kt);
+      ar.read(0, copy(all));
+      ar.close();
+      f.delete();
+      return(Math.max(max, maxDifference(b.getStorage(), all)));
+    }
+    catch(IOException e){
+      System.err.println("Error : IOException. See stack trace below."); e.printStackTrace(); System.exit(-1);
+      return(Double.NaN);
+    }
+  }
+  
+  private static double regenerable(int kt, long stream, int segment){
+    // Writes the parameters of a path to an archive, reads it back (generated again) and generates it from the source of the command line options.
+    // @param kt the number of discretisation points
+    // @param stream -1 for the seeded source itself, else the derived stream
+    // @param segment 0 for a path in memory, else its segment length
+    // @return the largest difference between the path read back and the reference
+    double[] start={1.5, 0.5};
+    GaussianSource gs=Generator.Options.newSource("philox", 17);
+    if(stream>=0){
+      gs=gs.derive(stream);
+    }
+    PathStorage ref=PathStorage.allocate(PathLayout.COMPONENT_MAJOR, 2, kt);
+    if(segment>0){
+      generate(new SegmentedBrownian(kt, 2, 2.5, 20, gs, segment, start), copy(ref), 1);
+    }
+    else{
+      ref=new Brownian(kt, 2, 2.5, 20, gs, PathLayout.COMPONENT_MAJOR, start).getStorage();
+    }
+    try{
+      File f=File.createTempFile("brownian-check", ".bga");
+      f.deleteOnExit();
+      PathArchiveWriter aw=new PathArchiveWriter(f.getPath());
+      aw.writeRegenerable(kt, 2, 2.5, 20, start, false, "philox", 17, stream, segment);
+      aw.close();
+      PathArchiveReader ar=new PathArchiveReader(f.getPath());
+      double max=maxDifference(ar.read(0).getStorage(), ref);
+      PathStorage st=ar.read(0, kt/2, kt/4);
+      for(int j=0; j<2; j++){
+        for(int i=0; i<kt/4; i++){
+          max=Math.max(max, Math.abs(st.get(i, j)-ref.get(kt/2+i, j)));
+        }
+      }
+      ar.close();
+      f.delete();
+      return(max);
+    }
+    catch(IOException e){
+      System.err.println("Error : IOException. See stack trace below."); e.printStackTrace(); System.exit(-1);
+      return(Double.NaN);
+    }
+  }
+  
+  private static double mlmcCoupling(){
+    // Compares the coarse path of pairs of each level with their fine path at the even time indexes.
+    // @param void
+    // @return the largest difference
+    MultilevelBrownian ml=new MultilevelBrownian(3, 8, 2, 2.5, new PhiloxGaussianSource(17), new double[]{1.5, 0.5}, 1);
+    double max=0;
+    for(int level=1; level<=8; level++){
+      for(long m : new long[]{0, 1, 1000}){
+        Brownian[] p=ml.pair(level, m);
+        if(2*(p[0].getLength()-1)!=p[1].getLength()-1){
+          return(Double.POSITIVE_INFINITY);
+        }
+        for(int j=0; j<2; j++){
+          for(int i=0; i<p[0].getLength(); i++){
+            max=Math.max(max, Math.abs(p[0].get(i, j)-p[1].get(2*i, j)));
+          }
+        }
+      }
+    }
+    return(max);
+  }
+  
+  private static double mlmcThreads(){
+    // Samples the same level with 1 and 4 threads.
+    // @param void
+    // @return the largest difference between the statistics of the level (number of samples included)
+    PathFunctional f=new PathFunctional(){
+      public double apply(Brownian b){
+        double mx=b.get(0, 0);
+        for(int i=1; i<b.getLength(); i++){
+          mx=Math.max(mx, b.get(i, 0));
+        }
+        return(mx);
+      }
+    };
+    MultilevelBrownian.Level[] r=new MultilevelBrownian.Level[2];
+    int[] threads={1, 4};
+    for(int k=0; k<2; k++){
+      MultilevelBrownian ml=new MultilevelBrownian(3, 6, 2, 2.5, new PhiloxGaussianSource(17), new double[]{1.5, 0.5}, threads[k]);
+      r[k]=ml.sample(6, 200, f);
+      r[k]=ml.sample(6, 55, f);
+    }
+    double max=Math.abs(r[0].getSamples()-r[1].getSamples());
+    max=Math.max(max, Math.abs(r[0].getMean()-r[1].getMean())+Math.abs(r[0].getVariance()-r[1].getVariance()));
+    max=Math.max(max, Math.abs(r[0].getFineMean()-r[1].getFineMean())+Math.abs(r[0].getFineVariance()-r[1].getFineVariance()));
+    return(max);
+  }
+  
+  private static PathSink copy(final PathStorage st){
+    // Returns a sink copying the segments it receives to a storage holding the whole path.
+    // @param st the storage
+    // @return the sink
+    return(new PathSink(){
+      public void accept(long first, PathStorage segment, int count){
+        for(int j=0; j<segment.getDim(); j++){
+          for(int i=0; i<count; i++){
+            st.set((int)(first)+i, j, segment.get(i, j));
+          }
+        }
+      }
+    });
+  }
+  
+  private static void generate(SegmentedBrownian sb, PathSink sink, int threads){
+    // Generates a segmented path to a sink, an IOException being fatal.
+    try{
+      sb.generate(sink, threads);
+    }
+    catch(IOException e){
+      System.err.println("Error : IOException. See stack trace below."); e.printStackTrace(); System.exit(-1);
+    }
+  }
+  //-----------------------------------------------------------
+  
+  // Main method //--------------------------------------------
+  public static void main(String[] args){
+    Map<String, String> pMap=Generator.parseArgs(args);
+    if(pMap.containsKey("help")){
+      System.out.println("Manual :\n"+
+                         "> Command line :\n"+
+                         ">> java -cp BrownianGenerator.jar BrownianGenerator.Check [filter=...]\n"+
+                         "> Options :\n"+
+                         ">> filter : only run the cases whose name contains this text (optionnal).");
+      System.exit(-1);
+    }
+    String filter=pMap.getOrDefault("filter", "");
+    int failed=0, count=0;
+    System.out.println("# case\tmax difference\ttolerance\tresult");
+    for(Check ch : cases()){
+      if(!ch.name.contains(filter)){
+        continue;
+      }
+      double diff=ch.run();
+      boolean ok=(diff<=ch.tolerance); // false for NaN
+      System.out.println(String.format(Locale.US, "%s\t%.3e\t%.0e\t%s", ch.name, diff, ch.tolerance, (ok?"OK":"FAILED")));
+      count++;
+      if(!ok){
+        failed++;
+      }
+    }
+    System.out.println(count+" checks, "+failed+" failed.");
+    if(failed>0){
+      System.exit(-1);
+    }
+  }
+  //-----------------------------------------------------------
+}
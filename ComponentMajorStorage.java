@@ -0,0 +1,129 @@
+// Title       : ComponentMajorStorage.java
+// Description : This class stores a path as one heap table per
+//               component (the historical double[dim][len]
+//               layout).
+// Author      : agent.
+// Date        : 2026.
+// Notes       : None.
+
+package BrownianGenerator;
+
+import java.nio.DoubleBuffer; // for views
+import java.util.Arrays; // for clear
+
+public class ComponentMajorStorage extends PathStorage{
+  // Attributes //---------------------------------------------
+  private double[][] values; // values[j][t] is the j-th component at time index t
+  //-----------------------------------------------------------
+  
+  // Constructors //-------------------------------------------
+  public ComponentMajorStorage(int dimension, int Kt){
+    super(dimension, Kt);
+    this.values=new double[dimension][Kt];
+  }
+  //-----------------------------------------------------------
+  
+  // Methods //------------------------------------------------
+  public double get(int t, int j){
+    return(this.values[j][t]);
+  }
+  public void set(int t, int j, double v){
+    this.values[j][t]=v;
+  }
+  public void add(int t, int j, double v){
+    this.values[j][t]+=v;
+  }
+  public PathLayout getLayout(){
+    return(PathLayout.COMPONENT_MAJOR);
+  }
+  
+  public void clear(){
+    for(int j=0; j<this.dim; j++){
+      Arrays.fill(this.values[j], 0.0);
+    }
+  }
+  
+  void midpoints(int first, int stride, int count, double height, double[] g){
+    int half=stride/2;
+    for(int j=0; j<this.dim; j++){ // one component at a time : the block of supports stays in cache
+      double[] v=this.values[j];
+      int st=first;
+      for(int k=0, gk=j; k<count; k++, gk+=this.dim){
+        v[st+half]=0.5*(v[st]+v[st+stride])+height*g[gk];
+        st+=stride;
+      }
+    }
+  }
+  
+  void interpolate(int stride, int first, int last){
+    double inv=1/(double)(stride);
+    for(int j=0; j<this.dim; j++){
+      double[] v=this.values[j];
+      for(int st=first; st<last; st+=stride){
+        double b0=v[st];
+        double slope=(v[st+stride]-b0)*inv;
+        for(int i=1; i<stride; i++){
+          v[st+i]=b0+i*slope;
+        }
+      }
+    }
+  }
+  
+  void resample(SchauderBasis plan, int from, int to){
+    int low=Math.max(from, 1); // index 0 is a node
+    if(plan.isStepped()){
+      int M=plan.getNodeCount(), last=plan.getLength()-1;
+      double inv=1/(double)(last);
+      for(int j=0; j<this.dim; j++){
+        double[] v=this.values[j];
+        int q=plan.getNode(to-1);
+        long r=(long)(to-1)*M-(long)(q)*last; // i*M-q*last
+        for(int i=to-1; i>=low; i--){
+          double b0=v[q];
+          v[i]=(r==0?b0:b0+(v[q+1]-b0)*(r*inv));
+          r-=M;
+          if(r<0){
+            r+=last;
+            q--;
+          }
+        }
+      }
+      return;
+    }
+    int[] node=plan.getNodes();
+    double[] weight=plan.getWeights();
+    for(int j=0; j<this.dim; j++){
+      double[] v=this.values[j];
+      for(int i=to-1; i>=low; i--){
+        int q=node[i];
+        double w=weight[i];
+        double b0=v[q];
+        v[i]=(w==0?b0:b0+(v[q+1]-b0)*w);
+      }
+    }
+  }
+  
+  void offset(double[] x){
+    for(int j=0; j<this.dim; j++){
+      double[] v=this.values[j];
+      double a=x[j];
+      for(int t=0; t<this.len; t++){
+        v[t]+=a;
+      }
+    }
+  }
+  
+  public DoubleBuffer getComponentView(int j){
+    return(DoubleBuffer.wrap(this.values[j]));
+  }
+  
+  public double[] getComponent(int j){
+    // Returns the table of the j-th component itself (no copy), for kernels working on plain tables.
+    return(this.values[j]);
+  }
+  public double[][] getComponents(){
+    // Returns the tables of all the components themselves (no copy).
+    return(this.values);
+  }
+  //-----------------------------------------------------------
+}
@@ -0,0 +1,119 @@
+// Title       : FilePathSink.java
+// Description : This class writes a path received segment by
+//               segment to a file, as raw little-endian doubles
+//               (or floats) in time-major order, optionally
+//               behind a NumPy .npy header (same formats as
+//               Generator).
+// Author      : agent.
+// Date        : 2026.
+// Notes       : Close it once the whole path is written.
+
+package BrownianGenerator;
+
+import java.io.Closeable; // for try-with-resources
+import java.io.IOException; // for file writing
+import java.nio.ByteBuffer; // for file writing
+import java.nio.ByteOrder; // little-endian
+import java.nio.DoubleBuffer; // for file writing
+import java.nio.FloatBuffer; // for file writing
+import java.nio.channels.FileChannel; // for file writing
+import java.nio.file.Paths; // for file writing
+import java.nio.file.StandardOpenOption; // for file writing
+
+public class FilePathSink implements PathSink, Closeable{
+  // Attributes //---------------------------------------------
+  private FileChannel channel; // destination file
+  private ByteBuffer bytes; // write buffer
+  private DoubleBuffer values; // view of the write buffer (doubles)
+  private FloatBuffer floats; // view of the write buffer (floats), null for doubles
+  private double[] row; // one time index, for layouts other than interleaved
+  private int dim; // number of components
+  //-----------------------------------------------------------
+  
+  // Constructors //-------------------------------------------
+  public FilePathSink(String fileName, long Kt, int dimension, boolean npy) throws IOException{
+    // Constructor : doubles.
+    this(fileName, Kt, dimension, npy, false);
+  }
+  public FilePathSink(String fileName, long Kt, int dimension, boolean npy, boolean single) throws IOException{
+    // Constructor : creates (or truncates) the file and writes the header.
+    // @param fileName the destination file
+    // @param Kt the number of time indexes of the path (for the header)
+    // @param dimension the number of components
+    // @param npy true for a .npy file, false for raw values
+    // @param single true to write the values as floats, false for doubles
+    this.channel=FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    this.dim=dimension;
+    this.row=new double[dimension];
+    this.bytes=ByteBuffer.allocateDirect(8*Math.max(1<<17, dimension)).order(ByteOrder.LITTLE_ENDIAN); // 1 MiB, one time index at least
+    this.values=this.bytes.asDoubleBuffer();
+    this.floats=(single?this.bytes.asFloatBuffer():null);
+    if(npy){
+      ByteBuffer header=ByteBuffer.wrap(Generator.npyHeader(Kt, dimension, single));
+      while(header.hasRemaining()){
+        this.channel.write(header);
+      }
+    }
+  }
+  //-----------------------------------------------------------
+  
+  // Methods //------------------------------------------------
+  public void accept(long first, PathStorage segment, int count) throws IOException{
+    long t0=(GeneratorStats.ENABLED?System.nanoTime():0);
+    if(this.floats!=null){ // rounded one time index at a time
+      for(int t=0; t<count; t++){
+        if(this.floats.remaining()<this.dim){
+          drain();
+        }
+        segment.get(t, this.row);
+        for(int j=0; j<this.dim; j++){
+          this.floats.put((float)(this.row[j]));
+        }
+      }
+    }
+    else if(segment instanceof InterleavedStorage){ // already in file order
+      double[] v=((InterleavedStorage)segment).getValues();
+      int total=count*this.dim;
+      for(int i=0; i<total; ){
+        int n=Math.min(this.values.remaining(), total-i);
+        this.values.put(v, i, n);
+        i+=n;
+        if(!this.values.hasRemaining()){
+          drain();
+        }
+      }
+    }
+    else{
+      for(int t=0; t<count; t++){
+        if(this.values.remaining()<this.dim){
+          drain();
+        }
+        segment.get(t, this.row);
+        this.values.put(this.row, 0, this.dim);
+      }
+    }
+    if(GeneratorStats.ENABLED){
+      GeneratorStats.exported(null, t0, (this.floats==null?8L:4L)*count*this.dim);
+    }
+  }
+  
+  private void drain() throws IOException{
+    // Writes the content of the buffer to the file.
+    this.bytes.position(0);
+    this.bytes.limit(this.floats==null?this.values.position()*8:this.floats.position()*4);
+    while(this.bytes.hasRemaining()){
+      this.channel.write(this.bytes);
+    }
+    this.bytes.clear();
+    this.values.clear();
+    if(this.floats!=null){
+      this.floats.clear();
+    }
+  }
+  
+  public void close() throws IOException{
+    drain();
+    this.channel.close();
+  }
+  //-----------------------------------------------------------
+}
@@ -0,0 +1,192 @@
+// Title       : FloatStorage.java
+// Description : This class stores a path in single precision,
+//               as one float heap table per component : half the
+//               memory and bandwidth of ComponentMajorStorage,
+//               for ensembles and visualisation.
+// Author      : agent.
+// Date        : 2026.
+// Notes       : The refinement sums the Schauder levels through
+//               the parents of each node, so rounding every node
+//               to a float would let the errors of the coarse
+//               levels pile up. Every node of index multiple of
+//               4 also keeps its rounding residual (a float, an
+//               eighth of the memory of the values), and the
+//               levels down to stride 4 are computed in double
+//               from value+residual (compensated summation) :
+//               each value is then within two float roundings of
+//               the double precision path, whatever the number
+//               of levels.
+
+package BrownianGenerator;
+
+import java.nio.FloatBuffer; // for views
+import java.util.Arrays; // for clear
+
+public class FloatStorage extends PathStorage{
+  // Attributes //---------------------------------------------
+  private static final int SHIFT=2; // log2 of the spacing of the compensated indexes
+  private static final int MASK=(1<<SHIFT)-1;
+  private float[][] values; // values[j][t] is the j-th component at time index t
+  private float[][] low; // low[j][t>>SHIFT] is the rounding residual of values[j][t], for t multiple of 4
+  //-----------------------------------------------------------
+  
+  // Constructors //-------------------------------------------
+  public FloatStorage(int dimension, int Kt){
+    super(dimension, Kt);
+    this.values=new float[dimension][Kt];
+    this.low=new float[dimension][(Kt>>SHIFT)+1];
+  }
+  //-----------------------------------------------------------
+  
+  // Methods //------------------------------------------------
+  private static double exact(float[] v, float[] lo, int t){
+    // Returns the value at index t, with its residual if it has one.
+    return((t&MASK)==0?(double)(v[t])+lo[t>>SHIFT]:v[t]);
+  }
+  
+  private static void store(float[] v, float[] lo, int t, double x){
+    // Stores x at index t, and its residual if the index has one (x-(float)x is exact in double).
+    float f=(float)(x);
+    v[t]=f;
+    if((t&MASK)==0){
+      lo[t>>SHIFT]=(float)(x-f);
+    }
+  }
+  
+  public double get(int t, int j){
+    return(this.values[j][t]);
+  }
+  public void set(int t, int j, double v){
+    store(this.values[j], this.low[j], t, v);
+  }
+  public void add(int t, int j, double v){
+    store(this.values[j], this.low[j], t, exact(this.values[j], this.low[j], t)+v);
+  }
+  public PathLayout getLayout(){
+    return(PathLayout.FLOAT);
+  }
+  
+  public void clear(){
+    for(int j=0; j<this.dim; j++){
+      Arrays.fill(this.values[j], 0f);
+      Arrays.fill(this.low[j], 0f);
+    }
+  }
+  
+  void midpoints(int first, int stride, int count, double height, double[] g){
+    // The supports start on multiples of stride (see Brownian.refineLevels) : for stride>=4 both ends have a residual, and so has the middle for stride>=8. The finest level, half of the values, only needs float arithmetic : its ends are within one rounding of the double precision path, and no level is built on it.
+    int half=stride/2;
+    for(int j=0; j<this.dim; j++){
+      float[] v=this.values[j];
+      float[] lo=this.low[j];
+      int st=first;
+      if(stride==2){
+        for(int k=0, gk=j; k<count; k++, gk+=this.dim){
+          v[st+1]=0.5f*(v[st]+v[st+2])+(float)(height*g[gk]);
+          st+=2;
+        }
+      }
+      else if(stride==4){
+        for(int k=0, gk=j; k<count; k++, gk+=this.dim){
+          v[st+2]=(float)(0.5*(((double)(v[st])+lo[st>>SHIFT])+((double)(v[st+4])+lo[(st+4)>>SHIFT]))+height*g[gk]);
+          st+=4;
+        }
+      }
+      else{
+        for(int k=0, gk=j; k<count; k++, gk+=this.dim){
+          double x=0.5*(((double)(v[st])+lo[st>>SHIFT])+((double)(v[st+stride])+lo[(st+stride)>>SHIFT]))+height*g[gk];
+          float f=(float)(x);
+          v[st+half]=f;
+          lo[(st+half)>>SHIFT]=(float)(x-f);
+          st+=stride;
+        }
+      }
+    }
+  }
+  
+  void interpolate(int stride, int first, int last){
+    // The values are written first, then the residuals of the indexes multiple of 4, so that the inner loops have no branch.
+    double inv=1/(double)(stride);
+    for(int j=0; j<this.dim; j++){
+      float[] v=this.values[j];
+      float[] lo=this.low[j];
+      for(int st=first; st<last; st+=stride){
+        double b0=exact(v, lo, st);
+        double slope=(exact(v, lo, st+stride)-b0)*inv;
+        for(int i=1; i<stride; i++){
+          v[st+i]=(float)(b0+i*slope);
+        }
+        for(int i=MASK+1-(st&MASK); i<stride; i+=MASK+1){
+          lo[(st+i)>>SHIFT]=(float)(b0+i*slope-v[st+i]);
+        }
+      }
+    }
+  }
+  
+  private static double resampled(float[] v, int[] node, double[] weight, int i){
+    // Returns the value of index i interpolated between its two nodes, read as floats (within one rounding of the double precision path).
+    int q=node[i];
+    double w=weight[i];
+    double b0=v[q];
+    return(w==0?b0:b0+(v[q+1]-b0)*w);
+  }
+  
+  void resample(SchauderBasis plan, int from, int to){
+    // The residuals are only written, for a later refinement : the indexes go by groups of 4, the last one of a group being the multiple of 4, so that the inner loop has no branch.
+    if(plan.isStepped()){ // get and set read and store the same floats
+      super.resample(plan, from, to);
+      return;
+    }
+    int[] node=plan.getNodes();
+    double[] weight=plan.getWeights();
+    int low=Math.max(from, 1); // index 0 is a node
+    for(int j=0; j<this.dim; j++){
+      float[] v=this.values[j];
+      float[] lo=this.low[j];
+      int i=to-1;
+      for(; i>=low && (i&MASK)!=MASK; i--){ // down to the first group
+        store(v, lo, i, resampled(v, node, weight, i));
+      }
+      for(; i-MASK>=low; i-=MASK+1){ // i-3 is a multiple of 4
+        v[i]=(float)(resampled(v, node, weight, i));
+        v[i-1]=(float)(resampled(v, node, weight, i-1));
+        v[i-2]=(float)(resampled(v, node, weight, i-2));
+        double x=resampled(v, node, weight, i-3);
+        float f=(float)(x);
+        v[i-3]=f;
+        lo[(i-3)>>SHIFT]=(float)(x-f);
+      }
+      for(; i>=low; i--){
+        store(v, lo, i, resampled(v, node, weight, i));
+      }
+    }
+  }
+  
+  void offset(double[] x){
+    for(int j=0; j<this.dim; j++){
+      float[] v=this.values[j];
+      float[] lo=this.low[j];
+      double a=x[j];
+      for(int t=0; t<this.len; t++){
+        store(v, lo, t, exact(v, lo, t)+a);
+      }
+    }
+  }
+  
+  public FloatBuffer getFloatView(int j){
+    // Returns a view (no copy) of the Kt values of the j-th component (getComponentView needs doubles).
+    // @param j the component
+    // @return a read-write view, index t holding the value at time index t (writing through it does not update the residuals)
+    return(FloatBuffer.wrap(this.values[j]));
+  }
+  
+  public float[] getComponent(int j){
+    // Returns the table of the j-th component itself (no copy).
+    return(this.values[j]);
+  }
+  public float[][] getComponents(){
+    // Returns the tables of all the components themselves (no copy).
+    return(this.values);
+  }
+  //-----------------------------------------------------------
+}
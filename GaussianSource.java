@@ -0,0 +1,25 @@
+// Title       : GaussianSource.java
+// Description : This interface describes a source of standard
+//               Gaussian numbers, drawn by whole blocks, used to
+//               get the coefficients of the decomposition.
+// Author      : agent.
+// Date        : 2026.
+// Notes       : None.
+
+package BrownianGenerator;
+
+public interface GaussianSource{
+  // Methods //------------------------------------------------
+  public void fill(double[] g, int offset, int length);
+    // Fills a part of a table with independent standard Gaussian numbers.
+    // @param g the table to fill
+    // @param offset the index of the first value to fill
+    // @param length the number of values to fill
+    // @return void
+  
+  public GaussianSource derive(long stream);
+    // Returns an independent source, determined by this one and by the stream identifier only, whatever was drawn before. It is used to give each path of an ensemble its own reproducible stream.
+    // @param stream the stream identifier
+    // @return a new source
+  //-----------------------------------------------------------
+}
@@ -10,13 +10,65 @@
 package BrownianGenerator;
 
 import java.io.*; // for file export
+import java.nio.ByteBuffer; // for binary export
+import java.nio.ByteOrder; // for binary export
+import java.nio.DoubleBuffer; // for binary export
+import java.nio.FloatBuffer; // for binary export
+import java.nio.MappedByteBuffer; // for binary export
+import java.nio.channels.FileChannel; // for binary export
+import java.nio.charset.StandardCharsets; // for binary export
+import java.nio.file.Paths; // for binary export
+import java.nio.file.StandardOpenOption; // for binary export
+import java.security.SecureRandom; // for the seed of regenerable archives and of scrambled Sobol points
 import java.util.Arrays; // useful ?
 import java.util.HashMap; // for arguments parsing
 import java.util.Map; // for arguments parsing
 
 public class Generator{
+  // Manual //-------------------------------------------------
+  static final String MANUAL="Manual :\n"+
+                             "> Command line :\n"+
+                             ">> java -jar BrownianGenerator.jar  kt=...\n"+
+                             "                                   [d=...]\n"+
+                             "                                   [c=...]\n"+
+                             "                                   [n=...] [tolerance=...]\n"+
+                             "                                   [start=...]\n"+
+                             "                                   [seed=...]\n"+
+                             "                                   [rng=...]\n"+
+                             "                                   [output=...]\n"+
+                             "                                   [output-format=...] [archive=...]\n"+
+                             "                                   [segment=...] [parallel]\n"+
+                             "                                   [precision=...]\n"+
+                             "                                   [process=...] [drift=...] [covariance=...] [theta=...]\n"+
+                             "                                   [stats]\n"+
+                             ">> java -jar BrownianGenerator.jar  batch=... [batch-format=...] [threads=...] [default options]\n"+
+                             "> Options :\n"+
+                             ">> kt : wanted number of discretisation points (mandatory),\n"+
+                             ">> d : wanted Brownian motion dimension (optionnal, default at 1),\n"+
+                             ">> c : wanted Brownian motion length (optionnal, default at 1),\n"+
+                             ">> n : wanted cutting point in the decomposition, or auto for the smallest one using all the levels the discretisation resolves (optionnal, default at 15),\n"+
+                             ">> tolerance : wanted sup-norm error of the truncation ; n is then the smallest cutting point whose estimated error is under it, or auto if the discretisation does not allow it (optionnal, the estimate is given in the characteristics),\n"+
+                             ">> start : starting point ([...,...,...] format, according to the wanted dimension, optionnal, default at [0]),\n"+
+                             ">> seed : seed of the random generator, for reproducible paths (optionnal, default is a random seed),\n"+
+                             ">> rng : Gaussian generator, ziggurat, philox or sobol (Owen-scrambled by the seed, or by a random one) (optionnal, default at ziggurat),\n"+
+                             ">> output : optionnal destination file,\n"+
+                             ">> output-format : format of the destination file, text, npy, raw or archive (optionnal, default at text ; archives are read with BrownianGenerator.PathArchiveReader),\n"+
+                             ">> archive : compressed (the values, without loss, 6 to 7 bytes per value, 3 in single precision) or regenerable (only the parameters, the path being generated again on reading, for a Brownian motion without process) (optionnal, default at compressed),\n"+
+                             ">> segment : generates and writes the path by segments of at most this many points, so that its length is not limited by the memory (binary output formats only, optionnal),\n"+
+                             ">> parallel : generates the path in memory over all the processors, by subtrees refined from their own streams ; the path does not depend on the number of processors, but differs from the sequential one when more than 2^16 dyadic intervals are refined (optionnal, not with segment, archive=regenerable or rng=sobol),\n"+
+                             ">> precision : double or float ; float paths are generated and stored in single precision, and written as 4-byte floats by npy and raw (optionnal, default at double),\n"+
+                             ">> process : brownian (drift and correlation), gbm (geometric Brownian motion started at start) or ou (Ornstein-Uhlenbeck process started at start) (optionnal, default is the plain Brownian motion),\n"+
+                             ">> drift : drift of the process, or long-term mean for ou ([...,...] format, optionnal, default at zero),\n"+
+                             ">> covariance : d x d covariance matrix of the process increments per unit of time, row by row ([...,...] format, optionnal, default is the identity),\n"+
+                             ">> theta : mean reversion rate of ou, one value or one per component (mandatory for ou),\n"+
+                             ">> batch : manifest of jobs, one set of the options above per line (key=value separated by spaces, CSV with a header line, or JSONL objects), each job needing its own output file (\"{index}\" in output is replaced by the job index, and must appear in a default output) ; the options given besides batch are defaults,\n"+
+                             ">> batch-format : lines, csv or jsonl (optionnal, default from the manifest extension),\n"+
+                             ">> threads : number of workers of a batch (optionnal, default at the number of processors),\n"+
+                             ">> stats : prints the time spent in each phase of the generation and the counters at the end (optionnal).";
+  //-----------------------------------------------------------
+  
   // Utilitary methods //--------------------------------------
-  private static Map<String, String> parseArgs(String[] tab){
+  static Map<String, String> parseArgs(String[] tab){
     Map<String, String> params=new HashMap<String, String>();
     String full="";
     for(int i=0; i<tab.length; i++){
@@ -32,42 +84,157 @@ public class Generator{
   }
   
   public static void exportToFile(Brownian b, String fileName){
-    Writer out;
-    String tmp;
     try{
-      out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileName), "UTF-8"));
-      try {
-        out.write(b.getCharacteristics());
-        out.write("\r\n");
-        for(int i=0; i<b.getLength(); i++){
-          tmp="";
-          for(int j=0; j<b.getDim(); j++){
-            tmp+=Util.formatDouble(b.get(i)[j]);
-            if(j<b.getDim()-1){tmp+=" ";}
+      writeText(b, new FileOutputStream(fileName));
+    }
+    catch(FileNotFoundException e){
+      System.err.println("Error : FileNotFoundException. See stack trace below."); e.printStackTrace(); System.exit(-1);
+    }
+    catch(IOException e){
+      System.err.println("Error : IOException. See stack trace below."); e.printStackTrace(); System.exit(-1);
+    }
+  }
+  
+  public static void exportToNpy(Brownian b, String fileName){
+    // Exports the path as a NumPy .npy file : a Kt x d array of little-endian doubles (floats for a path in the FLOAT layout), in time-major order, loadable with np.load(fileName, mmap_mode='r').
+    // @param b the Brownian motion to export
+    // @param fileName the destination file
+    // @return void
+    byte[] header=npyHeader(b.getLength(), b.getDim(), isSingle(b));
+    exportBinary(b, fileName, header);
+  }
+  
+  public static void exportToArchive(Brownian b, String fileName){
+    // Exports the path as a one-path archive, compressed without loss (see PathArchiveWriter).
+    // @param b the Brownian motion to export
+    // @param fileName the destination file
+    // @return void
+    try(PathArchiveWriter w=new PathArchiveWriter(fileName)){
+      w.write(b);
+    }
+    catch(IOException e){
+      System.err.println("Error : IOException. See stack trace below."); e.printStackTrace(); System.exit(-1);
+    }
+  }
+  
+  static byte[] npyHeader(long rows, int columns){
+    // Same as npyHeader(rows, columns, false) : doubles.
+    return(npyHeader(rows, columns, false));
+  }
+  
+  static byte[] npyHeader(long rows, int columns, boolean single){
+    // Returns the header of a NumPy .npy file (version 1.0) describing a rows x columns array of little-endian doubles or floats, in C order, padded so that the data start is aligned on 64 bytes.
+    // @param rows the number of rows (time indexes)
+    // @param columns the number of columns (components)
+    // @param single true for floats ('<f4'), false for doubles ('<f8')
+    // @return the header
+    String dict="{'descr': '"+(single?"<f4":"<f8")+"', 'fortran_order': False, 'shape': ("+rows+", "+columns+"), }";
+    int headerLength=10+dict.length()+1; // magic, version, header length, dictionary and final newline
+    int padding=(64-headerLength%64)%64; // the data start is aligned on 64 bytes
+    byte[] header=new byte[headerLength+padding];
+    byte[] magic={(byte)0x93, 'N', 'U', 'M', 'P', 'Y', 1, 0};
+    System.arraycopy(magic, 0, header, 0, magic.length);
+    int dictLength=header.length-10;
+    header[8]=(byte)(dictLength&0xFF); // little-endian unsigned short
+    header[9]=(byte)((dictLength>>8)&0xFF);
+    byte[] d=dict.getBytes(StandardCharsets.US_ASCII);
+    System.arraycopy(d, 0, header, 10, d.length);
+    for(int i=10+d.length; i<header.length-1; i++){
+      header[i]=' ';
+    }
+    header[header.length-1]='\n';
+    return(header);
+  }
+  
+  static boolean isSingle(Brownian b){
+    // Returns true if the path is stored, and so written, in single precision.
+    return(b.getStorage().getLayout()==PathLayout.FLOAT);
+  }
+  
+  public static void exportToRaw(Brownian b, String fileName){
+    // Exports the path as raw little-endian doubles (floats for a path in the FLOAT layout), in time-major order (Kt x d values, no header).
+    // @param b the Brownian motion to export
+    // @param fileName the destination file
+    // @return void
+    exportBinary(b, fileName, new byte[0]);
+  }
+  
+  private static void exportBinary(Brownian b, String fileName, byte[] header){
+    // Writes a header followed by the path values through memory-mapped windows of the destination file.
+    // @param b the Brownian motion to export
+    // @param fileName the destination file
+    // @param header the bytes to write before the values
+    // @return void
+    final long window=1L<<26; // bytes mapped at once (a multiple of 8)
+    long t0=(GeneratorStats.ENABLED?System.nanoTime():0);
+    GeneratorStats.ExportEvent event=(GeneratorStats.ENABLED?GeneratorStats.exportEvent(header.length==0?"raw":"npy"):null);
+    int dim=b.getDim();
+    long total=(long)(b.getLength())*dim; // number of values
+    boolean single=isSingle(b);
+    int size1=(single?4:8); // bytes per value
+    double[] chunk=new double[Math.max(dim, 8192-8192%dim)]; // whole rows (one at least), gathered from the components
+    try(FileChannel ch=FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)){
+      MappedByteBuffer mb=ch.map(FileChannel.MapMode.READ_WRITE, 0, header.length);
+      mb.put(header);
+      long position=header.length;
+      long v=0; // index of the next value
+      int t=0; // next time index to gather
+      int filled=0, used=0; // values in the chunk, values of the chunk already written
+      while(v<total){
+        long size=Math.min(window, (total-v)*size1);
+        ByteBuffer mapped=ch.map(FileChannel.MapMode.READ_WRITE, position, size).order(ByteOrder.LITTLE_ENDIAN);
+        DoubleBuffer db=(single?null:mapped.asDoubleBuffer());
+        FloatBuffer fb=(single?mapped.asFloatBuffer():null);
+        while(single?fb.hasRemaining():db.hasRemaining()){
+          if(used==filled){ // gather the next rows
+            filled=0;
+            used=0;
+            while(filled<chunk.length && t<b.getLength()){
+              for(int j=0; j<dim; j++){
+                chunk[filled++]=b.get(t, j);
+              }
+              t++;
+            }
+          }
+          int n=Math.min(filled-used, single?fb.remaining():db.remaining());
+          if(single){
+            for(int k=used; k<used+n; k++){
+              fb.put((float)(chunk[k]));
+            }
+          }
+          else{
+            db.put(chunk, used, n);
           }
-          out.write(tmp);
-          out.write("\r\n");
+          used+=n;
+          v+=n;
         }
-        out.close();
+        position+=size;
       }
-      catch(IOException e){
-        System.err.println("Error : IOException. See stack trace below."); e.printStackTrace(); System.exit(-1);
+      if(GeneratorStats.ENABLED){
+        GeneratorStats.exported(event, t0, position);
       }
     }
-    catch(FileNotFoundException e){
-      System.err.println("Error : FileNotFoundException. See stack trace below."); e.printStackTrace(); System.exit(-1);
+    catch(IOException e){
+      System.err.println("Error : IOException. See stack trace below."); e.printStackTrace(); System.exit(-1);
     }
-    catch(UnsupportedEncodingException e){
-      System.err.println("Error : UnsupportedEncodingException. See stack trace below."); e.printStackTrace(); System.exit(-1);
+  }
+  
+  private static void printStats(){
+    // Prints the summary of GeneratorStats to the error stream, if the instrumentation is enabled (stats option).
+    if(GeneratorStats.ENABLED){
+      System.err.println(GeneratorStats.summary());
     }
   }
   
-  private static double[] parseArray(String s){
+  private static double[] parseArray(String s, String option){
+    // Parses an option formatted as [x,y,...].
+    // @param s the value of the option
+    // @param option the name of the option, for the error messages
+    // @return the values
     double[] ar=new double[4];
     String tmp="";
-    if(!s.substring(0, 1).equals("[") || !s.substring(s.length()-1, s.length()).equals("]")){
-      System.err.println("Error : the start point must be formatted with \"[\" as starting character and with \"]\" as last character.");
-      System.exit(-1);
+    if(!s.startsWith("[") || !s.endsWith("]")){
+      throw new IllegalArgumentException("option "+option+" must be formatted with \"[\" as starting character and with \"]\" as last character.");
     }
     else{
       tmp=s.substring(1, s.length()-1);
@@ -75,105 +242,459 @@ public class Generator{
       ar=new double[parts.length];
       for(int i=0; i<parts.length; i++){
         try{ar[i]=Double.parseDouble(parts[i]);}
-        catch(NumberFormatException e){System.err.println("Error : one coordinate of the start point is not parseable into double."); System.exit(-1);};
+        catch(NumberFormatException e){throw new IllegalArgumentException("one coordinate of option "+option+" is not parseable into double.");}
       }
     }
     return(ar);
   }
+  
+  static void writeText(Brownian b, OutputStream out) throws IOException{
+    // Writes the path in the text format of exportToFile : the characteristics, then one line per time index.
+    // @param b the Brownian motion to write
+    // @param out the destination stream, closed at the end
+    // @return void
+    long t0=(GeneratorStats.ENABLED?System.nanoTime():0);
+    GeneratorStats.ExportEvent e=(GeneratorStats.ENABLED?GeneratorStats.exportEvent("text"):null);
+    TextEncoder te=new TextEncoder(out);
+    te.writeText(b.getCharacteristics());
+    te.writeByte('\r'); te.writeByte('\n');
+    for(int i=0; i<b.getLength(); i++){
+      for(int j=0; j<b.getDim(); j++){
+        te.writeDouble(b.get(i, j));
+        if(j<b.getDim()-1){te.writeByte(' ');}
+      }
+      te.writeByte('\r'); te.writeByte('\n');
+    }
+    te.close();
+    if(GeneratorStats.ENABLED){
+      GeneratorStats.exported(e, t0, te.getBytesWritten());
+    }
+  }
+  
+  static void writeBinary(Brownian b, OutputStream out, boolean npy) throws IOException{
+    // Writes the path in the npy or raw format of exportToNpy and exportToRaw (floats for a path in the FLOAT layout), to a stream.
+    // @param b the Brownian motion to write
+    // @param out the destination stream, not closed
+    // @param npy true for the npy format, false for raw values
+    // @return void
+    long t0=(GeneratorStats.ENABLED?System.nanoTime():0);
+    GeneratorStats.ExportEvent e=(GeneratorStats.ENABLED?GeneratorStats.exportEvent(npy?"npy":"raw"):null);
+    long header=0;
+    boolean single=isSingle(b);
+    int size1=(single?4:8); // bytes per value
+    if(npy){
+      byte[] h=npyHeader(b.getLength(), b.getDim(), single);
+      out.write(h);
+      header=h.length;
+    }
+    byte[] bytes=new byte[8*Math.max(8192, b.getDim())];
+    ByteBuffer bb=ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    for(int t=0; t<b.getLength(); t++){
+      if(bb.remaining()<size1*b.getDim()){
+        out.write(bytes, 0, bb.position());
+        bb.clear();
+      }
+      for(int j=0; j<b.getDim(); j++){
+        if(single){
+          bb.putFloat((float)(b.get(t, j)));
+        }
+        else{
+          bb.putDouble(b.get(t, j));
+        }
+      }
+    }
+    out.write(bytes, 0, bb.position());
+    out.flush();
+    if(GeneratorStats.ENABLED){
+      GeneratorStats.exported(e, t0, header+(long)(size1)*b.getLength()*b.getDim());
+    }
+  }
+  
+  static void writeArchive(Options o, Brownian b, OutputStream out, int threads) throws IOException{
+    // Writes a path as a one-path archive (see PathArchiveWriter) : its parameters (archive=regenerable), the path in memory, or the path generated by segments.
+    // @param o the options of the path
+    // @param b the path in memory, null if it is regenerable or segmented (it is then generated here)
+    // @param out the destination, closed at the end
+    // @param threads the threads of a segmented generation (see SegmentedBrownian.generate)
+    // @return void
+    try(PathArchiveWriter w=new PathArchiveWriter(out, PathArchiveWriter.DEFAULT_CHUNK)){
+      if(o.regenerable){
+        w.writeRegenerable(o.kt, o.d, o.c, o.n, o.start, o.single, o.rng, o.seed, -1, o.segment);
+      }
+      else if(b!=null){
+        w.write(b);
+      }
+      else{
+        SegmentedBrownian sb=new SegmentedBrownian(o.kt, o.d, o.c, o.n, o.newSource(), o.segment, o.start);
+        try(PathArchiveWriter.Entry e=w.begin(o.kt, o.d, o.c, o.n, o.start, o.single)){
+          sb.generate((o.process==null?e:new TransformSink(e, o.newTransform(), o.start, o.kt, o.c)), threads);
+        }
+      }
+    }
+  }
+  
   //-----------------------------------------------------------
   
-  // Main method //--------------------------------------------
-  public static void main(String[] args){
-    // Declarations and default parameters //------------------
-    boolean export=false;
-    boolean startPointSpecified=false;
-    int kt=0;
+  // Options //------------------------------------------------
+  static class Options{
+    // The generation parameters of a command line (or of a server request, see GeneratorServer), checked without exiting.
+    static final String[] NAMES={"kt", "d", "c", "n", "tolerance", "start", "seed", "rng", "output", "output-format", "archive", "segment", "parallel", "precision", "process", "drift", "covariance", "theta"};
+    long kt=0;
     int d=1;
     int n=15;
+    boolean autoCut=false; // n=auto, or a tolerance : n is derived from kt and c
+    double tolerance=0; // wanted truncation error, 0 for none
     double c=1.0;
-    String exportFilename="";
-    double[] startPoint=new double[1];
-    //---------------------------------------------------------
+    long seed=0;
+    boolean seedSpecified=false;
+    String rng="ziggurat";
+    String output=null; // destination file, null for the standard output
+    String outputFormat="text";
+    boolean regenerable=false; // archive=regenerable : the parameters of the path only
+    int segment=0; // segment length, 0 when the path is held in memory
+    boolean parallel=false; // path in memory generated by subtrees over a pool (see Brownian)
+    boolean single=false; // precision=float : single precision paths and output
+    double[] start=null; // starting point, null for the origin
+    String process=null; // brownian, gbm or ou, null for the plain Brownian motion
+    double[] drift=null; // drift (or long-term mean for ou), null for zeros
+    double[] covariance=null; // d x d covariance, row by row, null for the identity
+    double[] theta=null; // mean reversion rates (ou)
+    
+    PathLayout layout(){
+      // Returns the layout of the paths held in memory.
+      return(this.single?PathLayout.FLOAT:PathLayout.COMPONENT_MAJOR);
+    }
+    
+    ProcessTransform newTransform(){
+      // Returns a new transform for the process options, null for the plain Brownian motion.
+      if(this.process==null){
+        return(null);
+      }
+      return(new ProcessTransform(ProcessTransform.Process.valueOf(this.process.toUpperCase()), this.d, this.drift, this.covariance, this.theta));
+    }
     
+    static Options parse(Map<String, String> pMap){
+      // Reads and checks the options of a command line.
+      return(parse(pMap, true));
+    }
+    
+    static Options parse(Map<String, String> pMap, boolean toFile){
+      // Reads and checks the options.
+      // @param pMap the options, as returned by parseArgs
+      // @param toFile true if the path is written by this process to the output option (command line), false if it is written to a stream (server)
+      // @return the options
+      // @throws IllegalArgumentException with the error message if an option is invalid
+      Options o=new Options();
+      if(!pMap.containsKey("kt")){ // essential
+        throw new IllegalArgumentException("parameter kt is mandatory. Type :\n java -jar BrownianGenerator.jar help\nto show a short manual.");
+      }
+      for(String p : NAMES){
+        if(pMap.containsKey(p)){
+          String value=pMap.get(p);
+          switch(p){
+            case "kt" :
+              try{o.kt=Long.parseLong(value);}
+              catch(NumberFormatException e){throw new IllegalArgumentException("option kt is not parseable into integer.");}
+              break;
+            case "d" :
+              try{o.d=Integer.parseInt(value);}
+              catch(NumberFormatException e){throw new IllegalArgumentException("option d is not parseable into integer.");}
+              break;
+            case "c" :
+              try{o.c=Double.parseDouble(value);}
+              catch(NumberFormatException e){throw new IllegalArgumentException("option c is not parseable into double.");}
+              break;
+            case "n" :
+              if(value.equals("auto")){
+                o.autoCut=true;
+                break;
+              }
+              try{o.n=Integer.parseInt(value);}
+              catch(NumberFormatException e){throw new IllegalArgumentException("option n is not parseable into integer (or auto).");}
+              break;
+            case "tolerance" :
+              try{o.tolerance=Double.parseDouble(value);}
+              catch(NumberFormatException e){throw new IllegalArgumentException("option tolerance is not parseable into double.");}
+              if(!(o.tolerance>0)){
+                throw new IllegalArgumentException("tolerance is incorrect (tolerance="+value+").");
+              }
+              if(pMap.containsKey("n") && !pMap.get("n").equals("auto")){
+                throw new IllegalArgumentException("options n and tolerance cannot be used together, tolerance chooses n.");
+              }
+              o.autoCut=true;
+              break;
+            case "start" :
+              o.start=parseArray(value, "start");
+              break;
+            case "seed" :
+              try{o.seed=Long.parseLong(value);}
+              catch(NumberFormatException e){throw new IllegalArgumentException("option seed is not parseable into long.");}
+              o.seedSpecified=true;
+              break;
+            case "rng" :
+              if(!value.equals("ziggurat") && !value.equals("philox") && !value.equals("sobol")){
+                throw new IllegalArgumentException("option rng must be ziggurat, philox or sobol (rng="+value+").");
+              }
+              o.rng=value;
+              break;
+            case "output" :
+              o.output=value;
+              break;
+            case "output-format" :
+              if(!value.equals("text") && !value.equals("npy") && !value.equals("raw") && !value.equals("archive")){
+                throw new IllegalArgumentException("option output-format must be text, npy, raw or archive (output-format="+value+").");
+              }
+              o.outputFormat=value;
+              break;
+            case "archive" :
+              if(!value.equals("compressed") && !value.equals("regenerable")){
+                throw new IllegalArgumentException("option archive must be compressed or regenerable (archive="+value+").");
+              }
+              if(!"archive".equals(pMap.get("output-format"))){
+                throw new IllegalArgumentException("option archive needs output-format=archive.");
+              }
+              o.regenerable=value.equals("regenerable");
+              break;
+            case "segment" :
+              try{o.segment=Integer.parseInt(value);}
+              catch(NumberFormatException e){throw new IllegalArgumentException("option segment is not parseable into integer.");}
+              if(o.segment<2){
+                throw new IllegalArgumentException("segment length is incorrect (segment="+value+").");
+              }
+              break;
+            case "parallel" :
+              if(!value.equals("1") && !value.equals("true") && !value.equals("false")){
+                throw new IllegalArgumentException("option parallel takes no value, or true or false (parallel="+value+").");
+              }
+              o.parallel=!value.equals("false");
+              break;
+            case "precision" :
+              if(!value.equals("double") && !value.equals("float")){
+                throw new IllegalArgumentException("option precision must be double or float (precision="+value+").");
+              }
+              o.single=value.equals("float");
+              break;
+            case "process" :
+              if(!value.equals("brownian") && !value.equals("gbm") && !value.equals("ou")){
+                throw new IllegalArgumentException("option process must be brownian, gbm or ou (process="+value+").");
+              }
+              o.process=value;
+              break;
+            case "drift" :
+              o.drift=parseArray(value, "drift");
+              break;
+            case "covariance" :
+              o.covariance=parseArray(value, "covariance");
+              break;
+            case "theta" :
+              if(value.startsWith("[")){
+                o.theta=parseArray(value, "theta");
+              }
+              else{
+                try{o.theta=new double[]{Double.parseDouble(value)};}
+                catch(NumberFormatException e){throw new IllegalArgumentException("option theta is not parseable into double.");}
+              }
+              break;
+          }
+        }
+      }
+      
+      // Post-verifications :
+      if(o.kt<=0){
+        throw new IllegalArgumentException("interval discretisation is impossible (Kt="+o.kt+").");
+      }
+      if(o.d<=0){
+        throw new IllegalArgumentException("dimension is incorrect (d="+o.d+").");
+      }
+      if(!(o.c>0)){
+        throw new IllegalArgumentException("interval length is incorrect (c="+o.c+").");
+      }
+      if(o.autoCut){
+        o.n=(o.tolerance>0?SchauderWavelet.cutFor(o.kt, o.c, o.tolerance):SchauderWavelet.autoCut(o.kt));
+      }
+      if(o.n<0){
+        throw new IllegalArgumentException("cut index is incorrect (N="+o.n+").");
+      }
+      if(o.start!=null && o.start.length!=o.d){
+        throw new IllegalArgumentException("starting point dimension and Brownian motion dimension must be the same (given dimensions : "+o.start.length+" and "+o.d+", respectively).");
+      }
+      if(o.process==null && (o.drift!=null || o.covariance!=null)){ // a drift or a covariance alone : correlated Brownian motion
+        o.process="brownian";
+      }
+      if(o.theta!=null && !"ou".equals(o.process)){
+        throw new IllegalArgumentException("option theta needs process=ou.");
+      }
+      if(o.process!=null){ // checks the transform parameters and the starting point
+        o.newTransform().start((o.start==null?new double[o.d]:o.start), 2, 1.0);
+      }
+      if(o.regenerable){
+        if(o.process!=null){
+          throw new IllegalArgumentException("regenerable archives only hold Brownian motions, use archive=compressed for a process.");
+        }
+        if(!o.seedSpecified){ // the seed must be known to be archived
+          o.seed=new SecureRandom().nextLong();
+          o.seedSpecified=true;
+        }
+      }
+      if(o.parallel){
+        if(o.segment>0){
+          throw new IllegalArgumentException("options parallel and segment cannot be used together, segmented generation is already parallel.");
+        }
+        if(o.regenerable){
+          throw new IllegalArgumentException("a path generated in parallel cannot be archived as regenerable, use archive=compressed.");
+        }
+        if(o.rng.equals("sobol")){
+          throw new IllegalArgumentException("parallel generation cannot use rng=sobol (the subtrees use derived streams, which are other Sobol points).");
+        }
+      }
+      if(!toFile){
+        if(o.segment>0){
+          throw new IllegalArgumentException("segmented generation is only available from the command line.");
+        }
+        if(o.kt>Integer.MAX_VALUE){
+          throw new IllegalArgumentException("kt is too large for a path in memory (kt="+o.kt+").");
+        }
+        return(o);
+      }
+      if(o.output==null && !o.outputFormat.equals("text")){
+        throw new IllegalArgumentException("binary output formats need a destination file (output=...).");
+      }
+      if(o.segment>0 && (o.output==null || o.outputFormat.equals("text"))){
+        throw new IllegalArgumentException("segmented generation needs a binary output format (output=... output-format=npy or raw).");
+      }
+      if(o.segment>0 && o.rng.equals("sobol")){
+        throw new IllegalArgumentException("segmented generation cannot use rng=sobol (the segments use derived streams, which are other Sobol points).");
+      }
+      if(o.segment==0 && o.kt>Integer.MAX_VALUE){
+        throw new IllegalArgumentException("kt is too large for a path in memory (kt="+o.kt+"), use segment=... .");
+      }
+      return(o);
+    }
+    
+    GaussianSource newSource(){
+      // Returns the Gaussian source asked for.
+      if(this.seedSpecified){
+        return(newSource(this.rng, this.seed));
+      }
+      if(this.rng.equals("philox")){
+        return(new PhiloxGaussianSource());
+      }
+      else if(this.rng.equals("sobol")){ // scrambled by a random seed : the first point of the plain sequence is the centre of the cube, that means a flat path
+        return(new SobolGaussianSource(new SecureRandom().nextLong()));
+      }
+      else{
+        return(new ZigguratGaussianSource());
+      }
+    }
+    
+    static GaussianSource newSource(String rng, long seed){
+      // Returns the Gaussian source of a generator and a seed (shared with PathArchiveReader).
+      // @param rng ziggurat, philox or sobol
+      // @param seed the seed
+      // @return the source
+      if(rng.equals("philox")){
+        return(new PhiloxGaussianSource(seed));
+      }
+      else if(rng.equals("sobol")){ // the seed selects the Owen scrambling
+        return(new SobolGaussianSource(seed));
+      }
+      else{
+        return(new ZigguratGaussianSource(seed));
+      }
+    }
+  }
+  //-----------------------------------------------------------
+  
+  // Main method //--------------------------------------------
+  public static void main(String[] args){
     // Arguments parsing //------------------------------------
     Map<String, String> pMap=parseArgs(args);
-    String[] parameters={"kt", "d", "c", "n", "start", "output"};
     if(pMap.containsKey("help")){ // The user needs help.
-      System.out.println("Manual :\n"+
-                         "> Command line :\n"+
-                         ">> java -jar BrownianGenerator.jar  kt=...\n"+
-                         "                                   [d=...]\n"+
-                         "                                   [c=...]\n"+
-                         "                                   [n=...]\n"+
-                         "                                   [start=...]\n"+
-                         "                                   [output=...]\n"+
-                         "> Options :\n"+
-                         ">> kt : wanted number of discretisation points (mandatory),\n"+
-                         ">> d : wanted Brownian motion dimension (optionnal, default at 1),\n"+
-                         ">> c : wanted Brownian motion length (optionnal, default at 1),\n"+
-                         ">> n : wanted cutting point in the decomposition (optionnal, default at 15),\n"+
-                         ">> start : starting point ([...,...,...] format, according to the wanted dimension, optionnal, default at [0]),\n"+
-                         ">> output : optionnal destination file.");
+      System.out.println(MANUAL);
       System.exit(-1);
     }
-    if(!pMap.containsKey("kt")){ // essential
-      System.err.println("Error : parameter kt is mandatory. Type :\n java -jar BrownianGenerator.jar help\nto show a short manual.");
-      System.exit(-1);
+    if(pMap.containsKey("stats")){ // must be set before GeneratorStats is loaded, that means before any generation
+      System.setProperty("BrownianGenerator.stats", "true");
     }
-    for(String p : parameters){
-      if(pMap.containsKey(p)){
-        String value=pMap.get(p);
-        switch(p){
-          case "kt" :
-            try{kt=Integer.parseInt(value);}
-            catch(NumberFormatException e){System.err.println("Error : option kt is not parseable into integer."); System.exit(-1);}
-            break;
-          case "d" :
-            try{d=Integer.parseInt(value);}
-            catch(NumberFormatException e){System.err.println("Error : option d is not parseable into integer."); System.exit(-1);}
-            break;
-          case "c" :
-            try{c=Double.parseDouble(value);}
-            catch(NumberFormatException e){System.err.println("Error : option c is not parseable into double."); System.exit(-1);}
-            break;
-          case "n" :
-            try{n=Integer.parseInt(value);}
-            catch(NumberFormatException e){System.err.println("Error : option n is not parseable into integer."); System.exit(-1);}
-            break;
-          case "start" :
-            startPoint=parseArray(value);
-            startPointSpecified=true;
-            System.out.println("lle");
-            break;
-          case "output" :
-            export=true;
-            exportFilename=value;
-            break;
-        }
+    if(pMap.containsKey("batch")){ // many paths in this JVM, the other options being defaults
+      Map<String, String> defaults=new HashMap<String, String>(pMap);
+      defaults.remove("batch");
+      defaults.remove("batch-format");
+      defaults.remove("threads");
+      defaults.remove("stats");
+      String format=pMap.get("batch-format");
+      if(format!=null && !format.equals("lines") && !format.equals("csv") && !format.equals("jsonl")){
+        System.err.println("Error : option batch-format must be lines, csv or jsonl (batch-format="+format+").");
+        System.exit(-1);
+      }
+      int threads=Runtime.getRuntime().availableProcessors();
+      if(pMap.containsKey("threads")){
+        try{threads=Integer.parseInt(pMap.get("threads"));}
+        catch(NumberFormatException e){System.err.println("Error : option threads is not parseable into integer."); System.exit(-1);}
+      }
+      boolean success=false;
+      try{
+        success=new GeneratorBatch(pMap.get("batch"), format, defaults, threads).run();
       }
+      catch(IOException e){
+        System.err.println("Error : cannot read the manifest \""+pMap.get("batch")+"\" ("+e.getMessage()+").");
+        System.exit(-1);
+      }
+      printStats();
+      System.exit(success?0:-1);
     }
-    //---------------------------------------------------------
-
-    // Post-verifications //-----------------------------------
-    if(startPointSpecified && startPoint.length!=d){
-      System.err.println("Error : starting point dimension and Brownian motion dimension must be the same (given dimensions : "+startPoint.length+" and "+d+", respectively).");
+    Options o=null;
+    try{
+      o=Options.parse(pMap);
+    }
+    catch(IllegalArgumentException e){
+      System.err.println("Error : "+e.getMessage());
       System.exit(-1);
     }
     //---------------------------------------------------------
     
-    // Generation //-------------------------------------------
-    Brownian b=new Brownian(kt, d, c, n);
-    if(startPointSpecified){b.changeStartPoint(startPoint);}
-    //---------------------------------------------------------
-    
-    // Execution //--------------------------------------------
-    if(export){
-      exportToFile(b, exportFilename);
-      System.out.println("Brownian motion successfully exported to \""+exportFilename+"\".");
+    // Generation and execution //-----------------------------
+    if(o.tolerance>0 && SchauderWavelet.truncationError(o.kt, o.c, o.n)>o.tolerance){
+      System.err.println("Warning : the discretisation does not allow the tolerance (tolerance="+o.tolerance+", estimated error="+SchauderWavelet.truncationError(o.kt, o.c, o.n)+"), all the levels it resolves are used (n="+o.n+").");
+    }
+    if(o.outputFormat.equals("archive") && (o.regenerable || o.segment>0)){ // nothing to hold in memory
+      try{
+        writeArchive(o, null, new FileOutputStream(o.output), 0);
+      }
+      catch(IOException e){
+        System.err.println("Error : IOException. See stack trace below."); e.printStackTrace(); System.exit(-1);
+      }
+      System.out.println("Brownian motion successfully exported to \""+o.output+"\".");
+      printStats();
+      return;
+    }
+    GaussianSource gs=o.newSource();
+    if(o.segment>0){ // streamed to the file, never held in memory
+      SegmentedBrownian sb=new SegmentedBrownian(o.kt, o.d, o.c, o.n, gs, o.segment, o.start);
+      try(FilePathSink sink=new FilePathSink(o.output, o.kt, o.d, o.outputFormat.equals("npy"), o.single)){
+        sb.generate(o.process==null?sink:new TransformSink(sink, o.newTransform(), o.start, o.kt, o.c));
+      }
+      catch(IOException e){
+        System.err.println("Error : IOException. See stack trace below."); e.printStackTrace(); System.exit(-1);
+      }
+      System.out.println("Brownian motion successfully exported to \""+o.output+"\".");
+      printStats();
+      return;
+    }
+    Brownian b=(o.parallel?new Brownian((int)(o.kt), o.d, o.c, o.n, gs, o.layout(), o.start, o.newTransform(), 0):new Brownian((int)(o.kt), o.d, o.c, o.n, gs, o.layout(), o.start, o.newTransform()));
+    if(o.output!=null){
+      switch(o.outputFormat){
+        case "npy" : exportToNpy(b, o.output); break;
+        case "raw" : exportToRaw(b, o.output); break;
+        case "archive" : exportToArchive(b, o.output); break;
+        default : exportToFile(b, o.output); break;
+      }
+      System.out.println("Brownian motion successfully exported to \""+o.output+"\".");
     }
     else{
       System.out.println(b);
     }
+    printStats();
     //---------------------------------------------------------
   }
   //-----------------------------------------------------------
@@ -0,0 +1,403 @@
+// Title       : GeneratorBatch.java
+// Description : This class runs the jobs of a manifest (one
+//               parameter set per line, CSV or JSONL) in a
+//               single JVM over a pool of workers, each job
+//               writing its own output file, and reports a
+//               summary at the end (see Generator, option
+//               batch).
+// Author      : agent.
+// Date        : 2026.
+// Notes       : The options given on the command line besides
+//               batch are defaults for all the jobs, and
+//               "{index}" in an output name is replaced by the
+//               index of the job (a default output must contain
+//               it). Two jobs may not write the same file.
+
+package BrownianGenerator;
+
+import java.io.*; // for the manifest and the outputs
+import java.nio.charset.StandardCharsets; // for the manifest
+import java.nio.file.Files; // for the manifest
+import java.nio.file.Paths; // for the manifest
+import java.util.ArrayList; // for jobs
+import java.util.Collections; // for grouping
+import java.util.Comparator; // for grouping
+import java.util.HashMap; // for job options
+import java.util.List; // for jobs
+import java.util.Locale; // for the summary
+import java.util.Map; // for job options
+import java.util.concurrent.ExecutorService; // for the workers
+import java.util.concurrent.Executors; // for the workers
+import java.util.concurrent.TimeUnit; // for the workers
+import java.util.concurrent.atomic.AtomicInteger; // for the job queue
+
+public class GeneratorBatch{
+  // Attributes //---------------------------------------------
+  private List<Job> jobs=new ArrayList<Job>(); // in manifest order
+  private int threads; // number of workers
+  //-----------------------------------------------------------
+  
+  // Constructors //-------------------------------------------
+  public GeneratorBatch(String fileName, String format, Map<String, String> defaults, int threads) throws IOException{
+    // Constructor : reads the manifest. Invalid lines become failed jobs, they do not stop the batch.
+    // @param fileName the manifest
+    // @param format lines, csv or jsonl (null to guess from the file extension)
+    // @param defaults the options applying to all the jobs, unless a job gives its own
+    // @param threads the number of workers
+    if(threads<=0){
+      System.err.println("Error : number of threads is incorrect (threads="+threads+").");
+      System.exit(-1);
+    }
+    this.threads=threads;
+    if(format==null){
+      String lower=fileName.toLowerCase(Locale.ROOT);
+      format=(lower.endsWith(".csv")?"csv":(lower.endsWith(".jsonl") || lower.endsWith(".ndjson")?"jsonl":"lines"));
+    }
+    List<String> lines=Files.readAllLines(Paths.get(fileName), StandardCharsets.UTF_8);
+    String[] header=null;
+    Map<String, Job> outputs=new HashMap<String, Job>(); // resolved output path -> job writing it
+    for(int i=0; i<lines.size(); i++){
+      String line=lines.get(i).trim();
+      if(line.isEmpty() || line.startsWith("#")){
+        continue;
+      }
+      if(format.equals("csv") && header==null){ // first line : option names
+        header=splitCsv(line).toArray(new String[0]);
+        continue;
+      }
+      Job job=new Job(this.jobs.size(), i+1);
+      this.jobs.add(job);
+      try{
+        Map<String, String> own;
+        switch(format){
+          case "csv" : own=parseCsv(header, line); break;
+          case "jsonl" : own=parseJson(line); break;
+          default : own=Generator.parseArgs(line.split("\\s+")); break;
+        }
+        Map<String, String> options=new HashMap<String, String>(defaults);
+        options.putAll(own);
+        if(!options.containsKey("output")){
+          throw new IllegalArgumentException("each job needs its own output file (output=..., \"{index}\" being replaced by the job index).");
+        }
+        if(!own.containsKey("output") && !options.get("output").contains("{index}")){ // all the jobs would write the same file
+          throw new IllegalArgumentException("the default output must contain \"{index}\" (output="+options.get("output")+").");
+        }
+        String output=options.get("output").replace("{index}", Integer.toString(job.index));
+        String path=Paths.get(output).toAbsolutePath().normalize().toString();
+        if(outputs.containsKey(path)){
+          Job other=outputs.get(path);
+          throw new IllegalArgumentException("output "+output+" is already the output of job "+other.index+" (line "+other.line+").");
+        }
+        outputs.put(path, job);
+        options.put("output", output);
+        job.options=Generator.Options.parse(options);
+      }
+      catch(IllegalArgumentException e){
+        job.error=e.getMessage();
+      }
+    }
+  }
+  //-----------------------------------------------------------
+  
+  // Methods //------------------------------------------------
+  public boolean run(){
+    // Runs the jobs and prints the summary. Jobs are handed to the workers sorted by kt, d and precision, so that a worker mostly runs jobs of the same size in a row and keeps its wavelet and buffer.
+    // @param void
+    // @return true if all the jobs succeeded
+    final List<Job> queue=new ArrayList<Job>();
+    for(Job job : this.jobs){
+      if(job.error==null){
+        queue.add(job);
+      }
+    }
+    Collections.sort(queue, new Comparator<Job>(){
+      public int compare(Job a, Job b){
+        int r=Long.compare(a.options.kt, b.options.kt);
+        if(r==0){
+          r=Integer.compare(a.options.d, b.options.d);
+        }
+        return(r!=0?r:Boolean.compare(a.options.single, b.options.single));
+      }
+    });
+    final AtomicInteger next=new AtomicInteger(0);
+    long start=System.nanoTime();
+    ExecutorService workers=Executors.newFixedThreadPool(this.threads);
+    for(int w=0; w<this.threads; w++){
+      workers.execute(new Runnable(){
+        public void run(){
+          SchauderWavelet sw=null; // kept while kt and d do not change
+          PathStorage buffer=null;
+          int i;
+          while((i=next.getAndIncrement())<queue.size()){
+            Job job=queue.get(i);
+            Generator.Options o=job.options;
+            long t0=System.nanoTime();
+            try{
+              if(o.outputFormat.equals("archive") && (o.regenerable || o.segment>0)){
+                Generator.writeArchive(o, null, new FileOutputStream(o.output), 1); // the batch is already parallel
+              }
+              else if(o.segment>0){
+                SegmentedBrownian sb=new SegmentedBrownian(o.kt, o.d, o.c, o.n, o.newSource(), o.segment, o.start);
+                try(FilePathSink sink=new FilePathSink(o.output, o.kt, o.d, o.outputFormat.equals("npy"), o.single)){
+                  sb.generate(o.process==null?sink:new TransformSink(sink, o.newTransform(), o.start, o.kt, o.c), 1); // the batch is already parallel
+                }
+              }
+              else{
+                int kt=(int)(o.kt);
+                if(buffer==null || buffer.getLength()!=kt || buffer.getDim()!=o.d || buffer.getLayout()!=o.layout()){
+                  sw=new SchauderWavelet(kt);
+                  buffer=PathStorage.allocate(o.layout(), o.d, kt);
+                }
+                Brownian b=new Brownian(kt, o.d, o.c, o.n, o.newSource(), sw, buffer, o.start, Brownian.FinalPass.of(o.newTransform(), new PathStatistic[0]), (o.parallel?1:Brownian.SEQUENTIAL)); // parameters already checked, one thread for parallel paths since the batch is already parallel
+                try(OutputStream out=new BufferedOutputStream(new FileOutputStream(o.output), 1<<16)){
+                  if(o.outputFormat.equals("text")){
+                    Generator.writeText(b, out);
+                  }
+                  else if(o.outputFormat.equals("archive")){
+                    Generator.writeArchive(o, b, out, 1);
+                  }
+                  else{
+                    Generator.writeBinary(b, out, o.outputFormat.equals("npy"));
+                  }
+                }
+              }
+            }
+            catch(IOException | RuntimeException e){
+              job.error=e.toString();
+            }
+            catch(OutOfMemoryError e){
+              buffer=null;
+              sw=null;
+              job.error="not enough memory ("+e.getMessage()+").";
+            }
+            job.nanos=System.nanoTime()-t0;
+          }
+        }
+      });
+    }
+    workers.shutdown();
+    try{
+      workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+    catch(InterruptedException e){
+      Thread.currentThread().interrupt();
+    }
+    return(summary(System.nanoTime()-start));
+  }
+  
+  private boolean summary(long wall){
+    // Prints the timings of the batch and the failed jobs.
+    // @param wall the elapsed time, in nanoseconds
+    // @return true if all the jobs succeeded
+    int failed=0;
+    long min=Long.MAX_VALUE, max=0, total=0;
+    double values=0;
+    for(Job job : this.jobs){
+      if(job.error!=null){
+        failed++;
+        continue;
+      }
+      min=Math.min(min, job.nanos);
+      max=Math.max(max, job.nanos);
+      total+=job.nanos;
+      values+=(double)(job.options.kt)*job.options.d;
+    }
+    int done=this.jobs.size()-failed;
+    System.out.println(String.format(Locale.US, "Batch : %d jobs, %d succeeded, %d failed, %d workers, %.3f s.", this.jobs.size(), done, failed, this.threads, wall*1e-9));
+    if(done>0){
+      System.out.println(String.format(Locale.US, "Job times : min %.3f ms, mean %.3f ms, max %.3f ms ; %.3e values/s.", min*1e-6, total*1e-6/done, max*1e-6, values/(wall*1e-9)));
+    }
+    for(Job job : this.jobs){
+      if(job.error!=null){
+        System.err.println("Error : job "+job.index+" (line "+job.line+") : "+job.error);
+      }
+    }
+    return(failed==0);
+  }
+  
+  private static List<String> splitCsv(String line){
+    // Splits a CSV line on commas, fields between double quotes possibly holding commas ("" being a quote).
+    // @param line the line
+    // @return the fields, trimmed
+    List<String> fields=new ArrayList<String>();
+    StringBuilder field=new StringBuilder();
+    boolean quoted=false;
+    for(int i=0; i<line.length(); i++){
+      char ch=line.charAt(i);
+      if(quoted){
+        if(ch=='"' && i+1<line.length() && line.charAt(i+1)=='"'){
+          field.append('"');
+          i++;
+        }
+        else if(ch=='"'){
+          quoted=false;
+        }
+        else{
+          field.append(ch);
+        }
+      }
+      else if(ch=='"'){
+        quoted=true;
+      }
+      else if(ch==','){
+        fields.add(field.toString().trim());
+        field.setLength(0);
+      }
+      else{
+        field.append(ch);
+      }
+    }
+    fields.add(field.toString().trim());
+    return(fields);
+  }
+  
+  private static Map<String, String> parseCsv(String[] header, String line){
+    // Reads the options of a CSV line, empty fields being left to the defaults.
+    List<String> fields=splitCsv(line);
+    if(fields.size()!=header.length){
+      throw new IllegalArgumentException("the line has "+fields.size()+" fields, the header "+header.length+".");
+    }
+    Map<String, String> options=new HashMap<String, String>();
+    for(int i=0; i<header.length; i++){
+      if(!fields.get(i).isEmpty()){
+        options.put(header[i], fields.get(i));
+      }
+    }
+    return(options);
+  }
+  
+  static Map<String, String> parseJson(String line){
+    // Reads the options of a JSON object written on one line, whose values are numbers, strings, booleans or arrays of numbers (for start).
+    // @param line the line
+    // @return the options, as they would be written on the command line
+    Map<String, String> options=new HashMap<String, String>();
+    int[] pos={0};
+    expect(line, pos, '{');
+    if(peek(line, pos)=='}'){
+      pos[0]++;
+      return(options);
+    }
+    while(true){
+      String key=jsonString(line, pos);
+      expect(line, pos, ':');
+      char ch=peek(line, pos);
+      String value;
+      if(ch=='"'){
+        value=jsonString(line, pos);
+      }
+      else if(ch=='['){ // array of numbers, as the start option
+        pos[0]++;
+        StringBuilder array=new StringBuilder("[");
+        if(peek(line, pos)==']'){
+          pos[0]++;
+        }
+        else{
+          while(true){
+            array.append(jsonLiteral(line, pos));
+            char sep=peek(line, pos);
+            pos[0]++;
+            if(sep==']'){
+              break;
+            }
+            if(sep!=','){
+              throw new IllegalArgumentException("invalid JSON array at character "+pos[0]+".");
+            }
+            array.append(',');
+          }
+        }
+        value=array.append(']').toString();
+      }
+      else{
+        value=jsonLiteral(line, pos);
+      }
+      options.put(key, value);
+      char sep=peek(line, pos);
+      pos[0]++;
+      if(sep=='}'){
+        break;
+      }
+      if(sep!=','){
+        throw new IllegalArgumentException("invalid JSON object at character "+pos[0]+".");
+      }
+    }
+    return(options);
+  }
+  
+  private static char peek(String s, int[] pos){
+    // Skips the blanks and returns the next character.
+    while(pos[0]<s.length() && Character.isWhitespace(s.charAt(pos[0]))){
+      pos[0]++;
+    }
+    if(pos[0]>=s.length()){
+      throw new IllegalArgumentException("unexpected end of the JSON line.");
+    }
+    return(s.charAt(pos[0]));
+  }
+  
+  private static void expect(String s, int[] pos, char ch){
+    if(peek(s, pos)!=ch){
+      throw new IllegalArgumentException("'"+ch+"' expected at character "+(pos[0]+1)+" of the JSON line.");
+    }
+    pos[0]++;
+  }
+  
+  private static String jsonString(String s, int[] pos){
+    // Reads a JSON string (escapes \" \\ \/ \n \t and \\uXXXX).
+    expect(s, pos, '"');
+    StringBuilder r=new StringBuilder();
+    while(pos[0]<s.length()){
+      char ch=s.charAt(pos[0]++);
+      if(ch=='"'){
+        return(r.toString());
+      }
+      if(ch=='\\' && pos[0]<s.length()){
+        char e=s.charAt(pos[0]++);
+        switch(e){
+          case 'n' : r.append('\n'); break;
+          case 't' : r.append('\t'); break;
+          case 'u' :
+            if(pos[0]+4>s.length()){
+              throw new IllegalArgumentException("invalid JSON escape.");
+            }
+            r.append((char)(Integer.parseInt(s.substring(pos[0], pos[0]+4), 16)));
+            pos[0]+=4;
+            break;
+          default : r.append(e); break;
+        }
+      }
+      else{
+        r.append(ch);
+      }
+    }
+    throw new IllegalArgumentException("unterminated JSON string.");
+  }
+  
+  private static String jsonLiteral(String s, int[] pos){
+    // Reads a JSON number or boolean, kept as written.
+    peek(s, pos);
+    int begin=pos[0];
+    while(pos[0]<s.length() && "+-.eE0123456789truefalsn".indexOf(s.charAt(pos[0]))>=0){
+      pos[0]++;
+    }
+    if(begin==pos[0]){
+      throw new IllegalArgumentException("invalid JSON value at character "+(begin+1)+".");
+    }
+    return(s.substring(begin, pos[0]));
+  }
+  //-----------------------------------------------------------
+  
+  // Jobs //---------------------------------------------------
+  private static class Job{
+    private int index; // index in the manifest, from 0
+    private int line; // line of the manifest
+    private Generator.Options options; // null if the line is invalid
+    private volatile String error; // null while the job has not failed
+    private volatile long nanos; // generation and writing time
+    
+    private Job(int index, int line){
+      this.index=index;
+      this.line=line;
+    }
+  }
+  //-----------------------------------------------------------
+}
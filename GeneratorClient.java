@@ -0,0 +1,124 @@
+// Title       : GeneratorClient.java
+// Description : This class sends a request to a GeneratorServer
+//               and writes the answer as Generator would : it
+//               takes the same options, plus the address of the
+//               server, so that it can replace the command line.
+// Author      : agent.
+// Date        : 2026.
+// Notes       : See GeneratorServer for the protocol.
+
+package BrownianGenerator;
+
+import java.io.*; // for streams
+import java.net.SocketAddress; // for both transports
+import java.net.StandardProtocolFamily; // for Unix domain sockets
+import java.net.UnixDomainSocketAddress; // for Unix domain sockets
+import java.nio.channels.Channels; // for streams
+import java.nio.channels.SocketChannel; // for both transports
+import java.nio.charset.StandardCharsets; // for the protocol
+import java.util.Map; // for arguments parsing
+
+public class GeneratorClient implements Closeable{
+  // Attributes //---------------------------------------------
+  private SocketChannel channel; // connection to the server
+  private InputStream in; // answers
+  private OutputStream out; // requests
+  //-----------------------------------------------------------
+  
+  // Constructors //-------------------------------------------
+  public GeneratorClient(SocketAddress address) throws IOException{
+    // Constructor : connects to the server.
+    // @param address an InetSocketAddress or a UnixDomainSocketAddress
+    this.channel=(address instanceof UnixDomainSocketAddress?SocketChannel.open(StandardProtocolFamily.UNIX):SocketChannel.open());
+    this.channel.connect(address);
+    this.in=new BufferedInputStream(Channels.newInputStream(this.channel), 1<<16);
+    this.out=new BufferedOutputStream(Channels.newOutputStream(this.channel));
+  }
+  //-----------------------------------------------------------
+  
+  // Methods //------------------------------------------------
+  public void request(String options, OutputStream destination) throws IOException{
+    // Sends a request and copies the path to a stream. Several requests may be sent over the same client.
+    // @param options the Generator options separated by spaces, output excepted (for instance "kt=1025 d=2 seed=3 output-format=npy")
+    // @param destination the stream receiving the path, in the requested format
+    // @return void
+    // @throws IllegalArgumentException with the message of the server if the request is invalid
+    this.out.write((options.replace('\n', ' ')+"\n").getBytes(StandardCharsets.UTF_8));
+    this.out.flush();
+    String status=GeneratorServer.readLine(this.in);
+    if(status==null){
+      throw new EOFException("connection closed by the server");
+    }
+    if(status.startsWith("ERROR ")){
+      throw new IllegalArgumentException(status.substring(6));
+    }
+    if(!status.equals("OK")){
+      throw new IOException("unexpected answer from the server : "+status);
+    }
+    DataInputStream data=new DataInputStream(this.in);
+    byte[] buffer=new byte[1<<16];
+    int size;
+    while((size=data.readInt())>0){
+      while(size>0){
+        int n=data.read(buffer, 0, Math.min(size, buffer.length));
+        if(n<0){
+          throw new EOFException("connection closed by the server");
+        }
+        destination.write(buffer, 0, n);
+        size-=n;
+      }
+    }
+    destination.flush();
+  }
+  
+  public void close() throws IOException{
+    this.channel.close();
+  }
+  //-----------------------------------------------------------
+  
+  // Main method //--------------------------------------------
+  public static void main(String[] args){
+    Map<String, String> pMap=Generator.parseArgs(args);
+    if(pMap.containsKey("help")){
+      System.out.println("Manual :\n"+
+                         "> Command line :\n"+
+                         ">> java -cp BrownianGenerator.jar BrownianGenerator.GeneratorClient port=...|socket=... kt=... [other Generator options]\n"+
+                         "> Options :\n"+
+                         ">> port : loopback TCP port of the server,\n"+
+                         ">> socket : Unix domain socket file of the server (instead of port),\n"+
+                         ">> other options : see java -jar BrownianGenerator.jar help (segment excepted).");
+      System.exit(-1);
+    }
+    SocketAddress address=GeneratorServer.address(pMap);
+    StringBuilder options=new StringBuilder();
+    for(String arg : args){
+      if(!arg.startsWith("port=") && !arg.startsWith("socket=") && !arg.startsWith("output=")){
+        options.append(arg).append(' ');
+      }
+    }
+    String output=pMap.get("output");
+    try(GeneratorClient client=new GeneratorClient(address)){
+      if(output!=null){
+        try(OutputStream file=new BufferedOutputStream(new FileOutputStream(output), 1<<16)){
+          client.request(options.toString(), file);
+        }
+        System.out.println("Brownian motion successfully exported to \""+output+"\".");
+      }
+      else{
+        if(pMap.containsKey("output-format") && !pMap.get("output-format").equals("text")){
+          System.err.println("Error : binary output formats need a destination file (output=...).");
+          System.exit(-1);
+        }
+        client.request(options.toString(), System.out);
+      }
+    }
+    catch(IllegalArgumentException e){
+      System.err.println("Error : "+e.getMessage());
+      System.exit(-1);
+    }
+    catch(IOException e){
+      System.err.println("Error : IOException. See stack trace below."); e.printStackTrace(); System.exit(-1);
+    }
+  }
+  //-----------------------------------------------------------
+}
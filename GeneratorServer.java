@@ -0,0 +1,307 @@
+// Title       : GeneratorServer.java
+// Description : This class is a long-running generator service,
+//               listening on loopback TCP or on a Unix domain
+//               socket : it takes the options of Generator and
+//               returns the paths, without a JVM start per
+//               path (see GeneratorClient).
+// Author      : agent.
+// Date        : 2026.
+// Notes       : Protocol : the client sends one request per
+//               line (UTF-8), the Generator options separated
+//               by spaces, output excepted. The server answers
+//               "OK\n" followed by the file content (text, npy,
+//               raw or archive, see output-format) as chunks (32-bit
+//               big-endian length, then the bytes) ended by an
+//               empty chunk, or "ERROR <message>\n". Several
+//               requests may follow on a connection.
+
+package BrownianGenerator;
+
+import java.io.*; // for streams
+import java.net.InetAddress; // for loopback TCP
+import java.net.InetSocketAddress; // for loopback TCP
+import java.net.SocketAddress; // for both transports
+import java.net.StandardProtocolFamily; // for Unix domain sockets
+import java.net.UnixDomainSocketAddress; // for Unix domain sockets
+import java.nio.channels.Channels; // for streams
+import java.nio.channels.ServerSocketChannel; // for both transports
+import java.nio.channels.SocketChannel; // for both transports
+import java.nio.charset.StandardCharsets; // for the protocol
+import java.nio.file.Files; // for Unix domain sockets
+import java.nio.file.Path; // for Unix domain sockets
+import java.util.Map; // for arguments parsing
+import java.util.concurrent.ExecutorService; // for the workers
+import java.util.concurrent.Executors; // for the workers
+
+public class GeneratorServer implements Closeable{
+  // Attributes //---------------------------------------------
+  private static final int MAX_REQUEST=1<<16; // maximal length of a request line, in bytes
+  private static final long MAX_SCRATCH=1L<<22; // maximal number of values of a buffer kept by a worker (32 MiB)
+  private ServerSocketChannel server; // listening channel
+  private Path socketFile; // file of the Unix domain socket (null for TCP)
+  private ExecutorService workers; // one connection per worker at a time
+  private final ThreadLocal<Scratch> scratch=new ThreadLocal<Scratch>(); // per-worker wavelet and buffer
+  //-----------------------------------------------------------
+  
+  // Constructors //-------------------------------------------
+  public GeneratorServer(SocketAddress address, int threads) throws IOException{
+    // Constructor : binds the address.
+    // @param address an InetSocketAddress (loopback TCP) or a UnixDomainSocketAddress
+    // @param threads the number of workers, that means of connections served at once
+    if(threads<=0){
+      System.err.println("Error : number of threads is incorrect (threads="+threads+").");
+      System.exit(-1);
+    }
+    if(address instanceof UnixDomainSocketAddress){
+      this.socketFile=((UnixDomainSocketAddress)address).getPath();
+      this.server=ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+    }
+    else{
+      this.server=ServerSocketChannel.open();
+    }
+    this.server.bind(address);
+    this.workers=Executors.newFixedThreadPool(threads);
+  }
+  //-----------------------------------------------------------
+  
+  // Methods //------------------------------------------------
+  public void serve() throws IOException{
+    // Accepts connections until the server is closed, each one being served by a worker.
+    // @param void
+    // @return void
+    while(this.server.isOpen()){
+      final SocketChannel ch;
+      try{
+        ch=this.server.accept();
+      }
+      catch(IOException e){
+        if(!this.server.isOpen()){ // closed meanwhile
+          return;
+        }
+        throw e;
+      }
+      this.workers.execute(new Runnable(){
+        public void run(){
+          serve(ch);
+        }
+      });
+    }
+  }
+  
+  private void serve(SocketChannel ch){
+    // Answers the requests of a connection until the client closes it.
+    // @param ch the connection
+    // @return void
+    try(SocketChannel c=ch){
+      InputStream in=new BufferedInputStream(Channels.newInputStream(c));
+      OutputStream out=new BufferedOutputStream(Channels.newOutputStream(c), 1<<16);
+      String line;
+      while((line=readLine(in))!=null){
+        if(line.trim().isEmpty()){
+          continue;
+        }
+        answer(line, out);
+        out.flush();
+      }
+    }
+    catch(IOException e){ // connection lost : nothing to answer
+    }
+  }
+  
+  private void answer(String line, OutputStream out) throws IOException{
+    // Generates the path of a request and writes the answer.
+    // @param line the request
+    // @param out the connection
+    // @return void
+    Generator.Options o;
+    try{
+      o=Generator.Options.parse(Generator.parseArgs(line.trim().split(" +")), false);
+    }
+    catch(IllegalArgumentException e){
+      out.write(("ERROR "+e.getMessage().replace('\n', ' ')+"\n").getBytes(StandardCharsets.UTF_8));
+      return;
+    }
+    if(o.regenerable){ // the parameters only
+      out.write("OK\n".getBytes(StandardCharsets.UTF_8));
+      Generator.writeArchive(o, null, new ChunkedOutputStream(out), 1);
+      return;
+    }
+    int kt=(int)(o.kt);
+    Brownian b;
+    try{ // a failure of the generation is answered, the worker and the connection staying usable
+      Scratch s=this.scratch.get();
+      if(s==null || s.buffer.getLength()!=kt || s.buffer.getDim()!=o.d || s.buffer.getLayout()!=o.layout()){
+        this.scratch.remove(); // the previous buffer can be collected before the new one is allocated
+        s=new Scratch(kt, o.d, o.layout());
+        if((long)(kt)*o.d<=MAX_SCRATCH){
+          this.scratch.set(s);
+        }
+      }
+      b=new Brownian(kt, o.d, o.c, o.n, o.newSource(), s.sw, s.buffer, o.start, Brownian.FinalPass.of(o.newTransform(), new PathStatistic[0]), (o.parallel?1:Brownian.SEQUENTIAL)); // parameters already checked, one thread for parallel paths since the connections are served in parallel
+    }
+    catch(RuntimeException | OutOfMemoryError e){
+      String message=(e.getMessage()==null?e.getClass().getSimpleName():e.getClass().getSimpleName()+" : "+e.getMessage());
+      out.write(("ERROR "+message.replace('\n', ' ')+"\n").getBytes(StandardCharsets.UTF_8));
+      return;
+    }
+    out.write("OK\n".getBytes(StandardCharsets.UTF_8));
+    ChunkedOutputStream body=new ChunkedOutputStream(out);
+    switch(o.outputFormat){
+      case "npy" : Generator.writeBinary(b, body, true); break;
+      case "raw" : Generator.writeBinary(b, body, false); break;
+      case "archive" : Generator.writeArchive(o, b, body, 1); break;
+      default : Generator.writeText(b, body); break;
+    }
+    body.close(); // empty chunk, the connection stays open
+  }
+  
+  static String readLine(InputStream in) throws IOException{
+    // Reads a line (UTF-8, ended by '\n').
+    // @param in the stream
+    // @return the line, without its end, or null at the end of the stream
+    ByteArrayOutputStream line=new ByteArrayOutputStream();
+    int b;
+    while((b=in.read())!=-1 && b!='\n'){
+      if(line.size()>=MAX_REQUEST){
+        throw new IOException("line too long");
+      }
+      line.write(b);
+    }
+    if(b==-1 && line.size()==0){
+      return(null);
+    }
+    return(new String(line.toByteArray(), StandardCharsets.UTF_8));
+  }
+  
+  public void close() throws IOException{
+    // Stops accepting connections and lets the workers finish the current requests.
+    this.server.close();
+    this.workers.shutdown();
+    if(this.socketFile!=null){
+      Files.deleteIfExists(this.socketFile);
+    }
+  }
+  
+  static SocketAddress address(Map<String, String> pMap){
+    // Returns the address given by the port or socket option (shared with GeneratorClient).
+    // @param pMap the options
+    // @return the address
+    if(pMap.containsKey("socket")){
+      return(UnixDomainSocketAddress.of(pMap.get("socket")));
+    }
+    if(pMap.containsKey("port")){
+      try{
+        return(new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(pMap.get("port"))));
+      }
+      catch(IllegalArgumentException e){ // includes NumberFormatException
+        System.err.println("Error : option port is incorrect (port="+pMap.get("port")+").");
+        System.exit(-1);
+      }
+    }
+    System.err.println("Error : option port or socket is mandatory.");
+    System.exit(-1);
+    return(null);
+  }
+  //-----------------------------------------------------------
+  
+  // Scratch state //------------------------------------------
+  private static class Scratch{
+    // The wavelet and the buffer of a worker, reused while the requests keep the same kt, d and precision.
+    private SchauderWavelet sw;
+    private PathStorage buffer;
+    
+    private Scratch(int kt, int d, PathLayout layout){
+      this.sw=new SchauderWavelet(kt);
+      this.buffer=PathStorage.allocate(layout, d, kt);
+    }
+  }
+  //-----------------------------------------------------------
+  
+  // Chunked stream //-----------------------------------------
+  static class ChunkedOutputStream extends OutputStream{
+    // Frames the bytes written as chunks : 32-bit big-endian length, then the bytes. Closing (once) writes the empty chunk ending the answer, not closing the underlying stream.
+    private DataOutputStream out;
+    private byte[] buffer=new byte[1<<16];
+    private int size=0;
+    private boolean closed=false; // writers such as TextEncoder close their stream themselves
+    
+    ChunkedOutputStream(OutputStream out){
+      this.out=new DataOutputStream(out);
+    }
+    
+    public void write(int b) throws IOException{
+      if(this.size==this.buffer.length){
+        flushChunk();
+      }
+      this.buffer[this.size++]=(byte)(b);
+    }
+    public void write(byte[] b, int off, int len) throws IOException{
+      while(len>0){
+        if(this.size==this.buffer.length){
+          flushChunk();
+        }
+        int n=Math.min(len, this.buffer.length-this.size);
+        System.arraycopy(b, off, this.buffer, this.size, n);
+        this.size+=n;
+        off+=n;
+        len-=n;
+      }
+    }
+    private void flushChunk() throws IOException{
+      if(this.size>0){
+        this.out.writeInt(this.size);
+        this.out.write(this.buffer, 0, this.size);
+        this.size=0;
+      }
+    }
+    public void flush() throws IOException{ // chunks are only sent when full, the connection is flushed after the answer
+    }
+    public void close() throws IOException{
+      if(this.closed){
+        return;
+      }
+      this.closed=true;
+      flushChunk();
+      this.out.writeInt(0);
+      this.out.flush();
+    }
+  }
+  //-----------------------------------------------------------
+  
+  // Main method //--------------------------------------------
+  public static void main(String[] args){
+    Map<String, String> pMap=Generator.parseArgs(args);
+    if(pMap.containsKey("help")){
+      System.out.println("Manual :\n"+
+                         "> Command line :\n"+
+                         ">> java -cp BrownianGenerator.jar BrownianGenerator.GeneratorServer port=...|socket=... [threads=...]\n"+
+                         "> Options :\n"+
+                         ">> port : loopback TCP port to listen on,\n"+
+                         ">> socket : Unix domain socket file to listen on (instead of port),\n"+
+                         ">> threads : number of connections served at once (optionnal, default at the number of processors).\n"+
+                         "> Requests are sent with BrownianGenerator.GeneratorClient, which takes the same options as the command line.");
+      System.exit(-1);
+    }
+    SocketAddress address=address(pMap);
+    int threads=Runtime.getRuntime().availableProcessors();
+    if(pMap.containsKey("threads")){
+      try{threads=Integer.parseInt(pMap.get("threads"));}
+      catch(NumberFormatException e){System.err.println("Error : option threads is not parseable into integer."); System.exit(-1);}
+    }
+    try{
+      final GeneratorServer gs=new GeneratorServer(address, threads);
+      Runtime.getRuntime().addShutdownHook(new Thread(){
+        public void run(){
+          try{gs.close();}
+          catch(IOException e){} // exiting anyway
+        }
+      });
+      System.out.println("Listening on "+address+" ("+threads+" workers).");
+      gs.serve();
+    }
+    catch(IOException e){
+      System.err.println("Error : IOException. See stack trace below."); e.printStackTrace(); System.exit(-1);
+    }
+  }
+  //-----------------------------------------------------------
+}
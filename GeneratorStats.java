@@ -0,0 +1,182 @@
+// Title       : GeneratorStats.java
+// Description : This class records where the generation time
+//               goes : per-phase timings and counters, published
+//               through JMX, JFR events and the stats option of
+//               Generator.
+// Author      : agent.
+// Date        : 2026.
+// Notes       : Enabled by -DBrownianGenerator.stats=true (or the
+//               stats option of Generator, which sets it before
+//               any generation). ENABLED is a static final, so
+//               the guarded code is removed by the JIT when the
+//               instrumentation is disabled.
+
+package BrownianGenerator;
+
+import java.lang.management.ManagementFactory; // for JMX
+import java.util.concurrent.atomic.LongAdder; // for counters
+import javax.management.ObjectName; // for JMX
+import jdk.jfr.Category; // for JFR events
+import jdk.jfr.Event; // for JFR events
+import jdk.jfr.Label; // for JFR events
+import jdk.jfr.Name; // for JFR events
+
+public class GeneratorStats implements GeneratorStatsMBean{
+  // Attributes //---------------------------------------------
+  static final boolean ENABLED=Boolean.getBoolean("BrownianGenerator.stats");
+  
+  enum Phase{
+    GAUSSIAN("gaussian draws"),
+    REFINEMENT("midpoint refinement"),
+    ACCUMULATION("wavelet accumulation"),
+    INTERPOLATION("interpolation"),
+    EXPORT("export");
+    
+    final String label;
+    final LongAdder nanos=new LongAdder();
+    Phase(String label){
+      this.label=label;
+    }
+  }
+  
+  static final LongAdder PATHS=new LongAdder();
+  static final LongAdder LEVELS=new LongAdder();
+  static final LongAdder WAVELETS=new LongAdder();
+  static final LongAdder GAUSSIANS=new LongAdder();
+  static final LongAdder BYTES=new LongAdder();
+  static final LongAdder ARRAYS=new LongAdder();
+  
+  private static final GeneratorStats INSTANCE=new GeneratorStats();
+  static{
+    if(ENABLED){
+      try{
+        ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName("BrownianGenerator:type=GeneratorStats"));
+      }
+      catch(Exception e){ // JMX unavailable : the counters still work
+        System.err.println("Warning : statistics are not published through JMX ("+e+").");
+      }
+    }
+  }
+  //-----------------------------------------------------------
+  
+  // Constructors //-------------------------------------------
+  private GeneratorStats(){
+  }
+  //-----------------------------------------------------------
+  
+  // Methods //------------------------------------------------
+  static long lap(Phase p, long t0){
+    // Adds the time elapsed since t0 to a phase (to be called under if(ENABLED)).
+    // @param p the phase
+    // @param t0 the start of the phase, as given by System.nanoTime
+    // @return the current time, start of the next phase
+    long t=System.nanoTime();
+    p.nanos.add(t-t0);
+    return(t);
+  }
+  
+  static PathEvent pathEvent(long Kt, int dimension, int N, String mode){
+    // Begins the JFR event of a path generation (to be called under if(ENABLED)), null if JFR does not record it.
+    PathEvent e=new PathEvent();
+    if(!e.isEnabled()){
+      return(null);
+    }
+    e.kt=Kt;
+    e.dimension=dimension;
+    e.cut=N;
+    e.mode=mode;
+    e.begin();
+    return(e);
+  }
+  
+  static ExportEvent exportEvent(String format){
+    // Begins the JFR event of an export (to be called under if(ENABLED)), null if JFR does not record it.
+    ExportEvent e=new ExportEvent();
+    if(!e.isEnabled()){
+      return(null);
+    }
+    e.format=format;
+    e.begin();
+    return(e);
+  }
+  
+  static void exported(ExportEvent e, long t0, long bytes){
+    // Ends an export that started at t0 and wrote the given number of bytes (to be called under if(ENABLED)).
+    lap(Phase.EXPORT, t0);
+    BYTES.add(bytes);
+    if(e!=null){
+      e.bytes=bytes;
+      e.commit();
+    }
+  }
+  
+  public static String summary(){
+    // Returns a readable summary of the counters and of the time spent in each phase.
+    // @param void
+    // @return the summary
+    long total=0;
+    for(Phase p : Phase.values()){
+      total+=p.nanos.sum();
+    }
+    StringBuilder sb=new StringBuilder();
+    sb.append("Stats : "+PATHS.sum()+" paths, "+LEVELS.sum()+" levels, "+WAVELETS.sum()+" wavelets, "+GAUSSIANS.sum()+" gaussians, "+ARRAYS.sum()+" arrays allocated, "+BYTES.sum()+" bytes written.\n");
+    for(Phase p : Phase.values()){
+      long ns=p.nanos.sum();
+      sb.append(String.format("Phase %-20s : %10.3f ms (%5.1f %%)\n", p.label, ns/1e6, (total==0?0:100.0*ns/total)));
+    }
+    sb.append("Basis cache : "+SchauderBasis.getCacheStatus()+".");
+    return(sb.toString());
+  }
+  
+  public static void resetAll(){
+    // Sets all the counters and timings back to zero.
+    for(Phase p : Phase.values()){
+      p.nanos.reset();
+    }
+    PATHS.reset();
+    LEVELS.reset();
+    WAVELETS.reset();
+    GAUSSIANS.reset();
+    BYTES.reset();
+    ARRAYS.reset();
+  }
+  
+  // MBean //
+  public long getPaths(){return(PATHS.sum());}
+  public long getLevels(){return(LEVELS.sum());}
+  public long getWavelets(){return(WAVELETS.sum());}
+  public long getGaussians(){return(GAUSSIANS.sum());}
+  public long getBytesWritten(){return(BYTES.sum());}
+  public long getArraysAllocated(){return(ARRAYS.sum());}
+  public long getGaussianNanos(){return(Phase.GAUSSIAN.nanos.sum());}
+  public long getRefinementNanos(){return(Phase.REFINEMENT.nanos.sum());}
+  public long getAccumulationNanos(){return(Phase.ACCUMULATION.nanos.sum());}
+  public long getInterpolationNanos(){return(Phase.INTERPOLATION.nanos.sum());}
+  public long getExportNanos(){return(Phase.EXPORT.nanos.sum());}
+  public long getBasisCacheHits(){return(SchauderBasis.getHits());}
+  public long getBasisCacheMisses(){return(SchauderBasis.getMisses());}
+  public long getBasisCacheEvictions(){return(SchauderBasis.getEvictions());}
+  public String getSummary(){return(summary());}
+  public void reset(){resetAll();}
+  //-----------------------------------------------------------
+  
+  // JFR events //---------------------------------------------
+  @Name("BrownianGenerator.Path")
+  @Label("Brownian Path Generation")
+  @Category("BrownianGenerator")
+  static class PathEvent extends Event{
+    @Label("Kt") long kt;
+    @Label("Dimension") int dimension;
+    @Label("Cut") int cut;
+    @Label("Mode") String mode;
+  }
+  
+  @Name("BrownianGenerator.Export")
+  @Label("Brownian Path Export")
+  @Category("BrownianGenerator")
+  static class ExportEvent extends Event{
+    @Label("Format") String format;
+    @Label("Bytes") long bytes;
+  }
+  //-----------------------------------------------------------
+}
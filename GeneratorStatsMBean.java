@@ -0,0 +1,29 @@
+// Title       : GeneratorStatsMBean.java
+// Description : This interface exposes the counters of
+//               GeneratorStats through JMX
+//               (BrownianGenerator:type=GeneratorStats).
+// Author      : agent.
+// Date        : 2026.
+// Notes       : Only registered when the instrumentation is
+//               enabled.
+
+package BrownianGenerator;
+
+public interface GeneratorStatsMBean{
+  long getPaths(); // paths generated
+  long getLevels(); // levels of wavelets applied
+  long getWavelets(); // wavelets applied
+  long getGaussians(); // Gaussian values drawn
+  long getBytesWritten(); // bytes exported
+  long getArraysAllocated(); // tables allocated for paths, wavelets and scratch
+  long getGaussianNanos(); // time spent drawing coefficients
+  long getRefinementNanos(); // time spent applying wavelets by midpoint refinement
+  long getAccumulationNanos(); // time spent applying wavelets by accumulation
+  long getInterpolationNanos(); // time spent interpolating, resampling and offsetting
+  long getExportNanos(); // time spent formatting and writing
+  long getBasisCacheHits();
+  long getBasisCacheMisses();
+  long getBasisCacheEvictions();
+  String getSummary();
+  void reset();
+}
@@ -0,0 +1,149 @@
+// Title       : GorillaCodec.java
+// Description : This class compresses runs of path values without
+//               loss, in the way of the Gorilla time series
+//               database : each value is XORed with the previous
+//               one of its component, and only the bits between
+//               the leading and the trailing zeros of the XOR are
+//               kept (see PathArchiveWriter).
+// Author      : agent.
+// Date        : 2026.
+// Notes       : Consecutive values of a path differ by an
+//               increment much smaller than themselves, so their
+//               XOR starts with the shared sign, exponent and
+//               first mantissa bits ; the values of a path in
+//               single precision also end with 29 zero bits.
+//               Per value, after the first one of a component :
+//                 '0'                 same value,
+//                 '10' + bits         XOR inside the previous window,
+//                 '11' + 6 bits of leading zeros + 6 bits of
+//                 length-1 + bits     new window.
+//               Not thread-safe.
+
+package BrownianGenerator;
+
+import java.util.Arrays; // for growing the buffer
+
+public class GorillaCodec{
+  // Attributes //---------------------------------------------
+  private byte[] buf=new byte[1<<12]; // encoded bytes
+  private byte[] src; // bytes to decode
+  private int pos; // bytes written, or next byte to read
+  private long acc; // pending bits (the n lowest ones)
+  private int n; // number of pending bits
+  //-----------------------------------------------------------
+  
+  // Methods //------------------------------------------------
+  public int encode(PathStorage values, int from, int count){
+    // Encodes the values held at the indexes from to from+count-1 of the storage, one component after the other.
+    // @param values the storage holding the values
+    // @param from the index of the first value
+    // @param count the number of time indexes
+    // @return the number of bytes of the encoding, held by getBytes()
+    this.pos=0;
+    this.acc=0;
+    this.n=0;
+    for(int j=0; j<values.getDim(); j++){
+      long prev=Double.doubleToRawLongBits(values.get(from, j));
+      write(prev, 64);
+      int lead=-1, trail=0; // current window (none yet)
+      for(int i=1; i<count; i++){
+        long cur=Double.doubleToRawLongBits(values.get(from+i, j));
+        long x=cur^prev;
+        prev=cur;
+        if(x==0){
+          write(0, 1);
+          continue;
+        }
+        int l=Long.numberOfLeadingZeros(x);
+        int t=Long.numberOfTrailingZeros(x);
+        if(lead>=0 && l>=lead && t>=trail){
+          write(2, 2);
+          write(x>>>trail, 64-lead-trail);
+        }
+        else{
+          int length=64-l-t;
+          write(3, 2);
+          write(l, 6);
+          write(length-1, 6);
+          write(x>>>t, length);
+          lead=l;
+          trail=t;
+        }
+      }
+    }
+    if(this.n>0){ // last byte, padded with zeros
+      put((byte)(this.acc<<(8-this.n)));
+      this.n=0;
+    }
+    return(this.pos);
+  }
+  
+  public byte[] getBytes(){
+    // Returns the buffer holding the last encoding itself (no copy), valid until the next call.
+    return(this.buf);
+  }
+  
+  public void decode(byte[] bytes, PathStorage target, int to, int count){
+    // Decodes the values encoded by encode(values, from, count) into the indexes to to to+count-1 of the storage.
+    // @param bytes the encoding
+    // @param target the storage receiving the values, of the same dimension
+    // @param to the index of the first value
+    // @param count the number of time indexes
+    // @return void
+    this.src=bytes;
+    this.pos=0;
+    this.acc=0;
+    this.n=0;
+    for(int j=0; j<target.getDim(); j++){
+      long prev=read(64);
+      target.set(to, j, Double.longBitsToDouble(prev));
+      int lead=0, trail=0;
+      for(int i=1; i<count; i++){
+        if(read(1)!=0){
+          if(read(1)!=0){
+            lead=(int)(read(6));
+            trail=64-lead-((int)(read(6))+1);
+          }
+          prev^=read(64-lead-trail)<<trail;
+        }
+        target.set(to+i, j, Double.longBitsToDouble(prev));
+      }
+    }
+  }
+  
+  private void write(long value, int bits){
+    // Appends the given number of low bits of value (1 to 64), most significant first.
+    if(bits>32){
+      write(value>>>32, bits-32);
+      bits=32;
+    }
+    this.acc=(this.acc<<bits)|(value&((1L<<bits)-1));
+    this.n+=bits;
+    while(this.n>=8){
+      this.n-=8;
+      put((byte)(this.acc>>>this.n));
+    }
+  }
+  
+  private void put(byte b){
+    if(this.pos==this.buf.length){
+      this.buf=Arrays.copyOf(this.buf, 2*this.buf.length);
+    }
+    this.buf[this.pos++]=b;
+  }
+  
+  private long read(int bits){
+    // Returns the next given number of bits (1 to 64).
+    if(bits>32){
+      long high=read(bits-32);
+      return((high<<32)|read(32));
+    }
+    while(this.n<bits){
+      this.acc=(this.acc<<8)|(this.src[this.pos++]&0xFF);
+      this.n+=8;
+    }
+    this.n-=bits;
+    return((this.acc>>>this.n)&((1L<<bits)-1));
+  }
+  //-----------------------------------------------------------
+}
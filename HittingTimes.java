@@ -0,0 +1,78 @@
+// Title       : HittingTimes.java
+// Description : This class computes, while a path is generated,
+//               the first time indexes at which one component
+//               reaches given levels.
+// Author      : agent.
+// Date        : 2026.
+// Notes       : One instance per path. A level is reached at the
+//               first index where the component is on the other
+//               side of it (or on it) than at index 0.
+
+package BrownianGenerator;
+
+import java.util.Arrays; // for initialisation
+
+public class HittingTimes implements PathStatistic{
+  // Attributes //---------------------------------------------
+  private int component; // observed component
+  private double[] levels; // levels to reach
+  private long[] above; // first time index at which the component is >= the level
+  private long[] below; // first time index at which the component is <= the level
+  private double start; // value at index 0
+  private boolean started=false; // true once index 0 was seen
+  //-----------------------------------------------------------
+  
+  // Constructors //-------------------------------------------
+  public HittingTimes(int component, double... levels){
+    // @param component the observed component
+    // @param levels the levels to reach
+    this.component=component;
+    this.levels=levels.clone();
+    this.above=new long[levels.length];
+    this.below=new long[levels.length];
+    Arrays.fill(this.above, Long.MAX_VALUE);
+    Arrays.fill(this.below, Long.MAX_VALUE);
+  }
+  //-----------------------------------------------------------
+  
+  // Methods //------------------------------------------------
+  public void accept(long first, PathStorage values, int from, int count){
+    // Both first times are kept, since the side of the starting value is only known once index 0 is seen.
+    if(first==0){
+      this.start=values.get(from, this.component);
+      this.started=true;
+    }
+    for(int l=0; l<this.levels.length; l++){
+      double level=this.levels[l];
+      long up=this.above[l], down=this.below[l];
+      for(int i=0; i<count && first+i<up; i++){
+        if(values.get(from+i, this.component)>=level){
+          up=first+i;
+        }
+      }
+      for(int i=0; i<count && first+i<down; i++){
+        if(values.get(from+i, this.component)<=level){
+          down=first+i;
+        }
+      }
+      this.above[l]=up;
+      this.below[l]=down;
+    }
+  }
+  
+  public long get(int l){
+    // Returns the first time index at which the component reaches the l-th level, -1 if it never does.
+    // @param l the index of the level
+    // @return the time index
+    if(!this.started){
+      return(-1);
+    }
+    long t=(this.start<this.levels[l]?this.above[l]:this.below[l]);
+    return(t==Long.MAX_VALUE?-1:t);
+  }
+  
+  public double getLevel(int l){
+    return(this.levels[l]);
+  }
+  //-----------------------------------------------------------
+}
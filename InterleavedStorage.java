@@ -0,0 +1,127 @@
+// Title       : InterleavedStorage.java
+// Description : This class stores a path as a single time-major
+//               heap table : the d components of a time index
+//               are contiguous, which suits per-timestep
+//               consumers and binary export.
+// Author      : agent.
+// Date        : 2026.
+// Notes       : Kt x d must fit in a Java table.
+
+package BrownianGenerator;
+
+import java.nio.DoubleBuffer; // for views
+import java.util.Arrays; // for clear
+
+public class InterleavedStorage extends PathStorage{
+  // Attributes //---------------------------------------------
+  private double[] values; // values[t*d+j] is the j-th component at time index t
+  //-----------------------------------------------------------
+  
+  // Constructors //-------------------------------------------
+  public InterleavedStorage(int dimension, int Kt){
+    super(dimension, Kt);
+    if((long)(dimension)*Kt>Integer.MAX_VALUE-8){
+      System.err.println("Error : path is too large for the interleaved layout (Kt="+Kt+", d="+dimension+"), use the off-heap layout.");
+      System.exit(-1);
+    }
+    this.values=new double[dimension*Kt];
+  }
+  //-----------------------------------------------------------
+  
+  // Methods //------------------------------------------------
+  public double get(int t, int j){
+    return(this.values[t*this.dim+j]);
+  }
+  public void set(int t, int j, double v){
+    this.values[t*this.dim+j]=v;
+  }
+  public void add(int t, int j, double v){
+    this.values[t*this.dim+j]+=v;
+  }
+  public PathLayout getLayout(){
+    return(PathLayout.INTERLEAVED);
+  }
+  
+  public void get(int t, double[] out){
+    System.arraycopy(this.values, t*this.dim, out, 0, this.dim);
+  }
+  
+  public void clear(){
+    Arrays.fill(this.values, 0.0);
+  }
+  
+  void midpoints(int first, int stride, int count, double height, double[] g){
+    // The d components of a node are contiguous, as the d coefficients of a wavelet : the inner loops run over the components, with unit stride.
+    int d=this.dim;
+    int half=stride/2;
+    int st=first;
+    for(int k=0; k<count; k++){
+      int a=st*d, b=(st+stride)*d, m=(st+half)*d, gk=k*d;
+      for(int j=0; j<d; j++){
+        this.values[m+j]=0.5*(this.values[a+j]+this.values[b+j])+height*g[gk+j];
+      }
+      st+=stride;
+    }
+  }
+  
+  void interpolate(int stride, int first, int last){
+    int d=this.dim;
+    double inv=1/(double)(stride);
+    for(int st=first; st<last; st+=stride){
+      int a=st*d, b=(st+stride)*d;
+      for(int i=1; i<stride; i++){
+        int m=(st+i)*d;
+        for(int j=0; j<d; j++){
+          double b0=this.values[a+j];
+          this.values[m+j]=b0+i*((this.values[b+j]-b0)*inv);
+        }
+      }
+    }
+  }
+  
+  void resample(SchauderBasis plan, int from, int to){
+    if(plan.isStepped()){
+      super.resample(plan, from, to);
+      return;
+    }
+    int d=this.dim;
+    int[] node=plan.getNodes();
+    double[] weight=plan.getWeights();
+    int low=Math.max(from, 1); // index 0 is a node
+    for(int i=to-1; i>=low; i--){
+      int a=node[i]*d, m=i*d;
+      double w=weight[i];
+      if(w==0){
+        System.arraycopy(this.values, a, this.values, m, d);
+      }
+      else{
+        for(int j=0; j<d; j++){
+          double b0=this.values[a+j];
+          this.values[m+j]=b0+(this.values[a+d+j]-b0)*w;
+        }
+      }
+    }
+  }
+  
+  void offset(double[] x){
+    int d=this.dim;
+    for(int t=0, m=0; t<this.len; t++, m+=d){
+      for(int j=0; j<d; j++){
+        this.values[m+j]+=x[j];
+      }
+    }
+  }
+  
+  public DoubleBuffer getTimeView(int t){
+    // Returns a view (no copy) of the d components at time index t.
+    // @param t the time index
+    // @return a read-write view, index j holding the j-th component
+    return(DoubleBuffer.wrap(this.values, t*this.dim, this.dim).slice());
+  }
+  
+  public double[] getValues(){
+    // Returns the time-major table itself (no copy).
+    return(this.values);
+  }
+  //-----------------------------------------------------------
+}
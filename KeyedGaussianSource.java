@@ -0,0 +1,100 @@
+// Title       : KeyedGaussianSource.java
+// Description : This class gives each coefficient of the
+//               decomposition its own Gaussian, derived from a
+//               counter-based generator keyed by (seed, j, k) :
+//               any coefficient can be computed directly, in any
+//               order and on any thread.
+// Author      : agent.
+// Date        : 2026.
+// Notes       : As a GaussianSource, it returns the coefficients
+//               in the order used by Brownian (s_1, then the
+//               (j, k) wavelets by increasing j and k, d values
+//               per wavelet). Not thread-safe as a stream.
+
+package BrownianGenerator;
+
+public class KeyedGaussianSource implements GaussianSource{
+  // Attributes //---------------------------------------------
+  private long seed; // key of the Philox generator
+  private int dim; // number of components, that means of values per wavelet
+  private int j; // j index of the next wavelet in the stream (-1 for s_1)
+  private long k; // k index of the next wavelet in the stream
+  private int comp; // next component of the current wavelet
+  private double[] current; // coefficients of the current wavelet
+  private final int[] words=new int[4]; // Philox scratch
+  private final double[] pair=new double[2]; // Philox scratch
+  //-----------------------------------------------------------
+  
+  // Constructors //-------------------------------------------
+  public KeyedGaussianSource(long seed, int dimension){
+    this.seed=seed;
+    this.dim=dimension;
+    this.current=new double[dimension];
+    this.j=-1;
+    this.k=0;
+    this.comp=0;
+    coefficients(this.j, this.k, this.current);
+  }
+  //-----------------------------------------------------------
+  
+  // Methods //------------------------------------------------
+  public void coefficients(int j, long k, double[] out){
+    // Computes the d coefficients of a wavelet. Each wavelet uses its own counter values (stream j+1, counters k*ceil(d/2) and above), so no two wavelets share random bits.
+    // @param j the j index of the wavelet (-1 for s_1)
+    // @param k the k index of the wavelet
+    // @param out the table receiving the d coefficients
+    // @return void
+    int blocks=(this.dim+1)/2;
+    long stream=j+1;
+    for(int b=0; b<blocks; b++){
+      PhiloxGaussianSource.block(this.seed, stream, k*blocks+b, this.words, this.pair);
+      out[2*b]=this.pair[0];
+      if(2*b+1<this.dim){
+        out[2*b+1]=this.pair[1];
+      }
+    }
+  }
+  
+  public void fill(double[] g, int offset, int length){
+    // Fills a table with the next coefficients, in the order of Brownian.
+    // @param g the table to fill
+    // @param offset the index of the first value to fill
+    // @param length the number of values to fill
+    // @return void
+    for(int i=offset; i<offset+length; i++){
+      if(this.comp==this.dim){ // next wavelet
+        if(this.j<0 || this.k==(1L<<this.j)-1){
+          this.j++;
+          this.k=0;
+        }
+        else{
+          this.k++;
+        }
+        coefficients(this.j, this.k, this.current);
+        this.comp=0;
+      }
+      g[i]=this.current[this.comp++];
+    }
+  }
+  
+  public void seek(int j, long k){
+    // Moves the stream to the first coefficient of a wavelet, so that the next fill starts there.
+    // @param j the j index of the wavelet (-1 for s_1)
+    // @param k the k index of the wavelet
+    // @return void
+    this.j=j;
+    this.k=k;
+    this.comp=0;
+    coefficients(j, k, this.current);
+  }
+  
+  public GaussianSource derive(long stream){
+    // Returns the keyed source of another path, with a seed derived from this one.
+    return(new KeyedGaussianSource(Util.mix64(this.seed+Util.mix64(stream)), this.dim));
+  }
+  
+  public int getDim(){
+    return(this.dim);
+  }
+  //-----------------------------------------------------------
+}
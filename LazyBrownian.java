@@ -0,0 +1,147 @@
+// Title       : LazyBrownian.java
+// Description : This class evaluates a Brownian motion at any
+//               time without building the path : each
+//               Faber-Schauder coefficient is derived from
+//               (seed, j, k) by a KeyedGaussianSource, so B(t)
+//               is the sum of the N+2 wavelets whose support
+//               contains t, that is O(N*d).
+// Author      : agent.
+// Date        : 2026.
+// Notes       : A Brownian built with the same keyed source
+//               gives the same values on its grid, as long as
+//               the grid resolves the N+1 levels. Not
+//               thread-safe (coefficients are cached).
+
+package BrownianGenerator;
+
+import java.util.Arrays; // for characteristics and cache reset
+
+public class LazyBrownian{
+  // Attributes //---------------------------------------------
+  private int dim; // Brownian motion dimension
+  private int n; // cut parameter
+  private double c; // length of the time interval
+  private double[] start; // Brownian motion starting point
+  private long seed; // key of the coefficients
+  private KeyedGaussianSource coefs; // coefficients of the decomposition
+  private double[] s1; // coefficients of the s_1 wavelet
+  private long[] cachedK; // k index of the cached coefficients, per level (-1 if none)
+  private double[][] cached; // cached coefficients, per level
+  //-----------------------------------------------------------
+  
+  // Constructors //-------------------------------------------
+  public LazyBrownian(int dimension, double c, int N, long seed){
+    // Constructor : complete.
+    if(dimension<=0){
+      System.err.println("Error : dimension is incorrect (d="+dimension+").");
+      System.exit(-1);
+    }
+    if(c<=0){
+      System.err.println("Error : interval length is incorrect (c="+c+").");
+      System.exit(-1);
+    }
+    if(N<0 || N>61){
+      System.err.println("Error : cut index is incorrect (N="+N+", must be between 0 and 61).");
+      System.exit(-1);
+    }
+    this.dim=dimension;
+    this.c=c;
+    this.n=N;
+    this.start=new double[dimension];
+    this.seed=seed;
+    this.coefs=new KeyedGaussianSource(seed, dimension);
+    this.s1=new double[dimension];
+    this.coefs.coefficients(-1, 0, this.s1);
+    this.cachedK=new long[N+1];
+    Arrays.fill(this.cachedK, -1);
+    this.cached=new double[N+1][dimension];
+  }
+  //-----------------------------------------------------------
+  
+  // Methods //------------------------------------------------
+  public void get(double t, double[] out){
+    // Evaluates the Brownian motion at a given time. Coefficients of the last wavelet used at each level are kept, so close times (e.g. sorted queries) share most of the work.
+    // @param t the time, in [0, c]
+    // @param out the table receiving the d components
+    // @return void
+    if(!(t>=0 && t<=this.c)){
+      System.err.println("Error : time requested is invalid (t="+t+", c="+this.c+").");
+      System.exit(-1);
+    }
+    double x=t/this.c; // time on [0, 1]
+    for(int i=0; i<this.dim; i++){
+      out[i]=this.s1[i]*x;
+    }
+    double scale=1.0; // 2^j
+    for(int j=0; j<=this.n; j++){
+      long k=Math.min((long)(x*scale), (1L<<j)-1); // x=1 belongs to the last support
+      double v=Util.triangleValue(j, k, x);
+      if(v!=0){
+        double[] g=level(j, k);
+        for(int i=0; i<this.dim; i++){
+          out[i]+=g[i]*v;
+        }
+      }
+      scale*=2;
+    }
+    double coef=Math.sqrt(this.c);
+    for(int i=0; i<this.dim; i++){
+      out[i]=coef*out[i]+this.start[i];
+    }
+  }
+  
+  public double[] get(double t){
+    // Evaluates the Brownian motion at a given time.
+    // @param t the time, in [0, c]
+    // @return the d components
+    double[] r=new double[this.dim];
+    get(t, r);
+    return(r);
+  }
+  
+  public void get(double[] times, double[][] out){
+    // Evaluates the Brownian motion at several times. Sorting the times lets neighbouring queries share the coefficients of the coarse levels, which are computed once.
+    // @param times the times, in [0, c]
+    // @param out the tables receiving the d components of each time (out[q] for times[q])
+    // @return void
+    for(int q=0; q<times.length; q++){
+      get(times[q], out[q]);
+    }
+  }
+  
+  private double[] level(int j, long k){
+    // Returns the coefficients of the (j, k) wavelet, from the cache of level j if possible.
+    if(this.cachedK[j]!=k){
+      this.coefs.coefficients(j, k, this.cached[j]);
+      this.cachedK[j]=k;
+    }
+    return(this.cached[j]);
+  }
+  
+  public void changeStartPoint(double[] coordinates){
+    // Changes the starting point of the Brownian motion.
+    // @param coordinates a table of coordinates for the new starting point
+    // @return void
+    if(coordinates.length!=this.dim){
+      System.err.println("Error : dimension of requested starting point is invalid (dimension : "+coordinates.length+", Brownian motion dimension : "+this.dim+").");
+      System.exit(-1);
+    }
+    this.start=coordinates.clone();
+  }
+  
+  public KeyedGaussianSource getSource(){
+    // Returns a fresh keyed source drawing the coefficients of this path, in the order of Brownian : new Brownian(Kt, d, c, N, lazy.getSource()) materialises this path on a grid.
+    // @param void
+    // @return a new source, positioned on the first coefficient
+    return(new KeyedGaussianSource(this.seed, this.dim));
+  }
+  
+  public int getDim(){
+    return(this.dim);
+  }
+  
+  public String getCharacteristics(){
+    return("d="+this.dim+"; c="+this.c+"; n="+this.n+"; startPoint="+Arrays.toString(this.start));
+  }
+  //-----------------------------------------------------------
+}
@@ -0,0 +1,413 @@
+// Title       : MultilevelBrownian.java
+// Description : This class generates the coupled path pairs of a
+//               multilevel Monte Carlo (MLMC) estimator, batched
+//               per level over a fork-join pool, and tracks the
+//               variance and the cost of each level.
+// Author      : agent.
+// Date        : 2026.
+// Notes       : Level l is the grid of Kt_l=(Kt_0-1)*2^l+1
+//               points, Kt_0-1 being a power of two, with the cut
+//               parameter n_l using all its levels
+//               (SchauderWavelet.autoCut) : n_l=n_(l-1)+1, and the
+//               path is exact at the grid points. A pair of level
+//               l is a fine path on Kt_l and the coarse path on
+//               Kt_(l-1) drawn from the same coefficients : the
+//               coarse path is read at the even indexes of the
+//               fine one, which is what the coefficients up to
+//               n_(l-1) give on their own grid (the dyadic
+//               refinement only adds the midpoints). So
+//               E[P(fine)-P(coarse)] at level l telescopes with
+//               the fine paths of level l-1, and its variance
+//               vanishes as the grids get finer.
+//               Pair m of level l is drawn from
+//               gs.derive(l*2^40+m) : the estimates do not depend
+//               on the number of threads.
+
+package BrownianGenerator;
+
+import java.util.Locale; // for the report
+import java.util.concurrent.ForkJoinPool; // for parallel generation
+import java.util.concurrent.RecursiveTask; // for parallel generation
+
+public class MultilevelBrownian{
+  // Attributes //---------------------------------------------
+  private static final long GRAIN=16; // number of pairs under which a range is not split any more
+  private static final int STREAM_BITS=40; // pairs per level : 2^40
+  private static final int INITIAL=1000; // pairs drawn on a new level by estimate, to get its variance
+  private int maxLevel; // finest level
+  private int[] lens; // Kt_l
+  private int[] cuts; // n_l
+  private int dim; // Brownian motion dimension
+  private double c; // interval length
+  private double[] start; // starting point
+  private GaussianSource gs; // root source
+  private int threads; // number of worker threads (0 for the common pool)
+  private Level[] levels; // statistics of the pairs drawn by sample
+  private final ThreadLocal<Scratch> scratch=new ThreadLocal<Scratch>(); // per-thread wavelet and buffers
+  //-----------------------------------------------------------
+  
+  // Constructors //-------------------------------------------
+  public MultilevelBrownian(int Kt0, int maxLevel, int dimension, double c, GaussianSource gs){
+    // Constructor : common pool, starting at the origin.
+    this(Kt0, maxLevel, dimension, c, gs, null, 0);
+  }
+  public MultilevelBrownian(int Kt0, int maxLevel, int dimension, double c, GaussianSource gs, double[] startPoint, int threads){
+    // Constructor : complete.
+    // @param Kt0 the number of discretisation points of level 0, Kt0-1 being a power of two (2, 4, 8...)
+    // @param maxLevel the finest level, whose grid has (Kt0-1)*2^maxLevel+1 points
+    // @param dimension the Brownian motion dimension
+    // @param c the interval length
+    // @param gs the root source of the coefficients
+    // @param startPoint the starting point (null for the origin)
+    // @param threads the number of worker threads (0 for the common pool)
+    if(Kt0<3 || Integer.bitCount(Kt0-1)!=1){
+      System.err.println("Error : Kt0-1 must be a power of two, 2 at least (Kt0="+Kt0+").");
+      System.exit(-1);
+    }
+    if(maxLevel<0 || maxLevel>30 || (long)(Kt0-1)<<maxLevel>=Integer.MAX_VALUE){
+      System.err.println("Error : finest level is incorrect (maxLevel="+maxLevel+", Kt0="+Kt0+").");
+      System.exit(-1);
+    }
+    if(threads<0){
+      System.err.println("Error : number of threads is incorrect (threads="+threads+").");
+      System.exit(-1);
+    }
+    if(startPoint!=null && startPoint.length!=dimension){
+      System.err.println("Error : dimension of requested starting point is invalid (dimension : "+startPoint.length+", Brownian motion dimension : "+dimension+").");
+      System.exit(-1);
+    }
+    this.maxLevel=maxLevel;
+    this.lens=new int[maxLevel+1];
+    this.cuts=new int[maxLevel+1];
+    this.levels=new Level[maxLevel+1];
+    for(int l=0; l<=maxLevel; l++){
+      this.lens[l]=((Kt0-1)<<l)+1;
+      this.cuts[l]=SchauderWavelet.autoCut(this.lens[l]);
+      this.levels[l]=new Level();
+    }
+    Brownian.checkParameters(this.lens[maxLevel], dimension, c, this.cuts[maxLevel]);
+    this.dim=dimension;
+    this.c=c;
+    this.start=(startPoint==null?new double[dimension]:startPoint.clone());
+    this.gs=gs;
+    this.threads=threads;
+  }
+  //-----------------------------------------------------------
+  
+  // Methods //------------------------------------------------
+  public Brownian[] pair(int level, long m){
+    // Generates one pair, in its own storages.
+    // @param level the level
+    // @param m the index of the pair in the level
+    // @return {coarse path (null at level 0), fine path}
+    checkLevel(level);
+    Scratch s=new Scratch(level);
+    Brownian[] r={null, generate(level, m, s)};
+    if(level>0){
+      r[0]=coarse(level, s);
+    }
+    return(r);
+  }
+  
+  public void forEachPair(int level, long first, long count, PathPairConsumer consumer){
+    // Generates the pairs first to first+count-1 of a level and hands them to a callback. Each thread reuses its storages, so memory stays bounded whatever count.
+    // @param level the level
+    // @param first the index of the first pair
+    // @param count the number of pairs
+    // @param consumer the callback, see PathPairConsumer for its contract
+    // @return void
+    checkLevel(level);
+    run(new Range(level, first, first+count, consumer, null));
+  }
+  
+  public Level sample(int level, long count, PathFunctional f){
+    // Draws count more pairs of a level (the pairs following the ones already drawn) and adds P(fine)-P(coarse) to the statistics of the level (P(fine) at level 0).
+    // @param level the level
+    // @param count the number of pairs
+    // @param f the quantity of interest P
+    // @return the statistics of the level
+    checkLevel(level);
+    Level l=this.levels[level];
+    Level batch=run(new Range(level, l.next, l.next+count, null, f));
+    l.merge(batch);
+    l.next+=count;
+    return(l);
+  }
+  
+  public double estimate(PathFunctional f, double epsilon){
+    // Estimates E[P] on the finest grid needed, with a root mean square error of about epsilon (Giles' adaptive algorithm) : the levels are added one by one until the estimated bias, extrapolated from the means of the last levels, is under epsilon/sqrt(2), and each level gets the number of pairs minimising the cost for a variance of epsilon^2/2 (N_l proportional to sqrt(V_l/C_l), V_l and C_l being its variance and its cost per pair). The pairs already drawn are kept.
+    // @param f the quantity of interest P
+    // @param epsilon the wanted root mean square error
+    // @return the estimate, sum of the means of the levels used (see getLevel for their statistics)
+    if(!(epsilon>0)){
+      System.err.println("Error : accuracy is incorrect (epsilon="+epsilon+").");
+      System.exit(-1);
+    }
+    int L=Math.min(2, this.maxLevel);
+    for(int l=0; l<=L; l++){
+      if(this.levels[l].samples<INITIAL){
+        sample(l, INITIAL-this.levels[l].samples, f);
+      }
+    }
+    while(true){
+      double sum=0;
+      for(int l=0; l<=L; l++){
+        sum+=Math.sqrt(this.levels[l].getVariance()*this.levels[l].getCost());
+      }
+      for(int l=0; l<=L; l++){
+        Level lv=this.levels[l];
+        double wanted=Math.ceil(2/(epsilon*epsilon)*Math.sqrt(lv.getVariance()/lv.getCost())*sum);
+        if(wanted>lv.samples){
+          sample(l, (long)(Math.min(wanted, 0x1p50))-lv.samples, f);
+        }
+      }
+      double bias=getBias(L);
+      if(bias<=epsilon/Math.sqrt(2)){
+        break;
+      }
+      if(L==this.maxLevel){
+        System.err.println("Warning : the estimated bias is above the accuracy at the finest level (bias="+bias+", epsilon="+epsilon+", maxLevel="+this.maxLevel+").");
+        break;
+      }
+      L++;
+      sample(L, INITIAL, f);
+    }
+    double estimate=0;
+    for(int l=0; l<=L; l++){
+      estimate+=this.levels[l].getMean();
+    }
+    return(estimate);
+  }
+  
+  private double getBias(int L){
+    // Returns the estimated bias of the levels 0..L : the weak order alpha is fitted on the means of the levels 1..L (|E[Y_l]| ~ 2^(-alpha*l), alpha>=0.5), and the remaining levels sum to |E[Y_L]|/(2^alpha-1).
+    if(L<2){
+      return(Double.POSITIVE_INFINITY);
+    }
+    double sx=0, sy=0, sxx=0, sxy=0;
+    int k=0;
+    for(int l=1; l<=L; l++){
+      double y=Math.log(Math.abs(this.levels[l].getMean()))/Math.log(2);
+      if(Double.isInfinite(y)){ // zero mean
+        continue;
+      }
+      sx+=l;
+      sy+=y;
+      sxx+=l*l;
+      sxy+=l*y;
+      k++;
+    }
+    double alpha=(k>=2?-(k*sxy-sx*sy)/(k*sxx-sx*sx):0);
+    alpha=Math.max(0.5, alpha);
+    double r=Math.pow(2, alpha);
+    double last=Math.max(Math.abs(this.levels[L].getMean()), Math.abs(this.levels[L-1].getMean())/r);
+    return(last/(r-1));
+  }
+  
+  private Level run(Range all){
+    // Runs a range over the pool.
+    if(all.to<all.from || all.from<0 || all.to>1L<<STREAM_BITS){
+      System.err.println("Error : range of pairs is incorrect (from "+all.from+" to "+all.to+").");
+      System.exit(-1);
+    }
+    if(this.threads==0){
+      return(ForkJoinPool.commonPool().invoke(all));
+    }
+    ForkJoinPool pool=new ForkJoinPool(this.threads);
+    try{
+      return(pool.invoke(all));
+    }
+    finally{
+      pool.shutdown();
+    }
+  }
+  
+  private Brownian generate(int level, long m, Scratch s){
+    // Generates the fine path of pair m into the scratch storage.
+    return(new Brownian(this.lens[level], this.dim, this.c, this.cuts[level], this.gs.derive(((long)(level)<<STREAM_BITS)+m), s.sw, s.fine, this.start));
+  }
+  
+  private Brownian coarse(int level, Scratch s){
+    // Returns the coarse path of the pair whose fine path was just generated : its even indexes.
+    int kc=this.lens[level-1];
+    for(int j=0; j<this.dim; j++){
+      for(int i=0; i<kc; i++){
+        s.coarse.set(i, j, s.fine.get(2*i, j));
+      }
+    }
+    return(new Brownian(kc, this.dim, this.c, this.cuts[level-1], this.start, s.coarse));
+  }
+  
+  private void checkLevel(int level){
+    if(level<0 || level>this.maxLevel){
+      System.err.println("Error : level is incorrect (level="+level+", maxLevel="+this.maxLevel+").");
+      System.exit(-1);
+    }
+  }
+  
+  private Scratch getScratch(int level){
+    // Returns the scratch state of the current thread for a level, creating it when the level changes.
+    Scratch s=this.scratch.get();
+    if(s==null || s.level!=level){
+      s=new Scratch(level);
+      this.scratch.set(s);
+    }
+    return(s);
+  }
+  
+  public Level getLevel(int level){
+    // Returns the statistics of the pairs of a level drawn by sample and estimate.
+    checkLevel(level);
+    return(this.levels[level]);
+  }
+  public int getLength(int level){
+    checkLevel(level);
+    return(this.lens[level]);
+  }
+  public int getCut(int level){
+    checkLevel(level);
+    return(this.cuts[level]);
+  }
+  public int getMaxLevel(){
+    return(this.maxLevel);
+  }
+  public int getDim(){
+    return(this.dim);
+  }
+  
+  public String getReport(){
+    // Returns one line per level with pairs drawn : the grid, the number of pairs, the mean and the variance of P(fine)-P(coarse), the variance of P(fine) (that of single-level Monte Carlo on this grid) and the cost per pair.
+    StringBuilder sb=new StringBuilder("level\tkt\tpairs\tmean\tvariance\tfine variance\tcost(us)\n");
+    for(int l=0; l<=this.maxLevel; l++){
+      Level lv=this.levels[l];
+      if(lv.samples>0){
+        sb.append(String.format(Locale.US, "%d\t%d\t%d\t%.6e\t%.6e\t%.6e\t%.3f\n", l, this.lens[l], lv.samples, lv.getMean(), lv.getVariance(), lv.getFineVariance(), lv.getCost()*1e-3));
+      }
+    }
+    return(sb.toString());
+  }
+  //-----------------------------------------------------------
+  
+  // Statistics of a level //----------------------------------
+  public static class Level{
+    // Running means and variances (Welford, merged by Chan's formulas in a fixed order, so that they do not depend on the number of threads) of Y=P(fine)-P(coarse) and of P(fine), and the generation time.
+    private long samples=0;
+    private double meanY=0, m2Y=0; // mean and sum of squared deviations of Y
+    private double meanP=0, m2P=0; // same for P(fine)
+    private long nanos=0; // time spent generating and evaluating the pairs, summed over the threads
+    private long next=0; // index of the next pair to draw (levels of the estimator only)
+    
+    private void add(double y, double p){
+      this.samples++;
+      double dy=y-this.meanY;
+      this.meanY+=dy/this.samples;
+      this.m2Y+=dy*(y-this.meanY);
+      double dp=p-this.meanP;
+      this.meanP+=dp/this.samples;
+      this.m2P+=dp*(p-this.meanP);
+    }
+    
+    private synchronized void merge(Level o){
+      if(o.samples==0){
+        this.nanos+=o.nanos;
+        return;
+      }
+      long n=this.samples+o.samples;
+      double f=(double)(o.samples)/n;
+      double dy=o.meanY-this.meanY;
+      double dp=o.meanP-this.meanP;
+      this.m2Y+=o.m2Y+dy*dy*this.samples*f;
+      this.m2P+=o.m2P+dp*dp*this.samples*f;
+      this.meanY+=dy*f;
+      this.meanP+=dp*f;
+      this.samples=n;
+      this.nanos+=o.nanos;
+    }
+    
+    public synchronized long getSamples(){
+      return(this.samples);
+    }
+    public synchronized double getMean(){
+      // Returns the mean of P(fine)-P(coarse) (of P(fine) at level 0).
+      return(this.meanY);
+    }
+    public synchronized double getVariance(){
+      // Returns the sample variance of P(fine)-P(coarse).
+      return(this.samples>1?this.m2Y/(this.samples-1):0);
+    }
+    public synchronized double getFineMean(){
+      return(this.meanP);
+    }
+    public synchronized double getFineVariance(){
+      // Returns the sample variance of P(fine), that of single-level Monte Carlo on the grid of the level.
+      return(this.samples>1?this.m2P/(this.samples-1):0);
+    }
+    public synchronized double getCost(){
+      // Returns the mean time per pair, in nanoseconds (1 at least).
+      return(this.samples>0?Math.max(1.0, (double)(this.nanos)/this.samples):1.0);
+    }
+  }
+  //-----------------------------------------------------------
+  
+  // Inner classes //------------------------------------------
+  private class Scratch{
+    // State reused by a thread from one pair to the next.
+    private int level;
+    private SchauderWavelet sw;
+    private PathStorage fine;
+    private PathStorage coarse; // null at level 0
+    
+    private Scratch(int level){
+      this.level=level;
+      this.sw=new SchauderWavelet(lens[level]);
+      this.fine=new ComponentMajorStorage(dim, lens[level]);
+      this.coarse=(level>0?new ComponentMajorStorage(dim, lens[level-1]):null);
+    }
+  }
+  
+  private class Range extends RecursiveTask<Level>{
+    // A range of pair indexes, split in halves until it is small enough ; the statistics of the halves are merged left then right.
+    private static final long serialVersionUID=1L;
+    private int level;
+    private long from, to;
+    private PathPairConsumer consumer; // null when f is given
+    private PathFunctional f;
+    
+    Range(int level, long from, long to, PathPairConsumer consumer, PathFunctional f){
+      this.level=level;
+      this.from=from;
+      this.to=to;
+      this.consumer=consumer;
+      this.f=f;
+    }
+    
+    protected Level compute(){
+      if(this.to-this.from>GRAIN){
+        long mid=(this.from+this.to)>>>1;
+        Range left=new Range(this.level, this.from, mid, this.consumer, this.f);
+        Range right=new Range(this.level, mid, this.to, this.consumer, this.f);
+        invokeAll(left, right);
+        Level r=left.join();
+        r.merge(right.join());
+        return(r);
+      }
+      Level r=new Level();
+      long t0=System.nanoTime();
+      Scratch s=getScratch(this.level);
+      for(long m=this.from; m<this.to; m++){
+        Brownian fine=generate(this.level, m, s);
+        Brownian coarse=(this.level>0?coarse(this.level, s):null);
+        if(this.consumer!=null){
+          this.consumer.accept(m, coarse, fine);
+        }
+        else{
+          double p=this.f.apply(fine);
+          r.add(p-(coarse==null?0:this.f.apply(coarse)), p);
+        }
+      }
+      r.nanos=System.nanoTime()-t0;
+      return(r);
+    }
+  }
+  //-----------------------------------------------------------
+}
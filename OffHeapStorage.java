@@ -0,0 +1,70 @@
+// Title       : OffHeapStorage.java
+// Description : This class stores a path outside of the Java
+//               heap, in direct buffers : each component is
+//               split in chunks of 2^27 values (1 GiB), so that
+//               paths are only limited by the native memory.
+// Author      : agent.
+// Date        : 2026.
+// Notes       : The memory is released when the storage is
+//               garbage collected.
+
+package BrownianGenerator;
+
+import java.nio.ByteBuffer; // for direct allocation
+import java.nio.ByteOrder; // native order
+import java.nio.DoubleBuffer; // for views
+
+public class OffHeapStorage extends PathStorage{
+  // Attributes //---------------------------------------------
+  private static final int SHIFT=27; // log2 of the chunk length
+  private static final int MASK=(1<<SHIFT)-1; // index inside a chunk
+  private DoubleBuffer[][] chunks; // chunks[j][t>>SHIFT] holds the j-th component around time index t
+  //-----------------------------------------------------------
+  
+  // Constructors //-------------------------------------------
+  public OffHeapStorage(int dimension, int Kt){
+    super(dimension, Kt);
+    int n=(int)(((long)(Kt)+MASK)>>SHIFT); // chunks per component
+    this.chunks=new DoubleBuffer[dimension][n];
+    for(int j=0; j<dimension; j++){
+      for(int c=0; c<n; c++){
+        int size=Math.min(1<<SHIFT, Kt-(c<<SHIFT));
+        this.chunks[j][c]=ByteBuffer.allocateDirect(size*8).order(ByteOrder.nativeOrder()).asDoubleBuffer(); // zero-filled
+      }
+    }
+  }
+  //-----------------------------------------------------------
+  
+  // Methods //------------------------------------------------
+  public double get(int t, int j){
+    return(this.chunks[j][t>>>SHIFT].get(t&MASK));
+  }
+  public void set(int t, int j, double v){
+    this.chunks[j][t>>>SHIFT].put(t&MASK, v);
+  }
+  public PathLayout getLayout(){
+    return(PathLayout.OFF_HEAP);
+  }
+  
+  public DoubleBuffer getComponentView(int j){
+    if(this.chunks[j].length>1){
+      System.err.println("Error : component is split in "+this.chunks[j].length+" chunks, use getChunkView(j, c).");
+      System.exit(-1);
+    }
+    return(this.chunks[j][0].duplicate());
+  }
+  
+  public DoubleBuffer getChunkView(int j, int c){
+    // Returns a view (no copy) of the c-th chunk of the j-th component, that means time indexes c*2^27 to (c+1)*2^27-1.
+    // @param j the component
+    // @param c the chunk index
+    // @return a read-write view
+    return(this.chunks[j][c].duplicate());
+  }
+  
+  public int getChunkCount(){
+    // Returns the number of chunks per component.
+    return(this.chunks.length==0?0:this.chunks[0].length);
+  }
+  //-----------------------------------------------------------
+}
@@ -0,0 +1,396 @@
+// Title       : PathArchiveReader.java
+// Description : This class reads the paths of an archive written
+//               by PathArchiveWriter : whole (the chunks being
+//               decoded in parallel), a range of time indexes
+//               alone (only its chunks being read), or streamed
+//               to a PathSink. Regenerable paths are generated
+//               again from their parameters.
+// Author      : agent.
+// Date        : 2026.
+// Notes       : The file is read with positional reads, never
+//               loaded whole ; the reading methods may be called
+//               from several threads at once.
+
+package BrownianGenerator;
+
+import java.io.*; // for streams
+import java.nio.ByteBuffer; // for positional reads
+import java.nio.channels.FileChannel; // for positional reads
+import java.nio.charset.StandardCharsets; // for the rng name
+import java.nio.file.Paths; // for opening the file
+import java.nio.file.StandardOpenOption; // for opening the file
+import java.util.Arrays; // for characteristics
+import java.util.Map; // for arguments parsing
+import java.util.concurrent.ForkJoinPool; // for parallel decoding
+import java.util.concurrent.RecursiveAction; // for parallel decoding
+
+public class PathArchiveReader implements Closeable{
+  // Attributes //---------------------------------------------
+  private static final int GRAIN=8; // chunks decoded per task
+  private FileChannel channel; // archive file
+  private long[] records; // positions of the records
+  private long index; // position of the index, end of the last record
+  //-----------------------------------------------------------
+  
+  // Constructors //-------------------------------------------
+  public PathArchiveReader(String fileName) throws IOException{
+    // Constructor : opens the file and reads its index.
+    // @param fileName the archive
+    // @throws IOException if the file is not a complete archive
+    this.channel=FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+    long size=this.channel.size();
+    if(size<24 || bytes(0, 4).getInt()!=PathArchiveWriter.MAGIC){
+      this.channel.close();
+      throw new IOException("\""+fileName+"\" is not a path archive.");
+    }
+    ByteBuffer trailer=bytes(size-20, 20);
+    this.index=trailer.getLong();
+    long count=trailer.getLong();
+    if(trailer.getInt()!=PathArchiveWriter.END || this.index<4 || count<0 || count>Integer.MAX_VALUE || this.index+8*count!=size-20){
+      this.channel.close();
+      throw new IOException("\""+fileName+"\" is not a complete path archive (was its writer closed ?).");
+    }
+    this.records=new long[(int)(count)];
+    bytes(this.index, 8*(int)(count)).asLongBuffer().get(this.records);
+  }
+  //-----------------------------------------------------------
+  
+  // Methods //------------------------------------------------
+  private ByteBuffer bytes(long position, int length) throws IOException{
+    // Reads bytes of the file (big-endian).
+    ByteBuffer b=ByteBuffer.allocate(length);
+    while(b.hasRemaining()){
+      if(this.channel.read(b, position+b.position())<0){
+        throw new EOFException("unexpected end of the archive.");
+      }
+    }
+    b.flip();
+    return(b);
+  }
+  
+  public int getPathCount(){
+    return(this.records.length);
+  }
+  
+  public Entry getEntry(int p) throws IOException{
+    // Returns the parameters of a path.
+    // @param p the index of the path in the archive, from 0
+    // @return the parameters
+    if(p<0 || p>=this.records.length){
+      throw new IndexOutOfBoundsException("path "+p+" (the archive has "+this.records.length+" paths).");
+    }
+    long position=this.records[p];
+    long end=(p+1<this.records.length?this.records[p+1]:this.index);
+    Entry e=new Entry();
+    ByteBuffer b=bytes(position, 25);
+    byte mode=b.get();
+    e.len=b.getLong();
+    e.dim=b.getInt();
+    e.c=b.getDouble();
+    e.n=b.getInt();
+    if(e.dim<=0 || e.len<=0 || 8L*e.dim>end-position){
+      throw new IOException("corrupted record (path "+p+").");
+    }
+    b=bytes(position+25, 8*e.dim+1+(mode==PathArchiveWriter.COMPRESSED?4:2));
+    e.start=new double[e.dim];
+    b.asDoubleBuffer().get(e.start);
+    b.position(8*e.dim);
+    e.single=(b.get()!=0);
+    long next=position+25+b.limit();
+    if(mode==PathArchiveWriter.COMPRESSED){
+      e.chunk=b.getInt();
+      e.chunkCount=(int)((e.len+e.chunk-1)/e.chunk);
+      e.first=next;
+      e.table=end-8L*e.chunkCount;
+    }
+    else{
+      e.regenerable=true;
+      int length=b.getShort()&0xFFFF;
+      b=bytes(next, length+20);
+      byte[] name=new byte[length];
+      b.get(name);
+      e.rng=new String(name, StandardCharsets.UTF_8);
+      e.seed=b.getLong();
+      e.stream=b.getLong();
+      e.segment=b.getInt();
+    }
+    return(e);
+  }
+  
+  public Brownian read(int p) throws IOException{
+    // Reads a whole path into memory, the chunks being decoded in parallel over the common pool.
+    // @param p the index of the path
+    // @return the path, in the FLOAT layout if it was stored in single precision (it cannot be refined)
+    Entry e=getEntry(p);
+    if(e.len>Integer.MAX_VALUE){
+      throw new IllegalArgumentException("kt is too large for a path in memory (kt="+e.len+"), read it to a PathSink.");
+    }
+    int kt=(int)(e.len);
+    if(e.regenerable && e.segment==0){
+      return(new Brownian(kt, e.dim, e.c, e.n, e.newSource(), e.getLayout(), e.start));
+    }
+    PathStorage st=PathStorage.allocate(e.getLayout(), e.dim, kt);
+    if(e.regenerable){
+      read(e, new CopySink(st, 0, kt));
+    }
+    else{
+      long[] table=new long[e.chunkCount];
+      bytes(e.table, 8*e.chunkCount).asLongBuffer().get(table);
+      ForkJoinPool.commonPool().invoke(new Decoding(e, table, 0, e.chunkCount, st));
+    }
+    return(new Brownian(kt, e.dim, e.c, e.n, e.start, st));
+  }
+  
+  public PathStorage read(int p, long from, int count) throws IOException{
+    // Reads the values of a path at the time indexes from to from+count-1, only the chunks holding them being decoded (a regenerable path is generated again up to from+count-1).
+    // @param p the index of the path
+    // @param from the first time index
+    // @param count the number of time indexes
+    // @return a storage holding the values at the indexes 0 to count-1
+    Entry e=getEntry(p);
+    if(from<0 || count<=0 || from+count>e.len){
+      throw new IndexOutOfBoundsException("time indexes "+from+" to "+(from+count-1)+" (the path has "+e.len+").");
+    }
+    PathStorage st=PathStorage.allocate(e.getLayout(), e.dim, count);
+    if(e.regenerable){
+      read(e, new CopySink(st, from, count));
+      return(st);
+    }
+    int q0=(int)(from/e.chunk), q1=(int)((from+count-1)/e.chunk);
+    long[] table=new long[q1-q0+1];
+    bytes(e.table+8L*q0, 8*table.length).asLongBuffer().get(table);
+    GorillaCodec codec=new GorillaCodec();
+    ComponentMajorStorage buffer=new ComponentMajorStorage(e.dim, e.chunk);
+    CopySink copy=new CopySink(st, from, count);
+    for(int q=q0; q<=q1; q++){
+      decode(e, table[q-q0], q, codec, buffer, 0);
+      copy.accept((long)(q)*e.chunk, buffer, e.chunkLength(q));
+    }
+    return(st);
+  }
+  
+  public void read(int p, PathSink sink) throws IOException{
+    // Streams a path to a sink, one chunk (or one segment for a regenerable path) at a time : the length of the path is not limited by the memory.
+    // @param p the index of the path
+    // @param sink the destination of the values
+    // @return void
+    read(getEntry(p), sink);
+  }
+  
+  private void read(Entry e, PathSink sink) throws IOException{
+    if(e.regenerable){
+      if(e.segment>0){
+        new SegmentedBrownian(e.len, e.dim, e.c, e.n, e.newSource(), e.segment, e.start).generate(sink);
+      }
+      else{
+        Brownian b=new Brownian((int)(e.len), e.dim, e.c, e.n, e.newSource(), e.getLayout(), e.start);
+        sink.accept(0, b.getStorage(), b.getLength());
+      }
+      return;
+    }
+    GorillaCodec codec=new GorillaCodec();
+    ComponentMajorStorage buffer=new ComponentMajorStorage(e.dim, e.chunk);
+    long position=e.first; // the chunks follow each other
+    for(int q=0; q<e.chunkCount; q++){
+      position=decode(e, position, q, codec, buffer, 0);
+      sink.accept((long)(q)*e.chunk, buffer, e.chunkLength(q));
+    }
+  }
+  
+  private long decode(Entry e, long position, int q, GorillaCodec codec, PathStorage target, int to) throws IOException{
+    // Decodes the chunk q, written at the given position, into the target from index to.
+    // @return the position following the chunk
+    int length=bytes(position, 4).getInt();
+    codec.decode(bytes(position+4, length).array(), target, to, e.chunkLength(q));
+    return(position+4+length);
+  }
+  
+  public void close() throws IOException{
+    this.channel.close();
+  }
+  //-----------------------------------------------------------
+  
+  // Entries //------------------------------------------------
+  public static class Entry{
+    // The parameters of a path of the archive.
+    private boolean regenerable=false;
+    private long len;
+    private int dim;
+    private double c;
+    private int n;
+    private double[] start;
+    private boolean single;
+    private int chunk; // time indexes per chunk (compressed)
+    private int chunkCount;
+    private long first; // position of the first chunk (compressed)
+    private long table; // position of the chunk positions (compressed)
+    private String rng; // generator (regenerable)
+    private long seed;
+    private long stream; // -1 for the source itself
+    private int segment; // 0 for a path generated in memory
+    
+    private int chunkLength(int q){
+      return((int)(Math.min(this.chunk, this.len-(long)(q)*this.chunk)));
+    }
+    
+    GaussianSource newSource(){
+      // Returns the source the path was drawn from (regenerable).
+      GaussianSource gs=Generator.Options.newSource(this.rng, this.seed);
+      return(this.stream<0?gs:gs.derive(this.stream));
+    }
+    
+    public PathLayout getLayout(){
+      // Returns the layout the path is read into.
+      return(this.single?PathLayout.FLOAT:PathLayout.COMPONENT_MAJOR);
+    }
+    public boolean isRegenerable(){
+      return(this.regenerable);
+    }
+    public long getLength(){
+      return(this.len);
+    }
+    public int getDim(){
+      return(this.dim);
+    }
+    public int getCut(){
+      return(this.n);
+    }
+    public double getIntervalLength(){
+      return(this.c);
+    }
+    public double[] getStartPoint(){
+      return(this.start.clone());
+    }
+    public boolean isSingle(){
+      return(this.single);
+    }
+    
+    public String getCharacteristics(){
+      return("kt="+this.len+"; d="+this.dim+"; c="+this.c+"; n="+this.n+"; startPoint="+Arrays.toString(this.start)+"; precision="+(this.single?"float":"double")+
+             (this.regenerable?"; regenerable : rng="+this.rng+"; seed="+this.seed+(this.stream<0?"":"; stream="+this.stream)+(this.segment==0?"":"; segment="+this.segment)
+                              :"; compressed : chunks="+this.chunkCount+" of "+this.chunk));
+    }
+  }
+  //-----------------------------------------------------------
+  
+  // Sinks and tasks //----------------------------------------
+  private static class CopySink implements PathSink{
+    // Copies the values of the time indexes from to from+count-1 to the indexes 0 to count-1 of a storage.
+    private PathStorage target;
+    private long from;
+    private int count;
+    private double[] row;
+    
+    private CopySink(PathStorage target, long from, int count){
+      this.target=target;
+      this.from=from;
+      this.count=count;
+      this.row=new double[target.getDim()];
+    }
+    
+    public void accept(long first, PathStorage segment, int count){
+      long lo=Math.max(first, this.from), hi=Math.min(first+count, this.from+this.count);
+      for(long t=lo; t<hi; t++){
+        segment.get((int)(t-first), this.row);
+        for(int j=0; j<this.row.length; j++){
+          this.target.set((int)(t-this.from), j, this.row[j]);
+        }
+      }
+    }
+  }
+  
+  private class Decoding extends RecursiveAction{
+    // Decodes the chunks lo to hi-1 into their place (the chunks hold multiples of 4 time indexes, so that no two tasks write the same residual of a FloatStorage).
+    private static final long serialVersionUID=1L;
+    private Entry e;
+    private long[] table;
+    private int lo, hi;
+    private PathStorage target;
+    
+    private Decoding(Entry e, long[] table, int lo, int hi, PathStorage target){
+      this.e=e;
+      this.table=table;
+      this.lo=lo;
+      this.hi=hi;
+      this.target=target;
+    }
+    
+    protected void compute(){
+      if(this.hi-this.lo>GRAIN){
+        int mid=(this.lo+this.hi)>>>1;
+        invokeAll(new Decoding(this.e, this.table, this.lo, mid, this.target), new Decoding(this.e, this.table, mid, this.hi, this.target));
+        return;
+      }
+      GorillaCodec codec=new GorillaCodec();
+      try{
+        for(int q=this.lo; q<this.hi; q++){
+          decode(this.e, this.table[q], q, codec, this.target, q*this.e.chunk);
+        }
+      }
+      catch(IOException ex){
+        throw new UncheckedIOException(ex);
+      }
+    }
+  }
+  //-----------------------------------------------------------
+  
+  // Main method //--------------------------------------------
+  public static void main(String[] args){
+    Map<String, String> pMap=Generator.parseArgs(args);
+    if(pMap.containsKey("help") || !pMap.containsKey("archive")){
+      System.out.println("Manual :\n"+
+                         "> Command line :\n"+
+                         ">> java -cp BrownianGenerator.jar BrownianGenerator.PathArchiveReader archive=... [path=...] [output=...] [output-format=...]\n"+
+                         "> Options :\n"+
+                         ">> archive : archive file written with output-format=archive (mandatory),\n"+
+                         ">> path : index of the path to extract, from 0 (optionnal, the paths are listed by default),\n"+
+                         ">> output : destination file of the extracted path (optionnal, default is the standard output),\n"+
+                         ">> output-format : text, npy or raw (optionnal, default at text ; npy and raw are streamed, whatever the length of the path).");
+      System.exit(-1);
+    }
+    try(PathArchiveReader r=new PathArchiveReader(pMap.get("archive"))){
+      if(!pMap.containsKey("path")){
+        for(int p=0; p<r.getPathCount(); p++){
+          System.out.println(p+" : "+r.getEntry(p).getCharacteristics());
+        }
+        return;
+      }
+      int p=0;
+      try{p=Integer.parseInt(pMap.get("path"));}
+      catch(NumberFormatException e){System.err.println("Error : option path is not parseable into integer."); System.exit(-1);}
+      if(p<0 || p>=r.getPathCount()){
+        System.err.println("Error : path is incorrect (path="+p+", the archive has "+r.getPathCount()+" paths).");
+        System.exit(-1);
+      }
+      String output=pMap.get("output");
+      String format=pMap.getOrDefault("output-format", "text");
+      if(format.equals("npy") || format.equals("raw")){
+        if(output==null){
+          System.err.println("Error : binary output formats need a destination file (output=...).");
+          System.exit(-1);
+        }
+        Entry e=r.getEntry(p);
+        try(FilePathSink sink=new FilePathSink(output, e.getLength(), e.getDim(), format.equals("npy"), e.isSingle())){
+          r.read(p, sink);
+        }
+      }
+      else if(format.equals("text")){
+        Brownian b=r.read(p);
+        if(output==null){
+          System.out.println(b);
+          return;
+        }
+        Generator.exportToFile(b, output);
+      }
+      else{
+        System.err.println("Error : option output-format must be text, npy or raw (output-format="+format+").");
+        System.exit(-1);
+      }
+      System.out.println("Path "+p+" successfully exported to \""+output+"\".");
+    }
+    catch(IOException e){
+      System.err.println("Error : IOException. See stack trace below."); e.printStackTrace(); System.exit(-1);
+    }
+  }
+  //-----------------------------------------------------------
+}
@@ -0,0 +1,276 @@
+// Title       : PathArchiveWriter.java
+// Description : This class writes many paths to one compact
+//               archive file, for long-term storage : each path
+//               is either compressed without loss (see
+//               GorillaCodec), by chunks which can be read back
+//               alone or decoded in parallel, or stored as the
+//               parameters which regenerate it (see
+//               PathArchiveReader).
+// Author      : agent.
+// Date        : 2026.
+// Notes       : The archive is written as a stream, path after
+//               path and chunk after chunk, only one chunk being
+//               held in memory. Format (big-endian) :
+//                 "BGA1", the records, the index, then
+//                 the index position (long), the number of
+//                 records (long) and "BGAE".
+//               Record : mode (byte, 0 compressed, 1 regenerable),
+//                 kt (long), d (int), c (double), n (int), the
+//                 starting point (d doubles), precision (byte, 0
+//                 double, 1 float), then
+//                 compressed  : chunk length L (int), the chunks
+//                               of L time indexes (the last one
+//                               may be shorter), each one as its
+//                               length in bytes (int) and its
+//                               encoding, then the positions of
+//                               the chunks in the file (longs),
+//                 regenerable : rng (UTF), seed (long), stream
+//                               (long, -1 for the source itself,
+//                               m for its m-th derived stream as
+//                               in BrownianEnsemble), segment
+//                               length (int, 0 for a path
+//                               generated in memory).
+//               Index : the positions of the records (longs).
+//               Close it once all the paths are written.
+
+package BrownianGenerator;
+
+import java.io.*; // for streams
+import java.util.Arrays; // for growing the tables
+
+public class PathArchiveWriter implements Closeable{
+  // Attributes //---------------------------------------------
+  static final int MAGIC=0x42474131; // "BGA1"
+  static final int END=0x42474145; // "BGAE"
+  static final byte COMPRESSED=0;
+  static final byte REGENERABLE=1;
+  public static final int DEFAULT_CHUNK=4096; // time indexes per chunk
+  private CountingOutputStream counter; // destination, counting the bytes written
+  private DataOutputStream out; // destination
+  private int chunk; // time indexes per chunk
+  private GorillaCodec codec=new GorillaCodec();
+  private long[] records=new long[64]; // positions of the records
+  private int count=0; // number of records
+  private Entry current; // path being written, null if none
+  private boolean closed=false;
+  //-----------------------------------------------------------
+  
+  // Constructors //-------------------------------------------
+  public PathArchiveWriter(String fileName) throws IOException{
+    // Constructor : creates (or truncates) the file, chunks of DEFAULT_CHUNK time indexes.
+    this(new FileOutputStream(fileName), DEFAULT_CHUNK);
+  }
+  public PathArchiveWriter(OutputStream out, int chunkLength) throws IOException{
+    // Constructor : complete.
+    // @param out the destination, closed with the archive
+    // @param chunkLength the number of time indexes per chunk, a multiple of 4 (the unit of random access and of parallel decoding)
+    if(chunkLength<4 || chunkLength%4!=0){
+      System.err.println("Error : chunk length must be a positive multiple of 4 (chunk="+chunkLength+").");
+      System.exit(-1);
+    }
+    this.counter=new CountingOutputStream(new BufferedOutputStream(out, 1<<16));
+    this.out=new DataOutputStream(this.counter);
+    this.chunk=chunkLength;
+    this.out.writeInt(MAGIC);
+  }
+  //-----------------------------------------------------------
+  
+  // Methods //------------------------------------------------
+  public void write(Brownian b) throws IOException{
+    // Writes a path held in memory, compressed (floats for a path in the FLOAT layout).
+    // @param b the path
+    // @return void
+    try(Entry e=begin(b.getLength(), b.getDim(), b.getIntervalLength(), b.getCut(), b.getStartPoint(), Generator.isSingle(b))){
+      e.accept(0, b.getStorage(), b.getLength());
+    }
+  }
+  
+  public Entry begin(long Kt, int dimension, double c, int N, double[] startPoint, boolean single) throws IOException{
+    // Starts a compressed path, whose values are then handed to the returned sink (by SegmentedBrownian.generate for instance) ; closing the sink ends the path.
+    // @param Kt the number of time indexes
+    // @param dimension the number of components
+    // @param c the interval length
+    // @param N the cut parameter
+    // @param startPoint the starting point (null for the origin)
+    // @param single true to round the values to floats, false to keep them as they are
+    // @return the sink of the values
+    header(COMPRESSED, Kt, dimension, c, N, startPoint, single);
+    this.out.writeInt(this.chunk);
+    this.current=new Entry(Kt, dimension, single);
+    return(this.current);
+  }
+  
+  public void writeRegenerable(long Kt, int dimension, double c, int N, double[] startPoint, boolean single, String rng, long seed, long stream, int segment) throws IOException{
+    // Writes the parameters which regenerate a Brownian motion (without process), a few dozen bytes whatever its length.
+    // @param Kt the number of time indexes
+    // @param dimension the number of components
+    // @param c the interval length
+    // @param N the cut parameter
+    // @param startPoint the starting point (null for the origin)
+    // @param single true for a path generated in single precision
+    // @param rng the Gaussian generator : ziggurat, philox or sobol
+    // @param seed the seed of the generator
+    // @param stream -1 if the path is drawn from the seeded source itself, m if it is drawn from its m-th derived stream
+    // @param segment 0 if the path is generated in memory, its segment length if it is generated by SegmentedBrownian
+    // @return void
+    if(!rng.equals("ziggurat") && !rng.equals("philox") && !rng.equals("sobol")){
+      System.err.println("Error : rng must be ziggurat, philox or sobol (rng="+rng+").");
+      System.exit(-1);
+    }
+    if(stream<-1 || segment<0){
+      System.err.println("Error : stream or segment is incorrect (stream="+stream+", segment="+segment+").");
+      System.exit(-1);
+    }
+    header(REGENERABLE, Kt, dimension, c, N, startPoint, single);
+    this.out.writeUTF(rng);
+    this.out.writeLong(seed);
+    this.out.writeLong(stream);
+    this.out.writeInt(segment);
+  }
+  
+  private void header(byte mode, long Kt, int dimension, double c, int N, double[] startPoint, boolean single) throws IOException{
+    // Starts a record.
+    if(this.current!=null){
+      throw new IllegalStateException("the previous path is not ended (close its entry).");
+    }
+    if(startPoint!=null && startPoint.length!=dimension){
+      System.err.println("Error : dimension of requested starting point is invalid (dimension : "+startPoint.length+", Brownian motion dimension : "+dimension+").");
+      System.exit(-1);
+    }
+    if(this.count==this.records.length){
+      this.records=Arrays.copyOf(this.records, 2*this.count);
+    }
+    this.records[this.count++]=this.counter.written;
+    this.out.writeByte(mode);
+    this.out.writeLong(Kt);
+    this.out.writeInt(dimension);
+    this.out.writeDouble(c);
+    this.out.writeInt(N);
+    for(int j=0; j<dimension; j++){
+      this.out.writeDouble(startPoint==null?0:startPoint[j]);
+    }
+    this.out.writeByte(single?1:0);
+  }
+  
+  public int getPathCount(){
+    return(this.count);
+  }
+  
+  public void close() throws IOException{
+    // Ends the current path if any, writes the index and closes the destination.
+    if(this.closed){
+      return;
+    }
+    if(this.current!=null){
+      this.current.close();
+    }
+    this.closed=true;
+    long index=this.counter.written;
+    for(int i=0; i<this.count; i++){
+      this.out.writeLong(this.records[i]);
+    }
+    this.out.writeLong(index);
+    this.out.writeLong(this.count);
+    this.out.writeInt(END);
+    this.out.close();
+  }
+  //-----------------------------------------------------------
+  
+  // Entries //------------------------------------------------
+  public class Entry implements PathSink, Closeable{
+    // A compressed path being written : the values are gathered into chunks, each one being encoded and written when full.
+    private long len; // number of time indexes announced
+    private long received=0; // number of time indexes received
+    private boolean single; // values rounded to floats
+    private ComponentMajorStorage buffer; // values of the current chunk
+    private int fill=0; // number of time indexes in the buffer
+    private double[] row; // one time index
+    private long[] chunks=new long[64]; // positions of the chunks written
+    private int chunkCount=0;
+    
+    private Entry(long Kt, int dimension, boolean single){
+      this.len=Kt;
+      this.single=single;
+      this.buffer=new ComponentMajorStorage(dimension, chunk);
+      this.row=new double[dimension];
+    }
+    
+    public void accept(long first, PathStorage segment, int count) throws IOException{
+      // Whole chunks are encoded from the segment itself, the others are gathered in the buffer.
+      if(first!=this.received || this.received+count>this.len){
+        throw new IllegalStateException("the time indexes must come in order, kt at most (expected "+this.received+", got "+first+").");
+      }
+      boolean direct=(!this.single || segment.getLayout()==PathLayout.FLOAT); // no rounding needed
+      int i=0;
+      while(i<count){
+        if(direct && this.fill==0 && count-i>=chunk){
+          writeChunk(segment, i, chunk);
+          i+=chunk;
+          continue;
+        }
+        int k=Math.min(chunk-this.fill, count-i);
+        for(int t=0; t<k; t++){
+          segment.get(i+t, this.row);
+          for(int j=0; j<this.row.length; j++){
+            this.buffer.set(this.fill+t, j, (this.single?(double)((float)(this.row[j])):this.row[j]));
+          }
+        }
+        this.fill+=k;
+        i+=k;
+        if(this.fill==chunk){
+          writeChunk(this.buffer, 0, chunk);
+          this.fill=0;
+        }
+      }
+      this.received+=count;
+    }
+    
+    private void writeChunk(PathStorage values, int from, int count) throws IOException{
+      if(this.chunkCount==this.chunks.length){
+        this.chunks=Arrays.copyOf(this.chunks, 2*this.chunkCount);
+      }
+      this.chunks[this.chunkCount++]=counter.written;
+      int length=codec.encode(values, from, count);
+      out.writeInt(length);
+      out.write(codec.getBytes(), 0, length);
+    }
+    
+    public void close() throws IOException{
+      // Writes the last chunk and the chunk positions, ending the path.
+      if(current!=this){
+        return;
+      }
+      if(this.received!=this.len){
+        throw new IllegalStateException("the path has "+this.len+" time indexes, "+this.received+" were written.");
+      }
+      if(this.fill>0){
+        writeChunk(this.buffer, 0, this.fill);
+      }
+      for(int q=0; q<this.chunkCount; q++){
+        out.writeLong(this.chunks[q]);
+      }
+      current=null;
+    }
+  }
+  //-----------------------------------------------------------
+  
+  // Counting stream //----------------------------------------
+  private static class CountingOutputStream extends FilterOutputStream{
+    // Counts the bytes written, which give the positions of the records and of the chunks.
+    private long written=0;
+    
+    private CountingOutputStream(OutputStream out){
+      super(out);
+    }
+    
+    public void write(int b) throws IOException{
+      this.out.write(b);
+      this.written++;
+    }
+    public void write(byte[] b, int off, int len) throws IOException{
+      this.out.write(b, off, len);
+      this.written+=len;
+    }
+  }
+  //-----------------------------------------------------------
+}
@@ -0,0 +1,19 @@
+// Title       : PathConsumer.java
+// Description : This interface describes a callback receiving
+//               the paths of an ensemble one by one (see
+//               BrownianEnsemble).
+// Author      : agent.
+// Date        : 2026.
+// Notes       : None.
+
+package BrownianGenerator;
+
+public interface PathConsumer{
+  // Methods //------------------------------------------------
+  public void accept(long index, Brownian b);
+    // Receives one path of an ensemble. Calls may come from several threads at once, and the path is only valid during the call : its storage is reused for the next path of the same thread.
+    // @param index the index of the path in the ensemble
+    // @param b the path
+    // @return void
+  //-----------------------------------------------------------
+}
@@ -0,0 +1,19 @@
+// Title       : PathFunctional.java
+// Description : This interface describes a quantity of interest
+//               computed from a path (a payoff, a hitting
+//               indicator...), whose expectation is estimated by
+//               Monte Carlo (see MultilevelBrownian).
+// Author      : agent.
+// Date        : 2026.
+// Notes       : None.
+
+package BrownianGenerator;
+
+public interface PathFunctional{
+  // Methods //------------------------------------------------
+  public double apply(Brownian b);
+    // Returns the quantity of interest of a path. Calls may come from several threads at once, and the path is only valid during the call.
+    // @param b the path
+    // @return the quantity
+  //-----------------------------------------------------------
+}
@@ -0,0 +1,16 @@
+// Title       : PathLayout.java
+// Description : This enumeration lists the memory layouts in
+//               which a Brownian motion path can be stored (see
+//               PathStorage).
+// Author      : agent.
+// Date        : 2026.
+// Notes       : None.
+
+package BrownianGenerator;
+
+public enum PathLayout{
+  COMPONENT_MAJOR, // one heap table per component, each of length Kt (default)
+  INTERLEAVED, // one heap table of length Kt x d, time-major : the d components of a time index are contiguous
+  OFF_HEAP, // one set of direct buffers per component, outside of the Java heap
+  FLOAT // one heap table of floats per component : single precision, half the memory (see FloatStorage)
+}
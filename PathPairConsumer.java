@@ -0,0 +1,21 @@
+// Title       : PathPairConsumer.java
+// Description : This interface describes a callback receiving
+//               the coupled coarse/fine path pairs of a level of
+//               a multilevel Monte Carlo estimator one by one
+//               (see MultilevelBrownian).
+// Author      : agent.
+// Date        : 2026.
+// Notes       : None.
+
+package BrownianGenerator;
+
+public interface PathPairConsumer{
+  // Methods //------------------------------------------------
+  public void accept(long index, Brownian coarse, Brownian fine);
+    // Receives one pair of a level. Calls may come from several threads at once, and the paths are only valid during the call : their storages are reused for the next pair of the same thread.
+    // @param index the index of the pair in the level
+    // @param coarse the path on the grid of the previous level (null at level 0)
+    // @param fine the path on the grid of the level
+    // @return void
+  //-----------------------------------------------------------
+}
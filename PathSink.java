@@ -0,0 +1,22 @@
+// Title       : PathSink.java
+// Description : This interface describes the destination of a
+//               path generated segment by segment (see
+//               SegmentedBrownian) : a file, a consumer...
+// Author      : agent.
+// Date        : 2026.
+// Notes       : None.
+
+package BrownianGenerator;
+
+import java.io.IOException; // for writing sinks
+
+public interface PathSink{
+  // Methods //------------------------------------------------
+  public void accept(long first, PathStorage segment, int count) throws IOException;
+    // Receives the values of the path at the time indexes first to first+count-1, held at the indexes 0 to count-1 of the segment storage. Segments come in order, from a single thread, and the storage is only valid during the call : it is reused for a later segment.
+    // @param first the time index of the first value
+    // @param segment the storage holding the values
+    // @param count the number of time indexes
+    // @return void
+  //-----------------------------------------------------------
+}
@@ -0,0 +1,22 @@
+// Title       : PathStatistic.java
+// Description : This interface describes a statistic computed
+//               while a path is generated, in the last pass over
+//               its values (see Brownian and StatisticSink).
+// Author      : agent.
+// Date        : 2026.
+// Notes       : See PathSummary, QuadraticVariation and
+//               HittingTimes.
+
+package BrownianGenerator;
+
+public interface PathStatistic{
+  // Methods //------------------------------------------------
+  public void accept(long first, PathStorage values, int from, int count);
+    // Receives the final values of the path at the time indexes first to first+count-1, held at the indexes from to from+count-1 of the storage, right after they are written (so while they are in cache). The runs of a path may come in any order (the general mode writes the path backwards), but each time index comes exactly once : the result must not depend on the order. The storage must not be modified.
+    // @param first the time index of the first value
+    // @param values the storage holding the values
+    // @param from the index of the first value in the storage
+    // @param count the number of time indexes
+    // @return void
+  //-----------------------------------------------------------
+}
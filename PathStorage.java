@@ -0,0 +1,177 @@
+// Title       : PathStorage.java
+// Description : This abstract class describes the storage of
+//               the values of a d-dimensional Brownian motion
+//               path over Kt time indexes, with accessors that
+//               never allocate.
+// Author      : agent.
+// Date        : 2026.
+// Notes       : Indexes are not checked here, see Brownian.
+
+package BrownianGenerator;
+
+import java.nio.DoubleBuffer; // for views
+
+public abstract class PathStorage{
+  // Attributes //---------------------------------------------
+  protected int len; // number of time indexes
+  protected int dim; // number of components
+  //-----------------------------------------------------------
+  
+  // Constructors //-------------------------------------------
+  protected PathStorage(int dimension, int Kt){
+    this.len=Kt;
+    this.dim=dimension;
+    if(GeneratorStats.ENABLED){
+      GeneratorStats.ARRAYS.increment();
+    }
+  }
+  
+  public static PathStorage allocate(PathLayout layout, int dimension, int Kt){
+    // Allocates a storage in the wanted layout, filled with zeros.
+    // @param layout the wanted layout
+    // @param dimension the number of components
+    // @param Kt the number of time indexes
+    // @return the new storage
+    switch(layout){
+      case INTERLEAVED : return(new InterleavedStorage(dimension, Kt));
+      case OFF_HEAP : return(new OffHeapStorage(dimension, Kt));
+      case FLOAT : return(new FloatStorage(dimension, Kt));
+      default : return(new ComponentMajorStorage(dimension, Kt));
+    }
+  }
+  //-----------------------------------------------------------
+  
+  // Methods //------------------------------------------------
+  public abstract double get(int t, int j);
+    // Returns the j-th component at time index t.
+  
+  public abstract void set(int t, int j, double v);
+    // Sets the j-th component at time index t.
+  
+  public abstract PathLayout getLayout();
+    // Returns the layout of the storage.
+  
+  public void add(int t, int j, double v){
+    // Adds a value to the j-th component at time index t.
+    set(t, j, get(t, j)+v);
+  }
+  
+  public void get(int t, double[] out){
+    // Copies the d components at time index t into a table given by the caller.
+    // @param t the time index
+    // @param out the table receiving the components (of length d at least)
+    // @return void
+    for(int j=0; j<this.dim; j++){
+      out[j]=get(t, j);
+    }
+  }
+  
+  public void clear(){
+    // Fills the storage with zeros.
+    for(int j=0; j<this.dim; j++){
+      for(int t=0; t<this.len; t++){
+        set(t, j, 0.0);
+      }
+    }
+  }
+  
+  void midpoints(int first, int stride, int count, double height, double[] g){
+    // Kernel of the midpoint refinement : for the count supports [first+k*stride, first+(k+1)*stride], sets the value at the middle to the mean of the two ends plus height*g[k*d+j]. Layouts override it to run along their contiguous direction.
+    // @param first the start of the first support
+    // @param stride the width of the supports (even)
+    // @param count the number of supports
+    // @param height the height of the wavelets
+    // @param g the coefficients, the d ones of a wavelet being contiguous
+    // @return void
+    int half=stride/2;
+    for(int j=0; j<this.dim; j++){
+      int st=first;
+      for(int k=0; k<count; k++){
+        set(st+half, j, 0.5*(get(st, j)+get(st+stride, j))+height*g[k*this.dim+j]);
+        st+=stride;
+      }
+    }
+  }
+  
+  void interpolate(int stride, int first, int last){
+    // Kernel of the linear fill : sets the values between the nodes first, first+stride, ..., last by linear interpolation.
+    // @param stride the spacing of the nodes
+    // @param first the first node
+    // @param last the last node
+    // @return void
+    double inv=1/(double)(stride);
+    for(int j=0; j<this.dim; j++){
+      for(int st=first; st<last; st+=stride){
+        double b0=get(st, j);
+        double slope=(get(st+stride, j)-b0)*inv;
+        for(int i=1; i<stride; i++){
+          set(st+i, j, b0+i*slope);
+        }
+      }
+    }
+  }
+  
+  void resample(SchauderBasis plan, int from, int to){
+    // Kernel of the general mode : the nodes of the dyadic grid of the plan, held at the indexes 0..M, are spread over the time indexes from..to-1 by linear interpolation (M<Kt-1), in place.
+    // Index i lies between the nodes q=node[i] and q+1 with q<i (or q=i=0). Going down from the end, the nodes needed are never overwritten : ranges must be resampled from the last one down to the first one.
+    // @param plan the interpolation plan of the path (see SchauderBasis)
+    // @param from the first index of the range
+    // @param to the index after the range
+    // @return void
+    int low=Math.max(from, 1); // index 0 is a node
+    if(plan.isStepped()){ // the node and the weight of each index are stepped down from the end of the range
+      int M=plan.getNodeCount(), last=plan.getLength()-1;
+      double inv=1/(double)(last);
+      for(int j=0; j<this.dim; j++){
+        int q=plan.getNode(to-1);
+        long r=(long)(to-1)*M-(long)(q)*last; // i*M-q*last
+        for(int i=to-1; i>=low; i--){
+          double b0=get(q, j);
+          set(i, j, (r==0?b0:b0+(get(q+1, j)-b0)*(r*inv)));
+          r-=M;
+          if(r<0){
+            r+=last;
+            q--;
+          }
+        }
+      }
+      return;
+    }
+    int[] node=plan.getNodes();
+    double[] weight=plan.getWeights();
+    for(int j=0; j<this.dim; j++){
+      for(int i=to-1; i>=low; i--){
+        int q=node[i];
+        double w=weight[i];
+        double b0=get(q, j);
+        set(i, j, (w==0?b0:b0+(get(q+1, j)-b0)*w));
+      }
+    }
+  }
+  
+  void offset(double[] x){
+    // Adds x[j] to the j-th component at every time index.
+    for(int j=0; j<this.dim; j++){
+      for(int t=0; t<this.len; t++){
+        set(t, j, get(t, j)+x[j]);
+      }
+    }
+  }
+  
+  public DoubleBuffer getComponentView(int j){
+    // Returns a view (no copy) of the Kt values of the j-th component. Only layouts storing each component contiguously provide it.
+    // @param j the component
+    // @return a read-write view, index t holding the value at time index t
+    System.err.println("Error : the "+getLayout()+" layout has no contiguous component view, use get(t, j).");
+    System.exit(-1);
+    return(null);
+  }
+  
+  public int getLength(){
+    return(this.len);
+  }
+  public int getDim(){
+    return(this.dim);
+  }
+  //-----------------------------------------------------------
+}
@@ -0,0 +1,93 @@
+// Title       : PathSummary.java
+// Description : This class computes, while a path is generated,
+//               the maximum, the minimum, their first times and
+//               the terminal value of each component.
+// Author      : agent.
+// Date        : 2026.
+// Notes       : One instance per path.
+
+package BrownianGenerator;
+
+import java.util.Arrays; // for initialisation
+
+public class PathSummary implements PathStatistic{
+  // Attributes //---------------------------------------------
+  private double[] max; // running maximum of each component
+  private double[] min; // running minimum of each component
+  private long[] argMax; // first time index of the maximum
+  private long[] argMin; // first time index of the minimum
+  private double[] terminal; // value at the last time index seen
+  private long last=-1; // last time index seen
+  //-----------------------------------------------------------
+  
+  // Methods //------------------------------------------------
+  public void accept(long first, PathStorage values, int from, int count){
+    int dim=values.getDim();
+    if(this.max==null){
+      this.max=new double[dim];
+      this.min=new double[dim];
+      this.argMax=new long[dim];
+      this.argMin=new long[dim];
+      this.terminal=new double[dim];
+      Arrays.fill(this.max, Double.NEGATIVE_INFINITY);
+      Arrays.fill(this.min, Double.POSITIVE_INFINITY);
+    }
+    for(int j=0; j<dim; j++){
+      double mx=this.max[j], mn=this.min[j];
+      long amx=this.argMax[j], amn=this.argMin[j];
+      for(int i=0; i<count; i++){
+        double v=values.get(from+i, j);
+        long t=first+i;
+        if(v>mx || (v==mx && t<amx)){ // first time on ties, whatever the order of the runs
+          mx=v;
+          amx=t;
+        }
+        if(v<mn || (v==mn && t<amn)){
+          mn=v;
+          amn=t;
+        }
+      }
+      this.max[j]=mx;
+      this.min[j]=mn;
+      this.argMax[j]=amx;
+      this.argMin[j]=amn;
+    }
+    long end=first+count-1;
+    if(end>this.last){
+      this.last=end;
+      for(int j=0; j<dim; j++){
+        this.terminal[j]=values.get(from+count-1, j);
+      }
+    }
+  }
+  
+  public double getMax(int j){
+    return(this.max[j]);
+  }
+  public double getMin(int j){
+    return(this.min[j]);
+  }
+  public long getArgMax(int j){
+    // Returns the first time index where the j-th component reaches its maximum.
+    return(this.argMax[j]);
+  }
+  public long getArgMin(int j){
+    // Returns the first time index where the j-th component reaches its minimum.
+    return(this.argMin[j]);
+  }
+  public double getTerminal(int j){
+    // Returns the value of the j-th component at the last time index.
+    return(this.terminal[j]);
+  }
+  //-----------------------------------------------------------
+  
+  // toString redefinition //----------------------------------
+  public String toString(){
+    StringBuilder sb=new StringBuilder();
+    for(int j=0; this.max!=null && j<this.max.length; j++){
+      sb.append("component "+j+" : max "+this.max[j]+" at "+this.argMax[j]+", min "+this.min[j]+" at "+this.argMin[j]+", terminal "+this.terminal[j]+"\n");
+    }
+    return(sb.toString());
+  }
+  //-----------------------------------------------------------
+}
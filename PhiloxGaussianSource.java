@@ -0,0 +1,151 @@
+// Title       : PhiloxGaussianSource.java
+// Description : This class implements a counter-based Gaussian
+//               source : the Philox4x32-10 generator of Salmon
+//               et al. (2011) followed by the Box-Muller
+//               transform. The i-th Gaussian of a stream only
+//               depends on (seed, stream, i), so the source can
+//               jump ahead at no cost.
+// Author      : agent.
+// Date        : 2026.
+// Notes       : Not thread-safe, one source per thread.
+
+package BrownianGenerator;
+
+import java.util.SplittableRandom; // for unseeded sources
+
+public class PhiloxGaussianSource implements GaussianSource{
+  // Attributes //---------------------------------------------
+  private static final long M0=0xD2511F53L; // multipliers
+  private static final long M1=0xCD9E8D57L;
+  private static final int W0=0x9E3779B9; // key schedule (Weyl sequence)
+  private static final int W1=0xBB67AE85;
+  private static final long MASK=0xFFFFFFFFL; // lower 32 bits
+  private long key; // 64-bit key, that means the seed
+  private long stream; // 64-bit stream identifier (upper half of the counter)
+  private long index; // index of the next Gaussian in the stream (each counter value gives two)
+  private double spare; // second Gaussian of the current block
+  private final int[] words=new int[4]; // output of the current block (raw bits)
+  private final double[] pair=new double[2]; // output of the current block (Gaussians)
+  //-----------------------------------------------------------
+  
+  // Constructors //-------------------------------------------
+  public PhiloxGaussianSource(){
+    // Constructor : unseeded.
+    this(new SplittableRandom().nextLong(), 0);
+  }
+  public PhiloxGaussianSource(long seed){
+    // Constructor : seeded, reproducible.
+    this(seed, 0);
+  }
+  public PhiloxGaussianSource(long seed, long stream){
+    // Constructor : complete.
+    this.key=seed;
+    this.stream=stream;
+    this.index=0;
+  }
+  //-----------------------------------------------------------
+  
+  // Methods //------------------------------------------------
+  public void fill(double[] g, int offset, int length){
+    // Fills a part of a table with independent standard Gaussian numbers.
+    // @param g the table to fill
+    // @param offset the index of the first value to fill
+    // @param length the number of values to fill
+    // @return void
+    int i=offset;
+    int end=offset+length;
+    if(i<end && (this.index&1)==1){ // second half of a block already drawn
+      g[i++]=this.spare;
+      this.index++;
+    }
+    while(i<end){
+      block(this.key, this.stream, this.index>>>1, this.words, this.pair);
+      g[i++]=this.pair[0];
+      this.spare=this.pair[1];
+      this.index++;
+      if(i<end){
+        g[i++]=this.spare;
+        this.index++;
+      }
+    }
+  }
+  
+  public GaussianSource derive(long stream){
+    // Returns an independent source with the same key, on a counter range identified by a hash of this stream and of the given identifier.
+    // @param stream the stream identifier
+    // @return a new source
+    return(new PhiloxGaussianSource(this.key, Util.mix64(this.stream+Util.mix64(stream))));
+  }
+  
+  public void skip(long n){
+    // Jumps ahead in the stream, as if n Gaussians had been drawn.
+    // @param n the number of Gaussians to skip
+    // @return void
+    if(n<0){
+      System.err.println("Error : cannot jump backwards in a Gaussian stream (n="+n+").");
+      System.exit(-1);
+    }
+    this.index+=n;
+    if((this.index&1)==1){ // restore the spare Gaussian of the block we landed in
+      block(this.key, this.stream, this.index>>>1, this.words, this.pair);
+      this.spare=this.pair[1];
+    }
+  }
+  
+  public long getIndex(){
+    // Returns the index of the next Gaussian in the stream.
+    return(this.index);
+  }
+  
+  public static double gaussian(long seed, long stream, long index){
+    // Returns the index-th Gaussian of a stream directly, without any state.
+    // @param seed the key of the generator
+    // @param stream the stream identifier
+    // @param index the index of the wanted Gaussian in the stream
+    // @return the wanted standard Gaussian number
+    double[] pair=new double[2];
+    block(seed, stream, index>>>1, new int[4], pair);
+    return(pair[(int)(index&1)]);
+  }
+  
+  public static void block(long seed, long stream, long counter, int[] words, double[] pair){
+    // Computes the two Gaussians of one counter value : Philox4x32-10 gives 128 random bits, that is two 53-bit uniforms, mapped by Box-Muller.
+    // @param seed the key of the generator
+    // @param stream the stream identifier (upper 64 bits of the counter)
+    // @param counter the lower 64 bits of the counter
+    // @param words a scratch table of length 4 receiving the raw bits
+    // @param pair the table receiving the two Gaussians
+    // @return void
+    bits(seed, stream, counter, words);
+    double u1=((((words[0]&MASK)<<32|(words[1]&MASK))>>>11)+0.5)*0x1.0p-53; // in ]0, 1[
+    double u2=((((words[2]&MASK)<<32|(words[3]&MASK))>>>11)+0.5)*0x1.0p-53;
+    double rad=Math.sqrt(-2*Math.log(u1));
+    double theta=2*Math.PI*u2;
+    pair[0]=rad*Math.cos(theta);
+    pair[1]=rad*Math.sin(theta);
+  }
+  
+  public static void bits(long seed, long stream, long counter, int[] out){
+    // Raw Philox4x32-10 output : ten rounds of two 32x32->64 multiplications, with a Weyl key schedule.
+    // @param seed the key of the generator
+    // @param stream the stream identifier (upper 64 bits of the counter)
+    // @param counter the lower 64 bits of the counter
+    // @param out the table receiving the four 32-bit words
+    // @return void
+    int c0=(int)counter, c1=(int)(counter>>>32), c2=(int)stream, c3=(int)(stream>>>32);
+    int k0=(int)seed, k1=(int)(seed>>>32);
+    long p0, p1;
+    for(int r=0; r<10; r++){
+      p0=M0*(c0&MASK);
+      p1=M1*(c2&MASK);
+      c0=(int)(p1>>>32)^c1^k0;
+      c1=(int)p1;
+      c2=(int)(p0>>>32)^c3^k1;
+      c3=(int)p0;
+      k0+=W0;
+      k1+=W1;
+    }
+    out[0]=c0; out[1]=c1; out[2]=c2; out[3]=c3;
+  }
+  //-----------------------------------------------------------
+}
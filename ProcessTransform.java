@@ -0,0 +1,236 @@
+// Title       : ProcessTransform.java
+// Description : This class maps a Brownian motion, in place and
+//               during the last pass of its generation, to a
+//               correlated Brownian motion with drift, a geometric
+//               Brownian motion or an Ornstein-Uhlenbeck process.
+// Author      : agent.
+// Date        : 2026.
+// Notes       : W denotes the path minus its starting point x0,
+//               t_i=i*c/(Kt-1) the time of index i, and L the
+//               Cholesky factor of the covariance matrix (the
+//               identity by default) :
+//                 brownian : X=x0+drift*t+L*W,
+//                 gbm      : X=x0*exp((drift-diag(cov)/2)*t+L*W),
+//                 ou       : X_i=a*X_(i-1)+(1-a)*mean+s*(L*W_i-L*W_(i-1)),
+//                            a=exp(-theta*dt), s=sqrt((1-a^2)/(2*theta*dt)),
+//               the exact discretisation of
+//               dX=theta*(mean-X)*dt+L*dW. One instance per path.
+
+package BrownianGenerator;
+
+import java.util.Arrays; // for characteristics
+
+public class ProcessTransform{
+  // Attributes //---------------------------------------------
+  public enum Process{BROWNIAN, GBM, OU};
+  
+  private Process process; // wanted process
+  private int dim; // dimension
+  private double[] drift; // drift (brownian, gbm) or long-term mean (ou), zeros by default
+  private double[] theta; // mean reversion rates (ou only)
+  private double[][] chol; // lower Cholesky factor of the covariance, null for the identity
+  private double[] covariance; // covariance, row by row (null for the identity)
+  private double[] variance; // diagonal of the covariance
+  
+  private double[] x0; // starting point of the path being transformed
+  private double[] origin; // point the values to transform start from (x0, or zeros when W is given alone)
+  private double dt; // time step of the path being transformed
+  private double[] row; // values of one time index
+  private double[] a; // exp(-theta*dt) (ou only)
+  private double[] s; // sqrt((1-a^2)/(2*theta*dt)) (ou only)
+  private double[] prevW; // L*W at the previous index (ou only)
+  private double[] prevX; // X at the previous index (ou only)
+  private long next; // next time index expected (ou only, the indexes must come in order)
+  //-----------------------------------------------------------
+  
+  // Constructors //-------------------------------------------
+  public ProcessTransform(Process process, int dimension, double[] drift, double[] covariance, double[] theta){
+    // @param process the wanted process
+    // @param dimension the dimension of the paths
+    // @param drift the drift (brownian, gbm) or the long-term mean (ou), null for zeros
+    // @param covariance the d x d covariance matrix of the increments per unit of time, row by row, null for the identity
+    // @param theta the mean reversion rate of each component (ou only, a single value applying to all the components)
+    // @throws IllegalArgumentException if a parameter is invalid
+    this.process=process;
+    this.dim=dimension;
+    this.drift=(drift==null?new double[dimension]:drift.clone());
+    if(this.drift.length!=dimension){
+      throw new IllegalArgumentException("dimension of the drift is invalid (dimension : "+this.drift.length+", Brownian motion dimension : "+dimension+").");
+    }
+    this.variance=new double[dimension];
+    Arrays.fill(this.variance, 1.0);
+    if(covariance!=null){
+      if(covariance.length!=dimension*dimension){
+        throw new IllegalArgumentException("the covariance must have d x d values (values : "+covariance.length+", Brownian motion dimension : "+dimension+").");
+      }
+      this.covariance=covariance.clone();
+      this.chol=cholesky(covariance, dimension);
+      for(int j=0; j<dimension; j++){
+        this.variance[j]=covariance[j*dimension+j];
+      }
+    }
+    if(process==Process.OU){
+      if(theta==null || (theta.length!=1 && theta.length!=dimension)){
+        throw new IllegalArgumentException("the ou process needs one mean reversion rate, or one per component.");
+      }
+      this.theta=new double[dimension];
+      for(int j=0; j<dimension; j++){
+        this.theta[j]=theta[theta.length==1?0:j];
+        if(this.theta[j]<0){
+          throw new IllegalArgumentException("mean reversion rates must be non-negative (theta="+this.theta[j]+").");
+        }
+      }
+    }
+    this.row=new double[dimension];
+    this.a=new double[dimension];
+    this.s=new double[dimension];
+    this.prevW=new double[dimension];
+    this.prevX=new double[dimension];
+  }
+  //-----------------------------------------------------------
+  
+  // Methods //------------------------------------------------
+  private static double[][] cholesky(double[] a, int d){
+    // Returns the lower triangular L such that L*L^T is the given symmetric positive definite matrix.
+    double[][] l=new double[d][d];
+    for(int i=0; i<d; i++){
+      for(int j=0; j<=i; j++){
+        if(a[i*d+j]!=a[j*d+i]){
+          throw new IllegalArgumentException("the covariance is not symmetric.");
+        }
+        double s=a[i*d+j];
+        for(int k=0; k<j; k++){
+          s-=l[i][k]*l[j][k];
+        }
+        if(i==j){
+          if(!(s>0)){
+            throw new IllegalArgumentException("the covariance is not positive definite.");
+          }
+          l[i][i]=Math.sqrt(s);
+        }
+        else{
+          l[i][j]=s/l[j][j];
+        }
+      }
+    }
+    return(l);
+  }
+  
+  public void start(double[] startPoint, long Kt, double c){
+    // Prepares the transform of a new path, the values given being x0+W. Must be called before the first values of each path.
+    // @param startPoint the starting point of the Brownian motion (x0)
+    // @param Kt the number of discretisation points
+    // @param c the interval length
+    // @return void
+    // @throws IllegalArgumentException if the starting point does not suit the process
+    start(startPoint, startPoint, Kt, c);
+  }
+  
+  void start(double[] startPoint, double[] origin, long Kt, double c){
+    // Same as start(startPoint, Kt, c), the values given starting from origin (the origin itself when W is generated alone, see Brownian).
+    if(startPoint.length!=this.dim){
+      throw new IllegalArgumentException("dimension of the starting point is invalid (dimension : "+startPoint.length+", Brownian motion dimension : "+this.dim+").");
+    }
+    if(this.process==Process.GBM){
+      for(double x : startPoint){
+        if(!(x>0)){
+          throw new IllegalArgumentException("the starting point of a geometric Brownian motion must be positive.");
+        }
+      }
+    }
+    this.x0=startPoint.clone();
+    this.origin=origin.clone();
+    this.dt=(Kt>1?c/(Kt-1):0);
+    this.next=0;
+    if(this.process==Process.OU){
+      for(int j=0; j<this.dim; j++){
+        double k=this.theta[j]*this.dt;
+        this.a[j]=Math.exp(-k);
+        this.s[j]=(k==0?1:Math.sqrt(-Math.expm1(-2*k)/(2*k))); // theta=0 : Brownian motion
+      }
+    }
+  }
+  
+  public boolean isSequential(){
+    // Returns true if the time indexes must be transformed in order (ou), false if each one is transformed alone.
+    return(this.process==Process.OU);
+  }
+  
+  public void apply(long first, PathStorage values, int from, int count){
+    // Transforms in place the values of the path at the time indexes first to first+count-1, held at the indexes from to from+count-1 of the storage.
+    // @param first the time index of the first value
+    // @param values the storage holding the values
+    // @param from the index of the first value in the storage
+    // @param count the number of time indexes
+    // @return void
+    if(this.process==Process.OU && first!=this.next){
+      throw new IllegalStateException("the ou transform needs the time indexes in order (expected "+this.next+", got "+first+").");
+    }
+    double[] r=this.row;
+    for(int i=0; i<count; i++){
+      int p=from+i;
+      values.get(p, r);
+      for(int j=0; j<this.dim; j++){ // W
+        r[j]-=this.origin[j];
+      }
+      correlate(r);
+      double t=(first+i)*this.dt;
+      switch(this.process){
+        case BROWNIAN :
+          for(int j=0; j<this.dim; j++){
+            values.set(p, j, this.x0[j]+this.drift[j]*t+r[j]);
+          }
+          break;
+        case GBM :
+          for(int j=0; j<this.dim; j++){
+            values.set(p, j, this.x0[j]*Math.exp((this.drift[j]-0.5*this.variance[j])*t+r[j]));
+          }
+          break;
+        case OU :
+          for(int j=0; j<this.dim; j++){
+            double x;
+            if(first+i==0){
+              x=this.x0[j];
+            }
+            else{
+              x=this.a[j]*this.prevX[j]+(1-this.a[j])*this.drift[j]+this.s[j]*(r[j]-this.prevW[j]);
+            }
+            this.prevW[j]=r[j];
+            this.prevX[j]=x;
+            values.set(p, j, x);
+          }
+          break;
+      }
+    }
+    this.next=first+count;
+  }
+  
+  private void correlate(double[] w){
+    // Replaces w by L*w, in place (L being lower triangular, the components are computed from the last one).
+    if(this.chol==null){
+      return;
+    }
+    for(int i=this.dim-1; i>=0; i--){
+      double s=0;
+      for(int k=0; k<=i; k++){
+        s+=this.chol[i][k]*w[k];
+      }
+      w[i]=s;
+    }
+  }
+  
+  public Process getProcess(){
+    return(this.process);
+  }
+  public int getDim(){
+    return(this.dim);
+  }
+  
+  public String getCharacteristics(){
+    return("process="+this.process.name().toLowerCase()+
+           "; drift="+Arrays.toString(this.drift)+
+           (this.covariance==null?"":"; covariance="+Arrays.toString(this.covariance))+
+           (this.theta==null?"":"; theta="+Arrays.toString(this.theta)));
+  }
+  //-----------------------------------------------------------
+}
@@ -0,0 +1,72 @@
+// Title       : QuadraticVariation.java
+// Description : This class computes, while a path is generated,
+//               the quadratic variation of each component, that
+//               means the sum of its squared increments.
+// Author      : agent.
+// Date        : 2026.
+// Notes       : One instance per path. For a path of length c,
+//               the result tends to c when Kt and N grow.
+
+package BrownianGenerator;
+
+import java.util.HashMap; // for the ends of the runs
+import java.util.Map; // for the ends of the runs
+
+public class QuadraticVariation implements PathStatistic{
+  // Attributes //---------------------------------------------
+  private double[] sum; // sum of the squared increments of each component
+  private Map<Long, double[]> firsts=new HashMap<Long, double[]>(); // first values of the runs whose previous index was not seen yet
+  private Map<Long, double[]> lasts=new HashMap<Long, double[]>(); // last values of the runs whose next index was not seen yet
+  //-----------------------------------------------------------
+  
+  // Methods //------------------------------------------------
+  public void accept(long first, PathStorage values, int from, int count){
+    // The increments inside the run are added at once, the two across its ends as soon as the neighbouring run is seen.
+    int dim=values.getDim();
+    if(this.sum==null){
+      this.sum=new double[dim];
+    }
+    for(int j=0; j<dim; j++){
+      double s=0;
+      double prev=values.get(from, j);
+      for(int i=1; i<count; i++){
+        double v=values.get(from+i, j);
+        double dv=v-prev;
+        s+=dv*dv;
+        prev=v;
+      }
+      this.sum[j]+=s;
+    }
+    long end=first+count-1;
+    double[] a=new double[dim], b=new double[dim];
+    values.get(from, a);
+    values.get(from+count-1, b);
+    double[] before=this.lasts.remove(first-1);
+    if(before!=null){
+      add(before, a);
+    }
+    else{
+      this.firsts.put(first, a);
+    }
+    double[] after=this.firsts.remove(end+1);
+    if(after!=null){
+      add(b, after);
+    }
+    else{
+      this.lasts.put(end, b);
+    }
+  }
+  
+  private void add(double[] x, double[] y){
+    for(int j=0; j<x.length; j++){
+      double dv=y[j]-x[j];
+      this.sum[j]+=dv*dv;
+    }
+  }
+  
+  public double get(int j){
+    // Returns the quadratic variation of the j-th component.
+    return(this.sum[j]);
+  }
+  //-----------------------------------------------------------
+}
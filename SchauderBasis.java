@@ -0,0 +1,206 @@
+// Title       : SchauderBasis.java
+// Description : This class holds the part of the Faber-Schauder
+//               decomposition that does not depend on the
+//               coefficients : for a given (Kt, N), the last order
+//               used and the interpolation plan from the dyadic
+//               nodes to the time indexes. Plans are shared through
+//               a bounded LRU cache.
+// Author      : agent.
+// Date        : 2026.
+// Notes       : The truncated sum is piecewise linear between the
+//               dyadic nodes of order L+1, so the basis reduces to
+//               a sparse matrix with at most two non-zero values
+//               per time index (node, weight). A plan larger than
+//               the cache cap is not built : the resampling then
+//               steps the nodes and weights as it goes.
+
+package BrownianGenerator;
+
+import java.util.Iterator; // for evictions
+import java.util.LinkedHashMap; // for the LRU cache
+
+public class SchauderBasis{
+  // Attributes //---------------------------------------------
+  private int len; // number of time index discretisation points
+  private int order; // last order used (see SchauderWavelet.getLastOrder), -1 if not even s_1 is used
+  private int M; // number of dyadic intervals of order+1, 0 if not even s_1 is used
+  private int[] node; // node[i], dyadic node at or just before index i (null in powerOf2 mode, or if the plan is stepped)
+  private double[] weight; // weight[i], position of index i between node[i] and node[i]+1 (null in powerOf2 mode, or if the plan is stepped)
+  
+  private static final long DEFAULT_CAPACITY=64L<<20; // bytes
+  private static final LinkedHashMap<Long, SchauderBasis> cache=new LinkedHashMap<Long, SchauderBasis>(16, 0.75f, true); // access order
+  private static long capacity=DEFAULT_CAPACITY; // memory cap of the cache, in bytes
+  private static long used=0; // memory held by the cache, in bytes
+  private static long hits=0;
+  private static long misses=0;
+  private static long evictions=0;
+  //-----------------------------------------------------------
+  
+  // Constructors //-------------------------------------------
+  private SchauderBasis(int Kt, int N, boolean stepped){
+    // Constructor : builds the plan of (Kt, N). Index i lies at i*M/(Kt-1) on the dyadic grid, that is between the nodes q and q+1 with q=floor(i*M/(Kt-1)), at r/(Kt-1) of the interval, r=i*M-q*(Kt-1).
+    // @param stepped true to keep the last order only, the nodes and weights being stepped by the resampling kernels
+    this.len=Kt;
+    this.order=SchauderWavelet.lastOrder(Kt, N);
+    if(this.order<0){
+      return;
+    }
+    this.M=1<<(this.order+1); // M<=Kt-1
+    int last=Kt-1;
+    if(this.M==last || stepped){ // powerOf2 mode : the nodes are the indexes
+      return;
+    }
+    this.node=new int[Kt];
+    this.weight=new double[Kt];
+    if(GeneratorStats.ENABLED){
+      GeneratorStats.ARRAYS.add(2);
+    }
+    double inv=1/(double)(last);
+    int q=0;
+    long r=0; // i*M-q*last
+    for(int i=0; i<=last; i++){
+      this.node[i]=q;
+      this.weight[i]=r*inv;
+      r+=this.M;
+      if(r>=last){
+        r-=last;
+        q++;
+      }
+    }
+  }
+  //-----------------------------------------------------------
+  
+  // Methods //------------------------------------------------
+  public static SchauderBasis get(int Kt, int N){
+    // Returns the basis of (Kt, N), from the cache if possible. A plan larger than the memory cap is neither built nor kept : the basis returned is stepped (12 bytes per index would be allocated for every path otherwise).
+    // @param Kt the number of discretisation points
+    // @param N the cut parameter
+    // @return the basis
+    int order=SchauderWavelet.lastOrder(Kt, N);
+    Long key=Long.valueOf(((long)(Kt)<<6)|(order+1)); // (Kt, N) and (Kt, N') share the basis when the last order is the same
+    synchronized(cache){
+      SchauderBasis b=cache.get(key);
+      if(b!=null){
+        hits++;
+        return(b);
+      }
+      misses++;
+      if(64+12L*Kt>capacity){
+        return(new SchauderBasis(Kt, N, true));
+      }
+    }
+    SchauderBasis b=new SchauderBasis(Kt, N, false); // built outside the lock, two threads may build the same basis once
+    synchronized(cache){
+      if(b.getBytes()<=capacity && !cache.containsKey(key)){
+        cache.put(key, b);
+        used+=b.getBytes();
+        trim();
+      }
+    }
+    return(b);
+  }
+  
+  private static void trim(){
+    // Evicts the least recently used bases until the cache fits in its memory cap (the lock must be held).
+    Iterator<SchauderBasis> it=cache.values().iterator();
+    while(used>capacity && it.hasNext()){
+      used-=it.next().getBytes();
+      it.remove();
+      evictions++;
+    }
+  }
+  
+  public static void setCacheCapacity(long bytes){
+    // Sets the memory cap of the cache (0 disables the cache), evicting bases if needed.
+    // @param bytes the cap, in bytes
+    // @return void
+    if(bytes<0){
+      System.err.println("Error : cache capacity is incorrect (capacity="+bytes+").");
+      System.exit(-1);
+    }
+    synchronized(cache){
+      capacity=bytes;
+      trim();
+    }
+  }
+  public static long getCacheCapacity(){
+    synchronized(cache){
+      return(capacity);
+    }
+  }
+  public static long getCacheBytes(){
+    synchronized(cache){
+      return(used);
+    }
+  }
+  public static int getCacheSize(){
+    synchronized(cache){
+      return(cache.size());
+    }
+  }
+  public static long getHits(){
+    synchronized(cache){
+      return(hits);
+    }
+  }
+  public static long getMisses(){
+    synchronized(cache){
+      return(misses);
+    }
+  }
+  public static long getEvictions(){
+    synchronized(cache){
+      return(evictions);
+    }
+  }
+  public static void clearCache(){
+    // Empties the cache and resets the counters.
+    synchronized(cache){
+      cache.clear();
+      used=0;
+      hits=0;
+      misses=0;
+      evictions=0;
+    }
+  }
+  public static String getCacheStatus(){
+    synchronized(cache){
+      return("bases="+cache.size()+"; bytes="+used+"; capacity="+capacity+"; hits="+hits+"; misses="+misses+"; evictions="+evictions);
+    }
+  }
+  
+  public long getBytes(){
+    // Returns the memory held by the plan, in bytes.
+    return(this.node==null?64:64+12L*this.len);
+  }
+  public int getLength(){
+    return(this.len);
+  }
+  public int getLastOrder(){
+    return(this.order);
+  }
+  public int getNodeCount(){
+    // Returns M, the number of dyadic intervals the path is built on (0 if not even s_1 is used).
+    return(this.M);
+  }
+  public boolean needsResampling(){
+    // Returns false when there is nothing to resample : the dyadic nodes are the time indexes (powerOf2 mode), or not even s_1 is used.
+    return(this.M>0 && this.M<this.len-1);
+  }
+  public boolean isStepped(){
+    // Returns true when the resampling steps the nodes and weights instead of reading them (plan larger than the cache cap).
+    return(needsResampling() && this.node==null);
+  }
+  
+  int getNode(int i){
+    // Returns the dyadic node at or just before index i.
+    return(this.node!=null?this.node[i]:(int)((long)(i)*this.M/(this.len-1)));
+  }
+  int[] getNodes(){
+    return(this.node);
+  }
+  double[] getWeights(){
+    return(this.weight);
+  }
+  //-----------------------------------------------------------
+}
@@ -19,6 +19,9 @@ public class SchauderWavelet{
   private int k; // k index of the non-normalised Faber-Schauder function
   private int width; // width of the wavelet support (only used in powerOf2 mode)
   private double step; // step of the discretisation
+  private long nodes; // 2^j, number of wavelets at the current order
+  private double root; // 2^(j/2), slope of the current triangle
+  private double height; // 2^(-1-j/2), height of the current triangle
   //-----------------------------------------------------------
   
   // Constructors //-------------------------------------------
@@ -44,13 +47,36 @@ public class SchauderWavelet{
     this.k=0;
     this.width=this.len; // initial width of the support (only used in powerOf2 mode)
     this.s1=true; // the first used wavelet is s_1
+    updateOrder();
+  }
+  
+  public void skipTo(int order){
+    // Moves the wavelet to (j=order, k=0), skipping s_1 and all the wavelets of lower orders.
+    // @param order the wanted j index
+    // @return void
+    reinitialize();
+    this.s1=false;
+    for(int i=0; i<order; i++){
+      this.j+=1;
+      updateWidth(); // (only used in powerOf2 mode)
+    }
+    updateOrder();
+  }
+  
+  private void updateOrder(){
+    // Caches the powers of two depending on the j index, so that iterating and projecting the support never calls Math.pow.
+    // @param void
+    // @return void
+    this.nodes=1L<<this.j;
+    this.root=Math.sqrt((double)(this.nodes));
+    this.height=0.5/this.root;
   }
   
   private void updateWidth(){
     // Calculates width of the support, based on the previous width (only used in powerOf2 mode).
     // @param void
     // @return void
-    this.width=(int)((this.width-1)/2+1);
+    this.width=(this.width-1)/2+1;
   }
   
   public void iterate(){
@@ -64,13 +90,14 @@ public class SchauderWavelet{
       this.s1=false;
     }
     else{
-      if(this.k<Math.pow(2, this.j)-1){
+      if(this.k<this.nodes-1){
         this.k+=1;
       }
       else{
-        if(k==Math.pow(2, this.j)-1){
+        if(k==this.nodes-1){
           this.k=0;
           this.j+=1;
+          updateOrder();
           updateWidth(); // (only used in powerOf2 mode)
         }
         else{ // k >= 2^n
@@ -87,6 +114,77 @@ public class SchauderWavelet{
     return(this.width<3);
   }
   
+  public int getLastOrder(int N){
+    // Returns the last order used by an approximation cut at N, that means the last j index before hasToStop() or the cut.
+    // @param N the cut parameter
+    // @return the last j index used, -1 if not even s_1 is used
+    return(lastOrder(this.len, N));
+  }
+  
+  static int lastOrder(long Kt, int N){
+    // Same as getLastOrder, for any number of discretisation points (see SegmentedBrownian).
+    if(Kt<3){
+      return(-1);
+    }
+    long w=Kt; // support width at order j (see updateWidth)
+    int order=0;
+    while(order<N){
+      w=(w-1)/2+1;
+      if(w<3){
+        break;
+      }
+      order++;
+    }
+    return(order);
+  }
+  
+  public static int autoCut(long Kt){
+    // Returns the smallest cut parameter using all the levels the discretisation resolves (see lastOrder) : a larger N would not change the path.
+    // @param Kt the number of discretisation points
+    // @return the cut parameter
+    return(Math.max(0, lastOrder(Kt, Integer.MAX_VALUE)));
+  }
+  
+  public static int cutFor(long Kt, double c, double tolerance){
+    // Returns the smallest cut parameter whose estimated error (see truncationError) is at most the tolerance, autoCut(Kt) if none is : the discretisation then limits the accuracy.
+    // @param Kt the number of discretisation points
+    // @param c the interval length
+    // @param tolerance the wanted sup-norm error
+    // @return the cut parameter
+    int auto=autoCut(Kt);
+    for(int N=0; N<auto; N++){
+      if(truncationError(Kt, c, N)<=tolerance){
+        return(N);
+      }
+    }
+    return(auto);
+  }
+  
+  public static double truncationError(long Kt, double c, int N){
+    // Returns an estimate of the sup-norm error, over the Kt sampled points, of the approximation cut at N.
+    // The levels j left out add at most sqrt(c)*2^(-1-j/2)*max_k|g_(j, k)| each, and the expected maximum of 2^j absolute Gaussians is at most sqrt(2*ln(2^(j+1))) : the sum of these bounds bounds the expected error. Only the levels whose supports span more than one time step are counted, the other ones vanish on the samples (so the error is 0 in powerOf2 mode when all the levels are used).
+    // @param Kt the number of discretisation points
+    // @param c the interval length
+    // @param N the cut parameter
+    // @return the estimated error
+    int used=lastOrder(Kt, N);
+    double sum=0;
+    if(used<0 && Kt>1){ // s_1 left out
+      sum+=Math.sqrt(2*Math.log(2));
+    }
+    for(int j=Math.max(0, used+1); j<62 && (1L<<j)<Kt-1; j++){
+      sum+=Math.pow(2, -1-(double)(j)/2)*Math.sqrt(2*(j+1)*Math.log(2));
+    }
+    return(Math.sqrt(c)*sum);
+  }
+  
+  public boolean isPowerOf2(){
+    // Returns the mode, that means whether the number of discretisation points is a power of two plus one.
+    // @param void
+    // @return true in powerOf2 mode, false in general mode
+    return(this.powerOf2);
+  }
+  
   public int getOrder(){
     // Returns the order, that means the j index (encoding the height of the wavelet).
     // @param void
@@ -98,6 +196,9 @@ public class SchauderWavelet{
     // Returns the values of the current wavelet on its discretised support. Lengths of returned tables vary depending on the indexes. If the number of discretisation points is a power of two plus one, getValuesPowerOf2 is used. If not, getValuesGeneral is used.
     // @param void
     // @return the values of the wavelet on its current discretised support.
+    if(GeneratorStats.ENABLED){
+      GeneratorStats.ARRAYS.increment();
+    }
     if(this.powerOf2){
       return(getValuesPowerOf2());
     }
@@ -107,10 +208,134 @@ public class SchauderWavelet{
   }
   
   public int getStart(){
-    return((int)Math.ceil(2*this.k/Math.pow(2, this.j+1)/this.step));
+    // Upper integer value of k/2^j, when projected on the discretised interval (exact integer arithmetic).
+    long p=(long)(this.k)*(this.len-1);
+    return((int)((p+this.nodes-1)>>this.j));
   }
   public int getEnd(){
-    return((int)Math.floor(2*(this.k+1)/Math.pow(2, this.j+1)/this.step));
+    // Lower integer value of (k+1)/2^j, when projected on the discretised interval (exact integer arithmetic).
+    long p=(long)(this.k+1)*(this.len-1);
+    return((int)(p>>this.j));
+  }
+  private int getLowerMid(){
+    // Lower integer value of (2k+1)/2^(j+1), when projected on the discretised interval (exact integer arithmetic).
+    long p=(long)(2*this.k+1)*(this.len-1);
+    return((int)(p>>(this.j+1)));
+  }
+  private int getUpperMid(){
+    // Upper integer value of (2k+1)/2^(j+1), when projected on the discretised interval (exact integer arithmetic).
+    long p=(long)(2*this.k+1)*(this.len-1);
+    return((int)((p+2*this.nodes-1)>>(this.j+1)));
+  }
+  
+  public void accumulate(double g, double[] target){
+    // Adds g times the current wavelet to the target table, over the discretised support [getStart(), getEnd()]. No intermediate table is built, values are the same as the ones returned by getValues.
+    // @param g the coefficient of the wavelet
+    // @param target the table to add the scaled wavelet to (of length Kt)
+    // @return void
+    int st=this.getStart();
+    int en=this.getEnd();
+    long t=(GeneratorStats.ENABLED?System.nanoTime():0);
+    if(this.s1){
+      for(int i=st; i<=en; i++){
+        target[i]+=g*s1Value(i);
+      }
+    }
+    else if(this.powerOf2){
+      int mid=(this.width-1)/2;
+      double slope=g*this.height/mid;
+      for(int i=0; i<=mid; i++){ // montée
+        target[st+i]+=i*slope;
+      }
+      for(int i=mid+1; i<this.width; i++){ // descente
+        target[st+i]+=(this.width-1-i)*slope;
+      }
+    }
+    else{
+      int lowerMid=this.getLowerMid(); // if the vertex falls on an index, it belongs to the rising slope
+      for(int i=st; i<=lowerMid; i++){ // montée
+        target[i]+=g*(this.root*(i*this.step)-this.k/this.root);
+      }
+      for(int i=lowerMid+1; i<=en; i++){ // descente
+        target[i]+=g*(-this.root*(i*this.step)+(this.k+1)/this.root);
+      }
+    }
+    if(GeneratorStats.ENABLED){
+      GeneratorStats.lap(GeneratorStats.Phase.ACCUMULATION, t);
+      GeneratorStats.WAVELETS.increment();
+    }
+  }
+  
+  public void accumulate(double[] g, double[][] target){
+    // Adds g[c] times the current wavelet to each target[c] table, over the discretised support [getStart(), getEnd()]. This is the multidimensional version of accumulate(double, double[]), the wavelet value being computed once per index.
+    // @param g the coefficients of the wavelet, one per component
+    // @param target the tables to add the scaled wavelet to (one per component, each of length Kt)
+    // @return void
+    int st=this.getStart();
+    int en=this.getEnd();
+    long t=(GeneratorStats.ENABLED?System.nanoTime():0);
+    double v;
+    for(int i=st; i<=en; i++){
+      v=this.valueAt(i);
+      for(int c=0; c<g.length; c++){
+        target[c][i]+=g[c]*v;
+      }
+    }
+    if(GeneratorStats.ENABLED){
+      GeneratorStats.lap(GeneratorStats.Phase.ACCUMULATION, t);
+      GeneratorStats.WAVELETS.increment();
+    }
+  }
+  
+  public void accumulate(double[] g, PathStorage target){
+    // Same as accumulate(double[], double[][]), the target being a path storage of any layout.
+    // @param g the coefficients of the wavelet, one per component
+    // @param target the storage to add the scaled wavelet to
+    // @return void
+    int st=this.getStart();
+    int en=this.getEnd();
+    long t=(GeneratorStats.ENABLED?System.nanoTime():0);
+    double v;
+    for(int i=st; i<=en; i++){
+      v=this.valueAt(i);
+      for(int c=0; c<g.length; c++){
+        target.add(i, c, g[c]*v);
+      }
+    }
+    if(GeneratorStats.ENABLED){
+      GeneratorStats.lap(GeneratorStats.Phase.ACCUMULATION, t);
+      GeneratorStats.WAVELETS.increment();
+    }
+  }
+  
+  private double s1Value(int i){
+    // Value of the s_1 wavelet at index i.
+    if(this.powerOf2){
+      return((double)(i)/(this.width-1));
+    }
+    else{
+      return(i*this.step);
+    }
+  }
+  
+  private double valueAt(int i){
+    // Value of the current wavelet at index i, which must lie in [getStart(), getEnd()].
+    // @param i the index on the discretised interval
+    // @return the value of the current wavelet at this index
+    if(this.s1){
+      return(s1Value(i));
+    }
+    if(this.powerOf2){
+      int mid=(this.width-1)/2;
+      int loc=i-this.getStart();
+      return((loc<=mid?loc:this.width-1-loc)*this.height/mid);
+    }
+    if(i<=this.getLowerMid()){ // montée
+      return(this.root*(i*this.step)-this.k/this.root);
+    }
+    else{ // descente
+      return(-this.root*(i*this.step)+(this.k+1)/this.root);
+    }
   }
   
   public double[] getValuesPowerOf2(){
@@ -124,8 +349,8 @@ public class SchauderWavelet{
       }
     }
     else{
-      double height=Math.pow(2, -1-(double)(this.j)/2);
-      int indice_milieu=(int)((this.width-1)/2);
+      double height=this.height;
+      int indice_milieu=(this.width-1)/2;
       for(int i=0; i<=indice_milieu; i++){ // montée
         vals[i]=i*height/indice_milieu;
       }
@@ -151,8 +376,8 @@ public class SchauderWavelet{
       double[] up, down, coefs;
       int upperStart, lowerMid, upperMid, lowerEnd;
       upperStart=this.getStart(); // Upper integer value of start point, when projected on the discretised interval.
-      lowerMid=(int)Math.floor((2*this.k+1)/(Math.pow(2, this.j+1)*this.step));  // Lower integer value of middle point, when projected on the discretised interval.
-      upperMid=(int)Math.ceil((2*this.k+1)/(Math.pow(2, this.j+1)*this.step)); // Upper integer value of middle point, when projected on the discretised interval.
+      lowerMid=this.getLowerMid(); // Lower integer value of middle point, when projected on the discretised interval.
+      upperMid=this.getUpperMid(); // Upper integer value of middle point, when projected on the discretised interval.
       lowerEnd=this.getEnd(); // Lower integer value of start point, when projected on the discretised interval.
       coefs=Util.getTriangleCoefs(this.j, this.k);
       up=Util.sample(Util.fillWithStep(lowerMid-upperStart+1,
@@ -188,7 +413,7 @@ public class SchauderWavelet{
     return("\n> SchauderWavelet "+this.hashCode()+" (mode = "+(this.powerOf2?"powerOf2":"general")+") :"+
            "\n>> index"+(this.s1?"":"es")+" : "+(this.s1?"s1":"(j="+this.j+", k="+this.k+")")+","+
            "\n>> support (table indexes) : width "+this.width+", start "+this.getStart()+","+
-           "\n>> height : "+(Math.pow(2, -1-(double)(this.j)/2)+","+
+           "\n>> height : "+(this.height+","+
            "\n>> values : "+Arrays.toString(this.getValues())+".\n"));
   }
   //-----------------------------------------------------------
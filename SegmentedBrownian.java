@@ -0,0 +1,262 @@
+// Title       : SegmentedBrownian.java
+// Description : This class generates a single Brownian motion
+//               path too long to be kept in memory, segment by
+//               segment, and pushes the segments in order to a
+//               PathSink.
+// Author      : agent.
+// Date        : 2026.
+// Notes       : The coarse skeleton (s_1 and the levels whose
+//               supports span several segments) is drawn from
+//               the source itself, and the deeper levels of
+//               segment q from gs.derive(q) : the path does not
+//               depend on the number of threads.
+
+package BrownianGenerator;
+
+import java.io.IOException; // for sinks
+import java.util.ArrayDeque; // for the ordered pipeline
+import java.util.Arrays; // for characteristics
+import java.util.Locale; // for characteristics
+import java.util.concurrent.Callable; // for parallel generation
+import java.util.concurrent.ForkJoinPool; // for parallel generation
+import java.util.concurrent.ForkJoinTask; // for parallel generation
+
+public class SegmentedBrownian{
+  // Attributes //---------------------------------------------
+  private long len; // number of time index discretisation points
+  private int dim; // Brownian motion dimension
+  private int n; // cut parameter
+  private double c; // scaling
+  private double[] start; // Brownian motion starting point
+  private GaussianSource gs; // root source, segment q uses gs.derive(q)
+  private int order; // last order used (see SchauderWavelet.getLastOrder), -1 for a constant path
+  private long M; // number of dyadic intervals of order+1 over [0, 1]
+  private int levels; // number of levels in the skeleton, 2^levels segments
+  private int width; // number of dyadic intervals of order+1 per segment
+  private int segmentLength; // maximal number of time indexes handed to the sink at once
+  private InterleavedStorage skeleton; // values at the ends of the segments
+  //-----------------------------------------------------------
+  
+  // Constructors //-------------------------------------------
+  public SegmentedBrownian(long Kt, int dimension, double c, int N, GaussianSource gs){
+    // Constructor : segments of about 2^20 time indexes, starting at the origin.
+    this(Kt, dimension, c, N, gs, 1<<20, null);
+  }
+  public SegmentedBrownian(long Kt, int dimension, double c, int N, GaussianSource gs, int segmentLength, double[] startPoint){
+    // Constructor : complete. The skeleton is drawn here, the segments by generate.
+    // @param Kt the number of discretisation points
+    // @param dimension the Brownian motion dimension
+    // @param c the interval length
+    // @param N the cut parameter
+    // @param gs the source of the coefficients
+    // @param segmentLength the maximal number of time indexes per segment (memory is O(segmentLength x d) per thread)
+    // @param startPoint the starting point (null for the origin)
+    Brownian.checkParameters((int)(Math.min(Kt, Integer.MAX_VALUE)), dimension, c, N);
+    if(segmentLength<2){
+      System.err.println("Error : segment length is incorrect (segment="+segmentLength+").");
+      System.exit(-1);
+    }
+    if(startPoint!=null && startPoint.length!=dimension){
+      System.err.println("Error : dimension of requested starting point is invalid (dimension : "+startPoint.length+", Brownian motion dimension : "+dimension+").");
+      System.exit(-1);
+    }
+    this.len=Kt;
+    this.dim=dimension;
+    this.c=c;
+    this.n=N;
+    this.start=(startPoint==null?new double[dimension]:startPoint.clone());
+    this.gs=gs;
+    this.segmentLength=segmentLength;
+    this.order=SchauderWavelet.lastOrder(Kt, N);
+    if(this.order<0){ // not even s_1 is used : constant path
+      return;
+    }
+    
+    // Segments : about segmentLength time indexes each, a power of two of dyadic intervals.
+    long last=Kt-1;
+    this.M=1L<<(this.order+1); // M<=Kt-1
+    double perSegment=segmentLength*(double)(this.M)/last;
+    this.width=(int)(Math.min(this.M, (perSegment<1?1:Long.highestOneBit((long)(perSegment)))));
+    this.levels=Long.numberOfTrailingZeros(this.M/this.width);
+    if(this.levels>30 || (double)(this.width)*last>=0x1p62){
+      System.err.println("Error : path is too long for this segment length (Kt="+Kt+", segment="+segmentLength+").");
+      System.exit(-1);
+    }
+    
+    // Skeleton : s_1 and the levels 0..levels-1, from the source itself.
+    double coef=Math.sqrt(c);
+    this.skeleton=new InterleavedStorage(dimension, (1<<this.levels)+1);
+    Brownian.startS1(gs, this.skeleton, 1<<this.levels, coef, this.start);
+    Brownian.refineLevels(gs, this.skeleton, 1<<this.levels, 0, 0, this.levels-1, coef);
+  }
+  //-----------------------------------------------------------
+  
+  // Methods //------------------------------------------------
+  public void generate(PathSink sink) throws IOException{
+    // Generates the path over the common pool and hands it to the sink.
+    generate(sink, 0);
+  }
+  
+  public void generate(PathSink sink, int threads) throws IOException{
+    // Generates the path segment by segment and hands the segments to the sink, in order and from the calling thread. With several threads, the next segments are generated while the current one is written, at most 2 per thread being held at once.
+    // @param sink the destination of the segments
+    // @param threads the number of worker threads (0 for the common pool, 1 to generate in the calling thread)
+    // @return void
+    if(threads<0){
+      System.err.println("Error : number of threads is incorrect (threads="+threads+").");
+      System.exit(-1);
+    }
+    if(GeneratorStats.ENABLED){
+      GeneratorStats.PATHS.increment();
+    }
+    if(this.order<0){
+      InterleavedStorage constant=new InterleavedStorage(this.dim, (int)(this.len));
+      constant.offset(this.start);
+      sink.accept(0, constant, (int)(this.len));
+      return;
+    }
+    int segments=1<<this.levels;
+    int q=0; // segment of the next piece
+    long i=0; // first time index of the next piece
+    long end=boundary(1); // end of segment q
+    if(threads==1){
+      Piece p=new Piece();
+      while(q<segments){
+        int count=(int)(Math.min(this.segmentLength, end-i));
+        p.set(q, i, count).call();
+        sink.accept(p.first, p.out, p.count);
+        i+=count;
+        if(i==end){
+          q++;
+          end=boundary(q+1);
+        }
+      }
+      return;
+    }
+    ForkJoinPool pool=(threads==0?ForkJoinPool.commonPool():new ForkJoinPool(threads));
+    int window=2*pool.getParallelism();
+    ArrayDeque<ForkJoinTask<Piece>> pending=new ArrayDeque<ForkJoinTask<Piece>>();
+    ArrayDeque<Piece> free=new ArrayDeque<Piece>();
+    try{
+      while(q<segments || !pending.isEmpty()){
+        if(q<segments && pending.size()<window){ // submit the next piece
+          Piece p=(free.isEmpty()?new Piece():free.poll());
+          int count=(int)(Math.min(this.segmentLength, end-i));
+          pending.add(pool.submit(p.set(q, i, count)));
+          i+=count;
+          if(i==end){
+            q++;
+            end=boundary(q+1);
+          }
+        }
+        else{ // write the oldest piece
+          Piece p=pending.poll().join();
+          sink.accept(p.first, p.out, p.count);
+          free.add(p);
+        }
+      }
+    }
+    finally{
+      for(ForkJoinTask<Piece> t : pending){
+        t.cancel(false);
+      }
+      if(threads!=0){
+        pool.shutdown();
+      }
+    }
+  }
+  
+  private long boundary(int q){
+    // Returns the first time index of segment q, that means the upper integer value of q*(Kt-1)/2^levels (Kt for the end of the last segment).
+    // @param q the segment
+    // @return the time index
+    if(q>=(1<<this.levels)){
+      return(this.len);
+    }
+    long last=this.len-1;
+    long hi=Math.multiplyHigh(q, last); // q*(Kt-1) may not fit in a long
+    long lo=q*last;
+    if(this.levels==0){
+      return(lo);
+    }
+    long r=(lo>>>this.levels)|(hi<<(64-this.levels));
+    return(r+((lo&((1L<<this.levels)-1))!=0?1:0));
+  }
+  
+  public long getLength(){
+    return(this.len);
+  }
+  public int getDim(){
+    return(this.dim);
+  }
+  public int getCut(){
+    return(this.n);
+  }
+  public int getSegmentCount(){
+    // Returns the number of segments of the skeleton (a segment may be handed to the sink in several pieces).
+    return(this.order<0?1:1<<this.levels);
+  }
+  
+  public String getCharacteristics(){
+    return("kt="+this.len+"; d="+this.dim+"; c="+this.c+"; n="+this.n+"; error="+String.format(Locale.US, "%.2e", SchauderWavelet.truncationError(this.len, this.c, this.n))+"; startPoint="+Arrays.toString(this.start)+"; segments="+getSegmentCount());
+  }
+  //-----------------------------------------------------------
+  
+  // Pieces //-------------------------------------------------
+  private class Piece implements Callable<Piece>{
+    // A run of at most segmentLength time indexes inside one segment, with its working storage.
+    private int q; // segment
+    private long first; // first time index
+    private int count; // number of time indexes
+    private InterleavedStorage nodes=new InterleavedStorage(dim, width+1); // dyadic nodes of order+1 over the segment
+    private InterleavedStorage out=new InterleavedStorage(dim, segmentLength); // values handed to the sink
+    
+    private Piece set(int q, long first, int count){
+      this.q=q;
+      this.first=first;
+      this.count=count;
+      return(this);
+    }
+    
+    public Piece call(){
+      // Refines the segment from its two skeleton values with its own stream, then resamples the dyadic nodes onto the time indexes of the piece (as Brownian does in general mode).
+      double[] v=this.nodes.getValues();
+      double[] sk=skeleton.getValues();
+      System.arraycopy(sk, this.q*dim, v, 0, dim);
+      System.arraycopy(sk, (this.q+1)*dim, v, width*dim, dim);
+      Brownian.refineLevels(gs.derive(this.q), this.nodes, width, levels, levels, order, Math.sqrt(c));
+      long t0=(GeneratorStats.ENABLED?System.nanoTime():0);
+      
+      // Time index t lies at t*M/(Kt-1) on the dyadic grid, that is at node u/(Kt-1) of the segment, u=t*M-q*width*(Kt-1) (exact in wrapping arithmetic since 0<=u<2^63).
+      long last=len-1;
+      long u=this.first*M-(long)(this.q)*width*last;
+      int node=(int)(u/last);
+      long r=u%last;
+      double inv=1/(double)(last);
+      double[] o=this.out.getValues();
+      for(int t=0, m=0; t<this.count; t++, m+=dim){
+        int a=node*dim;
+        if(r==0){
+          System.arraycopy(v, a, o, m, dim);
+        }
+        else{
+          double w=r*inv;
+          for(int j=0; j<dim; j++){
+            double b0=v[a+j];
+            o[m+j]=b0+(v[a+dim+j]-b0)*w;
+          }
+        }
+        r+=M;
+        if(r>=last){
+          r-=last;
+          node++;
+        }
+      }
+      if(GeneratorStats.ENABLED){
+        GeneratorStats.lap(GeneratorStats.Phase.INTERPOLATION, t0);
+      }
+      return(this);
+    }
+  }
+  //-----------------------------------------------------------
+}
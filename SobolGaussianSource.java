@@ -0,0 +1,242 @@
+// Title       : SobolGaussianSource.java
+// Description : This class implements a quasi-Monte Carlo
+//               Gaussian source : the coefficients of a path are
+//               the coordinates of one Sobol point (optionally
+//               Owen-scrambled), mapped by the inverse normal
+//               distribution function. As Brownian draws s_1
+//               first and then the levels from coarse to fine
+//               (Brownian bridge order), the best distributed
+//               coordinates go to the coefficients that matter
+//               most.
+// Author      : agent.
+// Date        : 2026.
+// Notes       : Path m of an ensemble uses point m (derive(m)).
+//               Coordinates beyond MAX_DIMENSION come from a
+//               Philox stream (hybrid QMC). Not thread-safe.
+
+package BrownianGenerator;
+
+import java.util.SplittableRandom; // for the direction numbers of high dimensions
+
+public class SobolGaussianSource implements GaussianSource{
+  // Attributes //---------------------------------------------
+  public static final int MAX_DIMENSION=1111; // number of Sobol coordinates (primitive polynomials up to degree 13)
+  private static final int BITS=32; // bits of each coordinate
+  private static final int[][] JOE_KUO={ // {s, a, m_1, ..., m_s} of Joe and Kuo (2008), dimensions 2 to 37, in the order of the primitive polynomials (by degree, then by a)
+    {1, 0, 1}, {2, 1, 1, 3}, {3, 1, 1, 3, 1}, {3, 2, 1, 1, 1}, {4, 1, 1, 1, 3, 3}, {4, 4, 1, 3, 5, 13},
+    {5, 2, 1, 1, 5, 5, 17}, {5, 4, 1, 1, 5, 5, 5}, {5, 7, 1, 1, 7, 11, 19}, {5, 11, 1, 1, 5, 1, 1},
+    {5, 13, 1, 1, 1, 3, 11}, {5, 14, 1, 3, 5, 5, 31}, {6, 1, 1, 3, 3, 9, 7, 49}, {6, 13, 1, 1, 1, 15, 21, 21},
+    {6, 16, 1, 3, 1, 13, 27, 49}, {6, 19, 1, 1, 1, 15, 7, 5}, {6, 22, 1, 3, 1, 15, 13, 25}, {6, 25, 1, 1, 5, 5, 19, 61},
+    {7, 1, 1, 3, 7, 11, 23, 15, 103}, {7, 4, 1, 3, 7, 13, 13, 15, 69}, {7, 7, 1, 1, 3, 13, 7, 35, 63},
+    {7, 8, 1, 3, 5, 9, 1, 25, 53}, {7, 14, 1, 3, 1, 13, 9, 35, 107}, {7, 19, 1, 3, 1, 5, 27, 61, 31},
+    {7, 21, 1, 1, 5, 11, 19, 41, 61}, {7, 28, 1, 3, 5, 3, 3, 13, 69}, {7, 31, 1, 1, 7, 13, 1, 19, 1},
+    {7, 32, 1, 3, 7, 5, 13, 19, 59}, {7, 37, 1, 1, 3, 9, 25, 29, 41}, {7, 41, 1, 3, 5, 13, 23, 1, 55},
+    {7, 42, 1, 3, 7, 3, 13, 59, 17}, {7, 50, 1, 3, 1, 3, 5, 53, 69}, {7, 55, 1, 1, 5, 5, 23, 33, 13},
+    {7, 56, 1, 1, 7, 7, 1, 61, 123}, {7, 59, 1, 1, 7, 9, 13, 61, 49}, {7, 62, 1, 3, 3, 5, 3, 55, 33}
+  };
+  private static final int[][] DIRECTIONS=new int[MAX_DIMENSION][BITS]; // direction numbers, DIRECTIONS[i][b] for bit b of the point index
+  private boolean scrambled; // encodes the use of Owen scrambling
+  private long seed; // scrambling seed (also keys the tail stream)
+  private long point; // index of the Sobol point of this path
+  private int coordinate; // index of the next coordinate
+  private PhiloxGaussianSource tail; // coordinates beyond MAX_DIMENSION
+  //-----------------------------------------------------------
+  
+  // Tables //-------------------------------------------------
+  static{
+    for(int b=0; b<BITS; b++){ // first dimension : van der Corput
+      DIRECTIONS[0][b]=1<<(BITS-1-b);
+    }
+    int i=1;
+    SplittableRandom r=new SplittableRandom(0x50B01L); // initial numbers beyond the table of Joe and Kuo
+    for(int s=1; i<MAX_DIMENSION; s++){
+      for(int a=0; a<(1<<(s-1)) && i<MAX_DIMENSION; a++){
+        if(!isPrimitive(s, a)){
+          continue;
+        }
+        int[] m=new int[s];
+        for(int b=0; b<s; b++){
+          if(i-1<JOE_KUO.length){
+            m[b]=JOE_KUO[i-1][2+b];
+          }
+          else{ // any odd number below 2^(b+1) gives a valid sequence
+            m[b]=(r.nextInt(1<<b)<<1)|1;
+          }
+        }
+        directions(s, a, m, DIRECTIONS[i]);
+        i++;
+      }
+    }
+  }
+  
+  private static void directions(int s, int a, int[] m, int[] v){
+    // Computes the direction numbers of a dimension from its primitive polynomial and initial numbers (Bratley and Fox recurrence).
+    // @param s the degree of the polynomial
+    // @param a the inner coefficients of the polynomial
+    // @param m the s initial numbers
+    // @param v the table receiving the direction numbers
+    // @return void
+    for(int b=0; b<Math.min(s, BITS); b++){
+      v[b]=m[b]<<(BITS-1-b);
+    }
+    for(int b=s; b<BITS; b++){
+      v[b]=v[b-s]^(v[b-s]>>>s);
+      for(int l=1; l<s; l++){
+        if(((a>>(s-1-l))&1)==1){
+          v[b]^=v[b-l];
+        }
+      }
+    }
+  }
+  
+  private static boolean isPrimitive(int s, int a){
+    // Checks whether x^s + a_1 x^(s-1) + ... + a_(s-1) x + 1 is primitive over GF(2), that means whether x has order 2^s-1 modulo the polynomial.
+    // @param s the degree
+    // @param a the inner coefficients, a_1 being the highest bit
+    // @return true if the polynomial is primitive
+    int p=(1<<s)|(a<<1)|1;
+    long order=(1L<<s)-1;
+    if(mulPow(2, order, p, s)!=1){
+      return(false);
+    }
+    long q=order;
+    for(long f=2; f*f<=q; f++){ // x^(order/f) must differ from 1 for each prime factor f of the order
+      if(q%f==0){
+        if(mulPow(2, order/f, p, s)==1){
+          return(false);
+        }
+        while(q%f==0){
+          q/=f;
+        }
+      }
+    }
+    if(q>1 && q<order && mulPow(2, order/q, p, s)==1){ // last prime factor
+      return(false);
+    }
+    return(true);
+  }
+  
+  private static int mulPow(int x, long e, int p, int s){
+    // Computes x^e modulo the polynomial p of degree s over GF(2).
+    int r=1;
+    while(e>0){
+      if((e&1)==1){
+        r=mulMod(r, x, p, s);
+      }
+      x=mulMod(x, x, p, s);
+      e>>=1;
+    }
+    return(r);
+  }
+  
+  private static int mulMod(int x, int y, int p, int s){
+    // Multiplies two polynomials of degree below s modulo p over GF(2).
+    int r=0;
+    while(y!=0){
+      if((y&1)==1){
+        r^=x;
+      }
+      y>>=1;
+      x<<=1;
+      if(((x>>s)&1)==1){
+        x^=p;
+      }
+    }
+    return(r);
+  }
+  //-----------------------------------------------------------
+  
+  // Constructors //-------------------------------------------
+  public SobolGaussianSource(){
+    // Constructor : plain Sobol sequence (deterministic, point 0 is skipped). Its first point is the centre of the cube, so the first path is flat : a single path needs a scrambled sequence.
+    this(0, false, 0);
+  }
+  public SobolGaussianSource(long seed){
+    // Constructor : Owen-scrambled Sobol sequence, each seed giving an independent randomised replicate.
+    this(seed, true, 0);
+  }
+  private SobolGaussianSource(long seed, boolean scrambled, long point){
+    // Constructor : complete.
+    this.seed=seed;
+    this.scrambled=scrambled;
+    this.point=point;
+    this.coordinate=0;
+    this.tail=new PhiloxGaussianSource(seed, point);
+  }
+  //-----------------------------------------------------------
+  
+  // Methods //------------------------------------------------
+  public void fill(double[] g, int offset, int length){
+    // Fills a table with the next coordinates of the point of this path, mapped to standard Gaussians.
+    // @param g the table to fill
+    // @param offset the index of the first value to fill
+    // @param length the number of values to fill
+    // @return void
+    for(int i=offset; i<offset+length; i++){
+      if(this.coordinate<MAX_DIMENSION){
+        g[i]=inverseNormal(uniform(this.coordinate++));
+      }
+      else{
+        this.tail.fill(g, i, 1);
+      }
+    }
+  }
+  
+  public GaussianSource derive(long stream){
+    // Returns the source of point number stream (path stream of an ensemble), with the same scrambling.
+    return(new SobolGaussianSource(this.seed, this.scrambled, stream));
+  }
+  
+  private double uniform(int dimension){
+    // Returns a coordinate of the point of this path, in ]0, 1[.
+    // @param dimension the coordinate index
+    // @return the coordinate
+    long index=(this.scrambled?this.point:this.point+1); // the plain sequence starts at the origin
+    int x=0;
+    int[] v=DIRECTIONS[dimension];
+    for(int b=0; index!=0; b++, index>>>=1){
+      if((index&1)==1){
+        x^=v[b];
+      }
+    }
+    if(this.scrambled){
+      x=owen(x, (int)Util.mix64(this.seed+dimension));
+    }
+    return(((x&0xFFFFFFFFL)+0.5)*0x1.0p-32);
+  }
+  
+  private static int owen(int x, int seed){
+    // Nested uniform (Owen) scrambling of the 32 bits of a coordinate, using the hash-based permutation of Laine and Karras as adapted by Burley (2020).
+    x=Integer.reverse(x);
+    x+=seed;
+    x^=x*0x6c50b47c;
+    x^=x*0xb82f1e52;
+    x^=x*0xc7afe638;
+    x^=x*0x8d22f6e6;
+    return(Integer.reverse(x));
+  }
+  
+  public static double inverseNormal(double p){
+    // Inverse of the standard normal distribution function (Acklam's rational approximation, relative error below 1.2e-9).
+    // @param p a probability in ]0, 1[
+    // @return the quantile of order p
+    final double a1=-3.969683028665376e+01, a2=2.209460984245205e+02, a3=-2.759285104469687e+02, a4=1.383577518672690e+02, a5=-3.066479806614716e+01, a6=2.506628277459239e+00;
+    final double b1=-5.447609879822406e+01, b2=1.615858368580409e+02, b3=-1.556989798598866e+02, b4=6.680131188771972e+01, b5=-1.328068155288572e+01;
+    final double c1=-7.784894002430293e-03, c2=-3.223964580411365e-01, c3=-2.400758277161838e+00, c4=-2.549732539343734e+00, c5=4.374664141464968e+00, c6=2.938163982698783e+00;
+    final double d1=7.784695709041462e-03, d2=3.224671290700398e-01, d3=2.445134137142996e+00, d4=3.754408661907416e+00;
+    final double low=0.02425;
+    double q, r;
+    if(p<low){ // lower tail
+      q=Math.sqrt(-2*Math.log(p));
+      return((((((c1*q+c2)*q+c3)*q+c4)*q+c5)*q+c6)/((((d1*q+d2)*q+d3)*q+d4)*q+1));
+    }
+    if(p>1-low){ // upper tail
+      q=Math.sqrt(-2*Math.log(1-p));
+      return(-(((((c1*q+c2)*q+c3)*q+c4)*q+c5)*q+c6)/((((d1*q+d2)*q+d3)*q+d4)*q+1));
+    }
+    q=p-0.5; // central region
+    r=q*q;
+    return((((((a1*r+a2)*r+a3)*r+a4)*r+a5)*r+a6)*q/(((((b1*r+b2)*r+b3)*r+b4)*r+b5)*r+1));
+  }
+  //-----------------------------------------------------------
+}
@@ -0,0 +1,40 @@
+// Title       : StatisticSink.java
+// Description : This class computes statistics on a path
+//               generated segment by segment (see
+//               SegmentedBrownian), while handing the segments to
+//               another sink.
+// Author      : agent.
+// Date        : 2026.
+// Notes       : The statistics see each segment while it is in
+//               cache, before the next sink writes it.
+
+package BrownianGenerator;
+
+import java.io.IOException; // for writing sinks
+
+public class StatisticSink implements PathSink{
+  // Attributes //---------------------------------------------
+  private PathSink next; // destination of the segments, null to only compute the statistics
+  private PathStatistic[] statistics; // statistics fed with the segments
+  //-----------------------------------------------------------
+  
+  // Constructors //-------------------------------------------
+  public StatisticSink(PathSink next, PathStatistic... statistics){
+    // @param next the destination of the segments (null to only compute the statistics)
+    // @param statistics the statistics to compute
+    this.next=next;
+    this.statistics=statistics.clone();
+  }
+  //-----------------------------------------------------------
+  
+  // Methods //------------------------------------------------
+  public void accept(long first, PathStorage segment, int count) throws IOException{
+    for(PathStatistic s : this.statistics){
+      s.accept(first, segment, 0, count);
+    }
+    if(this.next!=null){
+      this.next.accept(first, segment, count);
+    }
+  }
+  //-----------------------------------------------------------
+}
@@ -0,0 +1,226 @@
+// Title       : TextEncoder.java
+// Description : This class implements a streaming text writer
+//               for Brownian motion values. Doubles are written
+//               with the layout of Util.formatDouble (that is
+//               String.format(Locale.US, "%.16e", d) with a
+//               leading space for non-negative values), byte
+//               for byte, through a reusable byte buffer.
+// Author      : agent.
+// Date        : 2026.
+// Notes       : Not thread-safe.
+
+package BrownianGenerator;
+
+import java.io.IOException; // for stream errors
+import java.io.OutputStream; // destination of the bytes
+import java.nio.charset.StandardCharsets; // for plain strings
+
+public class TextEncoder{
+  // Attributes //---------------------------------------------
+  private static final int PRECISION=16; // digits after the point, as in %.16e
+  private static final int WIDTH=PRECISION+1; // significant digits written
+  private static final int MAX_LENGTH=26; // longest double layout : " -d.dddddddddddddddde-308"
+  private OutputStream out; // destination of the bytes
+  private byte[] buf; // pending bytes
+  private int pos; // number of pending bytes
+  private StringBuilder shortest; // shortest decimal digits of the current value
+  private byte[] digits; // significant digits of the current value
+  private long written; // number of bytes handed to the destination
+  //-----------------------------------------------------------
+  
+  // Constructors //-------------------------------------------
+  public TextEncoder(OutputStream out){
+    // Constructor : default buffer.
+    this(out, 1<<16);
+  }
+  public TextEncoder(OutputStream out, int bufferSize){
+    // Constructor : complete.
+    this.out=out;
+    this.buf=new byte[Math.max(bufferSize, MAX_LENGTH)];
+    this.pos=0;
+    this.shortest=new StringBuilder(32);
+    this.digits=new byte[32];
+    this.written=0;
+  }
+  //-----------------------------------------------------------
+  
+  // Methods //------------------------------------------------
+  public void writeDouble(double d) throws IOException{
+    // Writes a double with the layout of Util.formatDouble.
+    // @param d the value to write
+    // @return void
+    if(this.pos+MAX_LENGTH>this.buf.length){
+      flushBuffer();
+    }
+    this.pos=encode(d, this.buf, this.pos);
+  }
+  
+  public void writeByte(int b) throws IOException{
+    // Writes one byte (typically a separator).
+    if(this.pos==this.buf.length){
+      flushBuffer();
+    }
+    this.buf[this.pos++]=(byte)b;
+  }
+  
+  public void writeText(String s) throws IOException{
+    // Writes a string, encoded in UTF-8.
+    byte[] b=s.getBytes(StandardCharsets.UTF_8);
+    if(this.pos+b.length>this.buf.length){
+      flushBuffer();
+    }
+    if(b.length>this.buf.length){
+      this.out.write(b);
+      this.written+=b.length;
+    }
+    else{
+      System.arraycopy(b, 0, this.buf, this.pos, b.length);
+      this.pos+=b.length;
+    }
+  }
+  
+  public void flush() throws IOException{
+    // Hands the pending bytes to the destination and flushes it.
+    flushBuffer();
+    this.out.flush();
+  }
+  
+  public void close() throws IOException{
+    // Flushes and closes the destination.
+    flush();
+    this.out.close();
+  }
+  
+  public long getBytesWritten(){
+    // Returns the number of bytes written so far (pending ones included).
+    return(this.written+this.pos);
+  }
+  
+  private void flushBuffer() throws IOException{
+    this.out.write(this.buf, 0, this.pos);
+    this.written+=this.pos;
+    this.pos=0;
+  }
+  
+  public String format(double d){
+    // Returns the text of a double with the layout of Util.formatDouble.
+    // @param d the value to format
+    // @return the formatted value
+    byte[] b=new byte[MAX_LENGTH];
+    int n=encode(d, b, 0);
+    return(new String(b, 0, n, StandardCharsets.US_ASCII));
+  }
+  
+  private int encode(double d, byte[] b, int p){
+    // Encodes a double at a given position of a table. The significant digits are the shortest ones that identify the double (the ones String.format starts from), padded with zeros or rounded half-up to 17 digits.
+    // @param d the value to encode
+    // @param b the destination table
+    // @param p the position of the first byte
+    // @return the position after the last byte
+    if(!(d<0)){
+      b[p++]=' ';
+    }
+    if(Double.isNaN(d)){
+      return(ascii("NaN", b, p));
+    }
+    if(Double.compare(d, 0.0)<0){ // negative values, -0.0 included
+      b[p++]='-';
+    }
+    if(Double.isInfinite(d)){
+      return(ascii("Infinity", b, p));
+    }
+    
+    // Shortest digits (appended without allocation) :
+    StringBuilder sb=this.shortest;
+    sb.setLength(0);
+    sb.append(Math.abs(d));
+    int nd=0; // number of significant digits
+    int intDigits=0; // significant digits before the point
+    int leadingZeros=0; // zeros between the point and the first significant digit
+    int e10=0; // exponent of the computerized scientific notation
+    boolean point=false;
+    for(int i=0; i<sb.length(); i++){
+      char ch=sb.charAt(i);
+      if(ch=='.'){
+        point=true;
+      }
+      else if(ch=='E'){
+        e10=Integer.parseInt(sb, i+1, sb.length(), 10);
+        break;
+      }
+      else if(nd==0 && ch=='0'){
+        if(point){
+          leadingZeros++;
+        }
+      }
+      else{
+        this.digits[nd++]=(byte)ch;
+        if(!point){
+          intDigits++;
+        }
+      }
+    }
+    int exp;
+    if(nd==0){ // zero
+      exp=0;
+    }
+    else if(intDigits>0){
+      exp=intDigits-1+e10;
+    }
+    else{
+      exp=-leadingZeros-1+e10;
+    }
+    
+    // Precision :
+    if(nd>WIDTH){ // round half-up, as java.util.Formatter does on the shortest digits
+      boolean up=this.digits[WIDTH]>='5';
+      nd=WIDTH;
+      for(int i=WIDTH-1; up && i>=0; i--){
+        if(this.digits[i]=='9'){
+          this.digits[i]='0';
+        }
+        else{
+          this.digits[i]++;
+          up=false;
+        }
+      }
+      if(up){ // 9.99...9 becomes 1.00...0
+        this.digits[0]='1';
+        exp++;
+      }
+    }
+    for(int i=nd; i<WIDTH; i++){
+      this.digits[i]='0';
+    }
+    
+    // Layout :
+    b[p++]=this.digits[0];
+    b[p++]='.';
+    for(int i=1; i<WIDTH; i++){
+      b[p++]=this.digits[i];
+    }
+    b[p++]='e';
+    if(exp<0){
+      b[p++]='-';
+      exp=-exp;
+    }
+    else{
+      b[p++]='+';
+    }
+    if(exp>=100){
+      b[p++]=(byte)('0'+exp/100);
+      exp%=100;
+    }
+    b[p++]=(byte)('0'+exp/10);
+    b[p++]=(byte)('0'+exp%10);
+    return(p);
+  }
+  
+  private static int ascii(String s, byte[] b, int p){
+    for(int i=0; i<s.length(); i++){
+      b[p++]=(byte)s.charAt(i);
+    }
+    return(p);
+  }
+  //-----------------------------------------------------------
+}
@@ -0,0 +1,40 @@
+// Title       : TransformSink.java
+// Description : This class applies a ProcessTransform to a path
+//               generated segment by segment (see
+//               SegmentedBrownian), before handing the segments
+//               to another sink.
+// Author      : agent.
+// Date        : 2026.
+// Notes       : The segments are transformed in place, in order.
+
+package BrownianGenerator;
+
+import java.io.IOException; // for writing sinks
+
+public class TransformSink implements PathSink{
+  // Attributes //---------------------------------------------
+  private PathSink next; // destination of the transformed segments
+  private ProcessTransform transform; // transform applied to the segments
+  //-----------------------------------------------------------
+  
+  // Constructors //-------------------------------------------
+  public TransformSink(PathSink next, ProcessTransform transform, double[] startPoint, long Kt, double c){
+    // @param next the destination of the transformed segments
+    // @param transform the transform
+    // @param startPoint the starting point of the Brownian motion (null for the origin)
+    // @param Kt the number of discretisation points
+    // @param c the interval length
+    // @throws IllegalArgumentException if the starting point does not suit the transform
+    this.next=next;
+    this.transform=transform;
+    this.transform.start(startPoint==null?new double[transform.getDim()]:startPoint, Kt, c);
+  }
+  //-----------------------------------------------------------
+  
+  // Methods //------------------------------------------------
+  public void accept(long first, PathStorage segment, int count) throws IOException{
+    this.transform.apply(first, segment, 0, count);
+    this.next.accept(first, segment, count);
+  }
+  //-----------------------------------------------------------
+}
@@ -8,10 +8,16 @@
 package BrownianGenerator;
 
 import java.util.Arrays; // useful ?
-import java.util.Locale; // for double formatting
 
 public class Util{
   // Attributes //---------------------------------------------
+  private static final double[] INVERSE_ROOTS=new double[64]; // 2^(-j/2), for triangleValue
+  static{
+    for(int j=0; j<INVERSE_ROOTS.length; j++){
+      INVERSE_ROOTS[j]=Math.pow(2, -(double)(j)/2);
+    }
+  }
+  private static final ThreadLocal<TextEncoder> ENCODER=ThreadLocal.withInitial(() -> new TextEncoder(null, 32)); // for double formatting
   //-----------------------------------------------------------
   // Constructors //-------------------------------------------
   //-----------------------------------------------------------
@@ -53,6 +59,19 @@ public class Util{
     return(r);
   }
   
+  public static double triangleValue(int j, long k, double x){
+    // Evaluates the (j, k) non-normalised Faber-Schauder function at x, without building its coefficients. Same function as the two lines of getTriangleCoefs, written as 2^(-j/2)*min(u, 1-u) with u=2^j*x-k, which is exact at the support ends whatever j.
+    // @param j j index of the non-normalised Faber-Schauder function
+    // @param k k index of the non-normalised Faber-Schauder function
+    // @param x the abscissa, in [0, 1]
+    // @return the value of the function at x (0 outside of its support)
+    double u=Math.scalb(x, j)-k;
+    if(u<=0 || u>=1){
+      return(0.0);
+    }
+    return(Math.min(u, 1-u)*INVERSE_ROOTS[j]);
+  }
+  
   public static double[] sample(double[] abscissas, double a, double b){
     // Samples over a given array of abcsissas an affine function given by its characteristic coefficients.
     // @param abscissas table containing the wanted abscissas
@@ -66,10 +85,19 @@ public class Util{
     return(r);
   }
   
+  public static long mix64(long z){
+    // Mixes the bits of a long (finaliser of SplittableRandom, after Stafford), used to derive seeds and stream identifiers.
+    // @param z the value to mix
+    // @return the mixed value
+    z=(z^(z>>>30))*0xbf58476d1ce4e5b9L;
+    z=(z^(z>>>27))*0x94d049bb133111ebL;
+    return(z^(z>>>31));
+  }
+  
   public static String formatDouble(double d){
     // Formats a double into a #,#
-    String str=(d<0?"":" ")+String.format(Locale.US, "%.16e", d);
-    return(str);
+    // Same text as (d<0?"":" ")+String.format(Locale.US, "%.16e", d), see TextEncoder.
+    return(ENCODER.get().format(d));
   }
   //-----------------------------------------------------------
 }
\ No newline at end of file
@@ -0,0 +1,208 @@
+// Title       : PathBenchmarks.java
+// Description : This class holds the JMH benchmarks of the
+//               package : path construction (powerOf2 and general
+//               modes, several Kt, d, N and c, each layout,
+//               parallel generation), wavelet evaluation, Gaussian
+//               generation and each export format, as in
+//               Benchmark. Every benchmark reports its throughput
+//               and its latency percentiles (sample time).
+// Author      : agent.
+// Date        : 2026.
+// Notes       : Built by the jmh profile of pom.xml :
+//                 mvn -Pjmh package
+//                 java -jar target/benchmarks.jar -prof gc
+//               benchmarks/jmh-baseline.json holds a reference run.
+//               Benchmark gives the same cases without JMH.
+
+package BrownianGenerator;
+
+import java.io.File; // for the export destination
+import java.io.IOException; // for the export destination
+import java.util.concurrent.TimeUnit; // for the output unit
+import org.openjdk.jmh.annotations.BenchmarkMode; // for the benchmark annotations
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=3, time=2)
+@Measurement(iterations=5, time=2)
+@Fork(1)
+public class PathBenchmarks{
+  // Paths //--------------------------------------------------
+  @State(Scope.Thread)
+  public static class PathState{
+    // Parameters of a path : (1<<16)+1 and (1<<20)+1 are in powerOf2 mode, 100000 and 1000000 in general mode.
+    @Param({"65537", "100000", "1048577", "1000000"})
+    public int kt;
+    @Param({"1", "8"})
+    public int d;
+    @Param({"COMPONENT_MAJOR", "INTERLEAVED", "OFF_HEAP", "FLOAT"})
+    public PathLayout layout;
+    public GaussianSource gs;
+    
+    @Setup
+    public void setup(){
+      this.gs=new ZigguratGaussianSource(1);
+    }
+  }
+  
+  @State(Scope.Thread)
+  public static class CutState{
+    // Cut parameter and length of a path of one component, in both modes.
+    @Param({"65537", "100000"})
+    public int kt;
+    @Param({"8", "15", "22"})
+    public int n;
+    @Param({"1.0", "10.0"})
+    public double c;
+    public GaussianSource gs;
+    
+    @Setup
+    public void setup(){
+      this.gs=new ZigguratGaussianSource(1);
+    }
+  }
+  
+  @State(Scope.Thread)
+  public static class ParallelState{
+    // A path whose subtrees have levels of their own (see Brownian), generated over the common pool.
+    @Param({"4194305", "4000000"})
+    public int kt;
+    public GaussianSource gs;
+    
+    @Setup
+    public void setup(){
+      this.gs=new ZigguratGaussianSource(1);
+    }
+  }
+  
+  @org.openjdk.jmh.annotations.Benchmark // not the Benchmark class of the package
+  public double path(PathState s){
+    return(new Brownian(s.kt, s.d, 1.0, 15, s.gs, s.layout).get(s.kt-1, 0));
+  }
+  
+  @org.openjdk.jmh.annotations.Benchmark
+  public double pathCut(CutState s){
+    return(new Brownian(s.kt, 1, s.c, s.n, s.gs).get(s.kt-1, 0));
+  }
+  
+  @org.openjdk.jmh.annotations.Benchmark
+  public double pathParallel(ParallelState s){
+    return(new Brownian(s.kt, 1, 1.0, 22, s.gs, PathLayout.COMPONENT_MAJOR, null, null, 0).get(s.kt-1, 0));
+  }
+  //-----------------------------------------------------------
+  
+  // Wavelet evaluation //-------------------------------------
+  @State(Scope.Thread)
+  public static class WaveletState{
+    // All the wavelets of a path of one component, up to N=15.
+    @Param({"65537", "100000"})
+    public int kt;
+    public double[] target;
+    
+    @Setup
+    public void setup(){
+      this.target=new double[this.kt];
+    }
+  }
+  
+  @org.openjdk.jmh.annotations.Benchmark
+  public double waveletGetValues(WaveletState s){
+    SchauderWavelet w=new SchauderWavelet(s.kt);
+    double sum=0;
+    while(!(w.hasToStop() || w.getOrder()>15)){
+      sum+=w.getValues()[0]; // getValuesGeneral in general mode
+      w.iterate();
+    }
+    return(sum);
+  }
+  
+  @org.openjdk.jmh.annotations.Benchmark
+  public double waveletAccumulate(WaveletState s){
+    SchauderWavelet w=new SchauderWavelet(s.kt);
+    while(!(w.hasToStop() || w.getOrder()>15)){
+      w.accumulate(1.0, s.target);
+      w.iterate();
+    }
+    return(s.target[s.kt/2]);
+  }
+  //-----------------------------------------------------------
+  
+  // Gaussian generation //------------------------------------
+  @State(Scope.Thread)
+  public static class GaussianState{
+    // A block of 2^16 numbers from each source.
+    @Param({"ziggurat", "philox", "sobol", "keyed"})
+    public String rng;
+    public GaussianSource gs;
+    public double[] block=new double[1<<16];
+    
+    @Setup
+    public void setup(){
+      switch(this.rng){
+        case "philox" :
+          this.gs=new PhiloxGaussianSource(1);
+          break;
+        case "sobol" :
+          this.gs=new SobolGaussianSource(1);
+          break;
+        case "keyed" :
+          this.gs=new KeyedGaussianSource(1, 1);
+          break;
+        default :
+          this.gs=new ZigguratGaussianSource(1);
+      }
+    }
+  }
+  
+  @org.openjdk.jmh.annotations.Benchmark
+  public double gaussians(GaussianState s){
+    s.gs.fill(s.block, 0, s.block.length);
+    return(s.block[s.block.length-1]);
+  }
+  //-----------------------------------------------------------
+  
+  // Export //-------------------------------------------------
+  @State(Scope.Benchmark)
+  public static class ExportState{
+    // One component, 2^20+1 points, to a temporary file, in each output format.
+    @Param({"text", "npy", "raw", "archive"})
+    public String format;
+    public Brownian b;
+    public String file;
+    
+    @Setup
+    public void setup() throws IOException{
+      this.b=new Brownian((1<<20)+1, 1, 1.0, 15, new ZigguratGaussianSource(1));
+      File f=File.createTempFile("brownian-jmh", ".out");
+      f.deleteOnExit();
+      this.file=f.getPath();
+    }
+  }
+  
+  @org.openjdk.jmh.annotations.Benchmark
+  public void export(ExportState s){
+    switch(s.format){
+      case "npy" :
+        Generator.exportToNpy(s.b, s.file);
+        break;
+      case "raw" :
+        Generator.exportToRaw(s.b, s.file);
+        break;
+      case "archive" :
+        Generator.exportToArchive(s.b, s.file);
+        break;
+      default :
+        Generator.exportToFile(s.b, s.file);
+    }
+  }
+  //-----------------------------------------------------------
+}